@@ -0,0 +1,158 @@
+package bench;
+
+import db.ApplicationDAO;
+import db.ApplicationRepository;
+import db.CachingApplicationDAO;
+import db.Database;
+import db.LogApplicationRepository;
+import model.Application;
+import model.Status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Runs the same workload against both backends, so the embedded log can be
+ * compared with MySQL on one machine:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.BackendBenchmark [rows] [crudOps]
+ *
+ * Both start from the same rows SyntheticData applications (100,000 by
+ * default, company "backendbench-..."), imported into a temporary embedded
+ * data directory and into the MySQL database configured in db.Database.
+ * Per backend (embedded.* and mysql.*, selectable with -Dbench.only):
+ * - start     what the window does before it shows rows: replaying the log,
+ *             or warming a CachingApplicationDAO from the table (on a pooled
+ *             connection), then the first page
+ * - insert    crudOps single-row inserts, each a committed round trip
+ * - update    crudOps versioned updates of random scratch rows
+ * - list      the whole table, straight from the repository
+ *
+ * Use a scratch database: MySQL's start and list read every row in the
+ * table, not just the benchmark's. The scratch rows are deleted at the end.
+ */
+public class BackendBenchmark {
+
+    private static final long SEED = 42;
+    private static final int PAGE = 200;
+    private static final String COMPANY_PREFIX = "backendbench-";
+    private static final Status[] STATUSES = Status.values();
+    private static final ApplicationRepository.Criteria SCRATCH =
+            new ApplicationRepository.Criteria(null, null, null, COMPANY_PREFIX, null);
+
+    private final int crudOps;
+    private final Harness harness;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private long sink;
+
+    private BackendBenchmark(int crudOps, Harness harness) {
+        this.crudOps = crudOps;
+        this.harness = harness;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int crudOps = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Path dir = Files.createTempDirectory("backend-bench");
+        try {
+            Path csv = dir.resolve("rows.csv");
+            new SyntheticData(SEED).writeCsv(csv, rows, COMPANY_PREFIX);
+            Harness harness = new Harness();
+            BackendBenchmark bench = new BackendBenchmark(crudOps, harness);
+            bench.embedded(csv, dir.resolve("data"));
+            bench.mysql(csv);
+            harness.finish();
+            if (bench.sink == 42) System.out.println(); // keeps the results from being optimised away
+        } finally {
+            delete(dir);
+            Database.shutdown();
+        }
+    }
+
+    private void embedded(Path csv, Path data) throws Exception {
+        if (!harness.enabled("embedded.")) {
+            return;
+        }
+        LogApplicationRepository repo = new LogApplicationRepository(data);
+        try {
+            repo.importFile(csv);
+            repo.close();
+            harness.time("embedded.start", 1, () -> {
+                LogApplicationRepository reopened = new LogApplicationRepository(data);
+                sink += firstPage(reopened);
+                reopened.close();
+            });
+            repo = new LogApplicationRepository(data);
+            workload("embedded", repo);
+        } finally {
+            repo.close();
+        }
+    }
+
+    private void mysql(Path csv) throws Exception {
+        if (!harness.enabled("mysql.")) {
+            return;
+        }
+        ApplicationRepository repo = new ApplicationDAO();
+        try {
+            repo.deleteApplications(SCRATCH);
+            repo.importFile(csv);
+            harness.time("mysql.start", 1, () -> {
+                CachingApplicationDAO cache = new CachingApplicationDAO(new ApplicationDAO());
+                cache.warmUp();
+                sink += firstPage(cache);
+            });
+            workload("mysql", repo);
+            System.out.println("Pool: " + Database.getStats());
+        } finally {
+            repo.deleteApplications(SCRATCH);
+        }
+    }
+
+    private void workload(String backend, ApplicationRepository repo) throws Exception {
+        List<Integer> scratch = new ArrayList<>();
+        repo.forEach(SCRATCH, ApplicationRepository.SortKey.ID, app -> scratch.add(app.getId()));
+        SyntheticData fresh = new SyntheticData(SEED + 1);
+        List<Application> inserts = new ArrayList<>();
+
+        harness.time(backend + ".insert", crudOps, () -> {
+            inserts.clear();
+            for (int i = 0; i < crudOps; i++) {
+                Application app = fresh.next();
+                inserts.add(new Application(0, COMPANY_PREFIX + app.getCompany(), app.getPosition(),
+                        app.getApplicationDate(), app.getStatus(), app.getNotes()));
+            }
+        }, () -> {
+            for (Application app : inserts) {
+                sink += repo.addApplication(app);
+            }
+        });
+        harness.time(backend + ".update", crudOps, () -> {
+            for (int i = 0; i < crudOps; i++) {
+                Application current = repo.getApplication(scratch.get(random.nextInt(scratch.size())));
+                // The embedded backend shares stored rows with readers, so change a copy
+                Application changed = new Application(current.getId(), current.getCompany(), current.getPosition(),
+                        current.getApplicationDate(), STATUSES[random.nextInt(STATUSES.length)], current.getNotes());
+                changed.setVersion(current.getVersion());
+                sink += repo.updateApplication(changed).getVersion();
+            }
+        });
+        harness.time(backend + ".list", 1, () -> sink += repo.getAllApplications().size());
+    }
+
+    private static int firstPage(ApplicationRepository repo) {
+        return repo.getApplicationsPage(null, ApplicationRepository.SortKey.NEWEST, null, PAGE).size();
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
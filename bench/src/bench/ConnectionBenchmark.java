@@ -0,0 +1,71 @@
+package bench;
+
+import db.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Times N single-row queries against the MySQL database in db.Database,
+ * each on a connection borrowed from the pool with Database.connect()
+ * against each on a fresh DriverManager connection, as every DAO call did
+ * before the pool:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.ConnectionBenchmark [queries]
+ *
+ * The query is a primary-key lookup on applications, so the difference is
+ * almost all connection setup (TCP, handshake, login) and the prepared
+ * statement the driver caches per connection. Reads only. See Harness for
+ * iteration counts and -Dbench.out / -Dbench.baseline.
+ */
+public class ConnectionBenchmark {
+
+    private static final String QUERY = "SELECT id, status FROM applications WHERE id = ?";
+
+    private long sink;
+
+    public static void main(String[] args) throws Exception {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        try {
+            Harness harness = new Harness();
+            new ConnectionBenchmark().run(harness, queries);
+            System.out.println(Database.getStats());
+            harness.finish();
+        } finally {
+            Database.shutdown();
+        }
+    }
+
+    private void run(Harness harness, int queries) throws Exception {
+        harness.time("connection.pooled", queries, () -> {
+            for (int i = 0; i < queries; i++) {
+                try (Connection conn = Database.connect()) {
+                    query(conn, i);
+                }
+            }
+        });
+        harness.time("connection.perCall", queries, () -> {
+            for (int i = 0; i < queries; i++) {
+                try (Connection conn = Database.connectUnpooled()) {
+                    query(conn, i);
+                }
+            }
+        });
+        if (sink == 42) {
+            System.out.println(); // keeps the results from being optimised away
+        }
+    }
+
+    private void query(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(QUERY)) {
+            stmt.setInt(1, id + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink += rs.getInt(1);
+                }
+            }
+        }
+    }
+}
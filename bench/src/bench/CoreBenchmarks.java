@@ -0,0 +1,188 @@
+package bench;
+
+import db.ApplicationRepository;
+import db.LogApplicationRepository;
+import gui.ApplicationTableModel;
+import metrics.Metrics;
+import metrics.Operation;
+import model.Application;
+import model.Status;
+import search.SearchIndex;
+import stats.ApplicationStats;
+import table.TableIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableRowSorter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmarks for the hot paths the window hits on every page, edit and
+ * keystroke, on SyntheticData rows:
+ *
+ *   java -jar bench/target/benchmarks.jar CoreBenchmarks [-p rows=1000000]
+ *
+ * The repository is the embedded LogApplicationRepository in a temporary
+ * directory, as in StackBenchmark, which covers the bulk operations (import,
+ * replay, full loads, memory) that JMH's per-call model doesn't suit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CoreBenchmarks {
+
+    private static final long SEED = 42;
+    private static final int PAGE = 200;
+    private static final String QUERY = "senior data";
+    private static final Status[] STATUSES = Status.values();
+
+    @Param("100000")
+    public int rows;
+
+    private Path dir;
+    private LogApplicationRepository repo;
+    private List<Application> apps;
+    private TableIndex tableIndex;
+    private TableIndex.Filter compound;
+    private SearchIndex searchIndex;
+    private ApplicationStats stats;
+    private ApplicationTableModel model;
+    private TableRowSorter<ApplicationTableModel> sorter;
+    private RowFilter<ApplicationTableModel, Integer> compoundRowFilter;
+    private Operation operation;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("core-bench");
+        Path csv = dir.resolve("rows.csv");
+        new SyntheticData(SEED).writeCsv(csv, rows);
+        repo = new LogApplicationRepository(dir.resolve("data"));
+        repo.importFile(csv);
+        apps = repo.getAllApplications();
+
+        tableIndex = new TableIndex();
+        tableIndex.rebuild(apps);
+        LocalDate to = SyntheticData.END_DATE.minusDays(30);
+        compound = new TableIndex.Filter(EnumSet.of(Status.APPLIED, Status.INTERVIEWED),
+                to.minusDays(180), to, SyntheticData.company(0).substring(0, 3));
+        searchIndex = new SearchIndex();
+        searchIndex.rebuild(apps);
+        stats = new ApplicationStats();
+        stats.rebuild(apps, false);
+        model = new ApplicationTableModel();
+        ApplicationTableModel sorted = new ApplicationTableModel();
+        sorted.setApplications(apps);
+        sorter = new TableRowSorter<>(sorted);
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(ApplicationTableModel.DATE, SortOrder.DESCENDING)));
+        compoundRowFilter = new RowFilter<ApplicationTableModel, Integer>() {
+            public boolean include(Entry<? extends ApplicationTableModel, ? extends Integer> entry) {
+                return compound.matches(entry.getModel().getApplicationAt(entry.getIdentifier()));
+            }
+        };
+        operation = Metrics.operation("bench.core");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repo.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Application repositoryGet() {
+        return repo.getApplication(1 + random.nextInt(rows));
+    }
+
+    @Benchmark
+    public List<Application> repositoryFirstPage() {
+        return repo.getApplicationsPage(null, ApplicationRepository.SortKey.NEWEST, null, PAGE);
+    }
+
+    @Benchmark
+    public List<Application> repositoryStatusPage() {
+        return repo.getApplicationsPage(Status.INTERVIEWED, ApplicationRepository.SortKey.COMPANY, null, PAGE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int tableIndexCompoundFilter() {
+        return tableIndex.select(TableIndex.Column.DATE, true, compound).size();
+    }
+
+    /** The same filter and order through the stock Swing sorter, for comparison. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int tableRowSorterCompoundFilter() {
+        sorter.setRowFilter(compoundRowFilter); // filters and re-sorts every row
+        return sorter.getViewRowCount();
+    }
+
+    @Benchmark
+    public void tableIndexEdit() {
+        tableIndex.put(changed(apps.get(random.nextInt(rows))));
+    }
+
+    @Benchmark
+    public int[] searchIndex() {
+        return searchIndex.search(QUERY, PAGE);
+    }
+
+    @Benchmark
+    public void statsPut() {
+        stats.put(changed(apps.get(random.nextInt(rows))));
+    }
+
+    @Benchmark
+    public int tableModelAddPage() {
+        if (model.getRowCount() + PAGE > rows) {
+            model.clear();
+        }
+        int from = model.getRowCount();
+        model.addAll(apps.subList(from, from + PAGE));
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void operationStop() {
+        operation.stop(System.nanoTime(), 1);
+    }
+
+    // A copy of app with another status; stored rows are shared, so never change them in place
+    private Application changed(Application app) {
+        Application out = new Application(app.getId(), app.getCompany(), app.getPosition(),
+                app.getApplicationDate(), STATUSES[random.nextInt(STATUSES.length)], app.getNotes());
+        out.setUpdatedAt(app.getUpdatedAt());
+        return out;
+    }
+}
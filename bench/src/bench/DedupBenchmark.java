@@ -0,0 +1,287 @@
+package bench;
+
+import dedup.DuplicateClusters;
+import dedup.DuplicateIndex;
+import metrics.LatencyHistogram;
+import model.Application;
+import model.Status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmarks duplicate detection on SyntheticData rows with misspellings
+ * mixed in:
+ *
+ *   java -Xmx4g -cp bench/target/benchmarks.jar bench.DedupBenchmark [rows] [lookups]
+ *
+ * rows defaults to 2,000,000 (about 1.5 GB of heap per million rows covers
+ * the rows, the index and a clustering run), lookups to 10,000.
+ *
+ * A NOISE_SHARE of the rows have their company respelled the ways people
+ * do: a legal form added, different case, a leading "The", stray
+ * punctuation, or a one-letter typo (dropped, doubled, swapped or wrong) in
+ * the first word; and some positions are abbreviated ("Sr.", "Eng.",
+ * "Dev"). Since every respelling is made from a known name, the clusters
+ * can be scored:
+ *
+ * - recall: share of respelled company names clustered with the original
+ * - mixed clusters: clusters joining names of different original companies
+ *
+ * Groups, selectable with -Dbench.only=prefix,...:
+ * - dedup.memory.index  retained heap per row of DuplicateIndex
+ * - dedup.index.*       rebuild, put, and a dialog lookup (similarCompanies
+ *                       plus possibleDuplicates for a draft that is half the
+ *                       time a respelled existing company, a quarter an
+ *                       exact one and a quarter a company not in the table);
+ *                       lookup percentiles are printed after the table
+ * - dedup.cluster.*     DuplicateClusters over every row, on one thread and
+ *                       on the common ForkJoinPool, per row
+ *
+ * See Harness for iteration counts and -Dbench.out / -Dbench.baseline.
+ */
+public class DedupBenchmark {
+
+    private static final long SEED = 42;
+    private static final double NOISE_SHARE = 0.1;
+    private static final double POSITION_NOISE_SHARE = 0.1;
+    private static final int PUTS = 10_000;
+    private static final String[] LEGAL_FORMS = {", Inc.", " Inc", " LLC", ", LLC", " Ltd.", " Corp.", " GmbH", " Co."};
+    private static final String[][] TITLE_ABBREVIATIONS = {
+        {"Senior ", "Sr. "}, {"Junior ", "Jr. "}, {"Engineer", "Eng."}, {"Developer", "Dev"}, {"Manager", "Mgr"}
+    };
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private final int rows;
+    private final int lookups;
+    private final Harness harness;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    // respelled company -> the name it was made from
+    private final Map<String, String> original = new HashMap<>();
+
+    private List<Application> apps;
+    private long sink;
+
+    private DedupBenchmark(int rows, int lookups, Harness harness) {
+        this.rows = rows;
+        this.lookups = lookups;
+        this.harness = harness;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        System.out.println("Rows: " + rows + ", cores: " + Runtime.getRuntime().availableProcessors()
+                + ", max heap: " + Runtime.getRuntime().maxMemory() / (1 << 20) + " MB");
+        Harness harness = new Harness();
+        new DedupBenchmark(rows, lookups, harness).run();
+        harness.finish();
+    }
+
+    private void run() throws Exception {
+        apps = noisy(new SyntheticData(SEED).applications(rows));
+        DuplicateIndex index = harness.memory("dedup.memory.index", rows, () -> {
+            DuplicateIndex built = new DuplicateIndex();
+            built.rebuild(apps);
+            return built;
+        });
+        if (index == null) {
+            index = new DuplicateIndex();
+            index.rebuild(apps);
+        }
+        System.out.println(String.format("%,d respelled companies, %,d company keys indexed",
+                original.size(), index.companyCount()));
+        index(index);
+        cluster();
+        if (sink == 42) {
+            System.out.println(); // keeps the results from being optimised away
+        }
+    }
+
+    private void index(DuplicateIndex index) throws Exception {
+        harness.time("dedup.index.rebuild", rows, () -> index.rebuild(apps));
+
+        SyntheticData fresh = new SyntheticData(SEED + 1);
+        List<Application> added = new ArrayList<>(PUTS);
+        harness.time("dedup.index.put", PUTS, () -> {
+            for (Application a : added) {
+                index.remove(a.getId());
+            }
+            added.clear();
+            for (int i = 0; i < PUTS; i++) {
+                Application a = fresh.next();
+                added.add(new Application(rows + 1 + i, a.getCompany(), a.getPosition(), a.getApplicationDate(),
+                        a.getStatus(), a.getNotes()));
+            }
+        }, () -> {
+            for (Application a : added) {
+                index.put(a);
+            }
+        });
+
+        Application[] drafts = new Application[lookups];
+        for (int i = 0; i < lookups; i++) {
+            drafts[i] = draft();
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        harness.time("dedup.index.lookup", lookups, () -> {
+            for (Application draft : drafts) {
+                long start = System.nanoTime();
+                sink += index.similarCompanies(draft.getCompany(), 5).size();
+                sink += index.possibleDuplicates(draft, 3).size();
+                latency.record(System.nanoTime() - start);
+            }
+        });
+        if (harness.enabled("dedup.index.lookup")) {
+            System.out.println(String.format("  lookup latency: p50 %.1f us, p90 %.1f us, p99 %.1f us, "
+                            + "p99.9 %.1f us, max %.1f us", latency.percentile(0.5) / 1e3,
+                    latency.percentile(0.9) / 1e3, latency.percentile(0.99) / 1e3,
+                    latency.percentile(0.999) / 1e3, latency.getMaxNanos() / 1e3));
+            suggestionAccuracy(index);
+        }
+    }
+
+    // How often the top suggestion for a respelled name is the company it was made from
+    private void suggestionAccuracy(DuplicateIndex index) {
+        int tried = 0;
+        int right = 0;
+        for (Map.Entry<String, String> e : original.entrySet()) {
+            List<DuplicateIndex.CompanyMatch> top = index.similarCompanies(e.getKey(), 1);
+            tried++;
+            if (!top.isEmpty() && sameCompany(top.get(0).getName(), e.getValue())) {
+                right++;
+            }
+        }
+        System.out.println(String.format("  top suggestion is the original for %.1f%% of %,d respelled names",
+                100.0 * right / Math.max(1, tried), tried));
+    }
+
+    private void cluster() throws Exception {
+        DuplicateClusters[] last = new DuplicateClusters[1];
+        harness.time("dedup.cluster.sequential", rows, () -> last[0] = DuplicateClusters.find(apps, false));
+        harness.time("dedup.cluster.parallel", rows, () -> last[0] = DuplicateClusters.find(apps, true));
+        if (last[0] == null) {
+            return;
+        }
+        DuplicateClusters result = last[0];
+        Map<String, Integer> clusterOf = new HashMap<>();
+        int mixed = 0;
+        for (int c = 0; c < result.getCompanyClusters().size(); c++) {
+            String first = null;
+            boolean pure = true;
+            for (String spelling : result.getCompanyClusters().get(c).getSpellings()) {
+                clusterOf.put(spelling, c);
+                String from = original.getOrDefault(spelling, spelling);
+                if (first == null) {
+                    first = from;
+                } else if (!from.equals(first)) {
+                    pure = false;
+                }
+            }
+            mixed += pure ? 0 : 1;
+        }
+        // a respelling can only be matched if its original is in the table too
+        Set<String> spelled = new HashSet<>();
+        for (Application a : apps) {
+            spelled.add(a.getCompany());
+        }
+        int matchable = 0;
+        int found = 0;
+        for (Map.Entry<String, String> e : original.entrySet()) {
+            if (!spelled.contains(e.getValue()) || !spelled.contains(e.getKey())) {
+                continue;
+            }
+            matchable++;
+            Integer c = clusterOf.get(e.getKey());
+            if (c != null && c.equals(clusterOf.get(e.getValue()))) {
+                found++;
+            }
+        }
+        long keys = result.getCompanyKeyCount();
+        System.out.println(String.format("  %,d spellings, %,d keys, %,d clusters (%d mixed), recall %.1f%%, "
+                        + "%,d repeated roles; %,d comparisons instead of %,d",
+                result.getSpellingCount(), keys, result.getCompanyClusters().size(), mixed,
+                100.0 * found / Math.max(1, matchable), result.getDuplicateApplications().size(),
+                result.getComparisons(), keys * (keys - 1) / 2));
+        System.out.println("  (parallel on " + ForkJoinPool.getCommonPoolParallelism() + " worker thread(s))");
+    }
+
+    // Respells a share of the companies and positions; the rows keep their ids
+    private List<Application> noisy(List<Application> clean) {
+        List<Application> out = new ArrayList<>(clean.size());
+        for (Application a : clean) {
+            String company = a.getCompany();
+            String position = a.getPosition();
+            if (random.nextDouble() < NOISE_SHARE) {
+                company = respell(company, true);
+            }
+            if (random.nextDouble() < POSITION_NOISE_SHARE) {
+                for (String[] abbreviation : TITLE_ABBREVIATIONS) {
+                    position = position.replace(abbreviation[0], abbreviation[1]);
+                }
+            }
+            out.add(new Application(a.getId(), company, position, a.getApplicationDate(), a.getStatus(),
+                    a.getNotes()));
+        }
+        return out;
+    }
+
+    // record: remember the respelling as one made from name, for scoring
+    private String respell(String name, boolean record) {
+        String variant;
+        switch (random.nextInt(5)) {
+            case 0:  variant = name + LEGAL_FORMS[random.nextInt(LEGAL_FORMS.length)]; break;
+            case 1:  variant = random.nextBoolean() ? name.toUpperCase(Locale.ROOT) : name.toLowerCase(Locale.ROOT); break;
+            case 2:  variant = "The " + name; break;
+            case 3:  variant = name.replaceFirst(" ", random.nextBoolean() ? " - " : ", "); break;
+            default: variant = typo(name); break;
+        }
+        if (record && !variant.equals(name)) {
+            original.putIfAbsent(variant, name);
+        }
+        return variant;
+    }
+
+    // One edit inside the first word, away from its first letter
+    private String typo(String name) {
+        int end = name.indexOf(' ');
+        int at = 1 + random.nextInt(Math.max(1, end - 2));
+        char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        switch (random.nextInt(4)) {
+            case 0:  return name.substring(0, at) + name.substring(at + 1);
+            case 1:  return name.substring(0, at) + name.charAt(at) + name.substring(at);
+            case 2:  return name.substring(0, at) + name.charAt(at + 1) + name.charAt(at) + name.substring(at + 2);
+            default: return name.substring(0, at) + letter + name.substring(at + 1);
+        }
+    }
+
+    private Application draft() {
+        Application base = apps.get(random.nextInt(apps.size()));
+        String company;
+        double u = random.nextDouble();
+        if (u < 0.5) {
+            company = respell(base.getCompany(), false);
+        } else if (u < 0.75) {
+            company = base.getCompany();
+        } else {
+            StringBuilder made = new StringBuilder();
+            for (int i = 0; i < 3; i++) {
+                made.append("bcdfgklmnprstvz".charAt(random.nextInt(15))).append("aeiou".charAt(random.nextInt(5)));
+            }
+            made.setCharAt(0, Character.toUpperCase(made.charAt(0)));
+            company = made + " Systems";
+        }
+        return new Application(0, company, base.getPosition(), base.getApplicationDate(), Status.APPLIED, null);
+    }
+
+    private boolean sameCompany(String suggested, String truth) {
+        return original.getOrDefault(suggested, suggested).equals(truth);
+    }
+}
@@ -0,0 +1,190 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Small measurement loop for the bench mains, modelled on JMH's defaults:
+ * each benchmark runs WARMUPS untimed iterations, then ITERATIONS timed
+ * ones, and reports the mean time per operation with a 99.9% confidence
+ * error. Memory results are retained heap after a full GC, per row.
+ *
+ * Results print as they come. With -Dbench.out=file they are also written as
+ * CSV (name,score,error,unit), and with -Dbench.baseline=file (an earlier
+ * bench.out) each line also shows the change against that run, so a branch
+ * can be compared with master on the same machine. -Dbench.only=a,b runs
+ * only the benchmarks whose names start with one of the prefixes.
+ *
+ * Per-call hot paths are also JMH benchmarks (CoreBenchmarks); this loop is
+ * for the mains that time bulk work or need data set up between iterations.
+ */
+final class Harness {
+
+    private static final int WARMUPS = Integer.getInteger("bench.warmups", 3);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    // Student's t for 99.9% two-sided, by degrees of freedom 1..10; beyond that 3.3 is close enough
+    private static final double[] T999 = {636.6, 31.6, 12.9, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59};
+
+    /** One timed iteration; each call performs the operations the benchmark was declared with. */
+    interface Task {
+        void run() throws Exception;
+    }
+
+    /** Untimed work before each iteration, e.g. reopening a repository. */
+    interface Setup {
+        void run() throws Exception;
+    }
+
+    private final List<String[]> results = new ArrayList<>();
+    private final Map<String, Double> baseline;
+    private final String[] only;
+
+    Harness() throws IOException {
+        String base = System.getProperty("bench.baseline");
+        baseline = base == null ? Map.of() : read(Paths.get(base));
+        String filter = System.getProperty("bench.only");
+        only = filter == null ? new String[0] : filter.split(",");
+        System.out.println(String.format("%-32s %12s %10s  %s", "Benchmark", "Score", "Error", "Units"));
+    }
+
+    boolean enabled(String name) {
+        if (only.length == 0) {
+            return true;
+        }
+        for (String prefix : only) {
+            if (name.startsWith(prefix.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void time(String name, long ops, Task task) throws Exception {
+        time(name, ops, null, task);
+    }
+
+    /** Times task, which performs ops operations per call, and reports time per operation. */
+    void time(String name, long ops, Setup setup, Task task) throws Exception {
+        if (!enabled(name)) {
+            return;
+        }
+        double[] nanosPerOp = new double[ITERATIONS];
+        for (int i = 0; i < WARMUPS + ITERATIONS; i++) {
+            if (setup != null) {
+                setup.run();
+            }
+            long start = System.nanoTime();
+            task.run();
+            long nanos = System.nanoTime() - start;
+            if (i >= WARMUPS) {
+                nanosPerOp[i - WARMUPS] = (double) nanos / ops;
+            }
+        }
+        double mean = 0;
+        for (double v : nanosPerOp) {
+            mean += v;
+        }
+        mean /= ITERATIONS;
+        double variance = 0;
+        for (double v : nanosPerOp) {
+            variance += (v - mean) * (v - mean);
+        }
+        double error = ITERATIONS < 2 ? 0 : t999(ITERATIONS - 1) * Math.sqrt(variance / (ITERATIONS - 1) / ITERATIONS);
+
+        String unit = mean >= 1e6 ? "ms/op" : mean >= 1e3 ? "us/op" : "ns/op";
+        double scale = mean >= 1e6 ? 1e6 : mean >= 1e3 ? 1e3 : 1;
+        report(name, mean / scale, error / scale, unit,
+                String.format("%,.0f ops/s", 1e9 / mean));
+    }
+
+    /**
+     * Reports the heap retained by what build returns, per row: a full GC
+     * before and after building, with the result kept reachable until the
+     * second measurement. Anything else allocated meanwhile skews it, so run
+     * this with nothing else going on.
+     */
+    <T> T memory(String name, long rows, Supplier<T> build) {
+        if (!enabled(name)) {
+            return null;
+        }
+        long before = usedAfterGc();
+        T built = build.get();
+        long after = usedAfterGc();
+        report(name, (double) (after - before) / rows, 0, "B/row",
+                String.format("%,.1f MB", (after - before) / 1e6));
+        return built;
+    }
+
+    /** Writes -Dbench.out if it was given. */
+    void finish() throws IOException {
+        String out = System.getProperty("bench.out");
+        if (out == null) {
+            return;
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)) {
+            w.write("name,score,error,unit\n");
+            for (String[] r : results) {
+                w.write(String.join(",", r));
+                w.write('\n');
+            }
+        }
+        System.out.println("Results written to " + out);
+    }
+
+    private void report(String name, double score, double error, String unit, String note) {
+        results.add(new String[] {name, String.valueOf(score), String.valueOf(error), unit});
+        String line = String.format("%-32s %12.3f %10s  %-6s  %s", name, score,
+                error > 0 ? String.format("+- %.3f", error) : "", unit, note);
+        Double base = baseline.get(name);
+        if (base != null && base > 0) {
+            double now = inBaseUnit(score, unit);
+            line += String.format("  (%+.1f%% vs baseline)", 100 * (now - base) / base);
+        }
+        System.out.println(line);
+    }
+
+    private static Map<String, Double> read(Path file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] fields = line.split(",");
+            if (fields.length == 4) {
+                scores.put(fields[0], inBaseUnit(Double.parseDouble(fields[1]), fields[3]));
+            }
+        }
+        return scores;
+    }
+
+    // Nanoseconds for times, so a benchmark that moved from us/op to ms/op still compares
+    private static double inBaseUnit(double score, String unit) {
+        switch (unit) {
+            case "ms/op": return score * 1e6;
+            case "us/op": return score * 1e3;
+            default:      return score;
+        }
+    }
+
+    private static double t999(int degrees) {
+        return degrees <= T999.length ? T999[degrees - 1] : 3.3;
+    }
+
+    private static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A few rounds, since one System.gc() doesn't always finish reclaiming
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
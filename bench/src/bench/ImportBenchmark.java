@@ -0,0 +1,68 @@
+package bench;
+
+import db.ApplicationDAO;
+import db.ApplicationImporter;
+import db.ApplicationRepository;
+import db.Database;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Times ApplicationDAO.importFile against MySQL:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.ImportBenchmark [rows]
+ *
+ * Writes rows synthetic applications (company "importbench-...") to a CSV
+ * file, then times importing it with Harness, deleting the imported rows
+ * before each iteration. Every iteration moves the whole file through the
+ * batched, chunked JDBC path (ApplicationImporter), so with the default
+ * million rows the per-row score times 1e6 is the wall time of one import;
+ * -Dbench.warmups=1 -Dbench.iterations=3 keeps a run short. Deletes the
+ * scratch rows and the file at the end.
+ *
+ * Runs against the database configured in db.Database, whose URL sets
+ * rewriteBatchedStatements=true so the batches go out as multi-row INSERTs.
+ */
+public class ImportBenchmark {
+
+    private static final String COMPANY_PREFIX = "importbench-";
+
+    private final ApplicationRepository repo = new ApplicationDAO();
+    private final ApplicationRepository.Criteria scratch =
+            new ApplicationRepository.Criteria(null, null, null, COMPANY_PREFIX, null);
+    private long sink;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path csv = Files.createTempFile("import-bench", ".csv");
+        try {
+            new ImportBenchmark().run(csv, rows);
+        } finally {
+            Files.deleteIfExists(csv);
+            Database.shutdown();
+        }
+    }
+
+    private void run(Path csv, int rows) throws Exception {
+        new SyntheticData(42).writeCsv(csv, rows, COMPANY_PREFIX);
+        System.out.println(String.format("Wrote %,d rows (%d MB) to %s", rows, Files.size(csv) >> 20, csv));
+
+        Harness harness = new Harness();
+        try {
+            harness.time("import.mysql", rows, () -> repo.deleteApplications(scratch), () -> {
+                ApplicationImporter.ImportResult result = repo.importFile(csv);
+                if (result.getImported() != rows) {
+                    throw new IllegalStateException("Imported " + result.getImported() + " of " + rows
+                            + " rows: " + result.getErrors());
+                }
+                sink += result.getImported();
+            });
+            harness.finish();
+        } finally {
+            repo.deleteApplications(scratch);
+        }
+        System.out.println("Pool: " + Database.getStats());
+        if (sink == 42) System.out.println(); // keeps the results from being optimised away
+    }
+}
@@ -0,0 +1,157 @@
+package bench;
+
+import db.ApplicationRepository;
+import db.AsyncApplicationDAO;
+import db.InstrumentedRepository;
+import db.LogApplicationRepository;
+import metrics.Metrics;
+import metrics.Operation;
+import model.Application;
+import model.Status;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures what the Metrics instrumentation costs:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.MetricsOverheadBenchmark [rows] [calls]
+ *
+ * First the bare cost of Operation.stop() and the bytes it allocates (read
+ * from the JVM's per-thread allocation counter; should be 0). Then a mix of
+ * repository reads (pages, single rows, id batches, counts) against an
+ * embedded repository, timed with Harness bare and inside an
+ * InstrumentedRepository: once called directly, and once through
+ * AsyncApplicationDAO the way the window calls it. The embedded
+ * backend answers from memory in a microsecond or two, so the direct run is
+ * the worst case; against MySQL the same fixed cost per call is spread over
+ * a network round trip. Works in a temporary directory.
+ */
+public class MetricsOverheadBenchmark {
+
+    private static final int RECORDS = 10_000_000;
+    private static final int PAGE = 200;
+    private static final int BATCH = 50;
+    private static final Status[] STATUSES = Status.values();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        Harness harness = new Harness();
+        recordCost(harness);
+
+        Path dir = Files.createTempDirectory("metrics-bench");
+        try {
+            Path csv = dir.resolve("rows.csv");
+            writeCsv(csv, rows, new Random(42));
+            LogApplicationRepository bare = new LogApplicationRepository(dir.resolve("data"));
+            bare.importFile(csv);
+            ApplicationRepository instrumented = new InstrumentedRepository("bench", bare);
+
+            harness.time("repository.bare", calls, () -> workload(bare, rows, calls));
+            harness.time("repository.instrumented", calls, () -> workload(instrumented, rows, calls));
+
+            AsyncApplicationDAO bareAsync = new AsyncApplicationDAO(bare);
+            AsyncApplicationDAO instrumentedAsync = new AsyncApplicationDAO(instrumented);
+            int asyncCalls = calls / 4;
+            harness.time("async.bare", asyncCalls, () -> asyncWorkload(bareAsync, asyncCalls));
+            harness.time("async.instrumented", asyncCalls, () -> asyncWorkload(instrumentedAsync, asyncCalls));
+            bareAsync.shutdown();
+            instrumentedAsync.shutdown();
+            for (Operation op : Metrics.operations()) {
+                if (op.getName().startsWith("bench.") && op.getCount() > 0) {
+                    System.out.println(String.format("  %-28s %9d calls, p50 %.1f us, p99 %.1f us", op.getName(),
+                            op.getCount(), op.getP50Millis() * 1e3, op.getP99Millis() * 1e3));
+                }
+            }
+            bare.close();
+            harness.finish();
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static void recordCost(Harness harness) throws Exception {
+        Operation op = Metrics.operation("bench.record");
+        harness.time("metrics.stop", RECORDS, () -> {
+            for (int i = 0; i < RECORDS; i++) {
+                op.stop(System.nanoTime(), 1);
+            }
+        });
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(self);
+        for (int i = 0; i < RECORDS; i++) {
+            op.stop(System.nanoTime(), 1);
+        }
+        long allocated = threads.getThreadAllocatedBytes(self) - bytes;
+        System.out.println(String.format("Operation.stop(): %d bytes allocated over %d calls", allocated, RECORDS));
+    }
+
+    // One pass of the read mix
+    private static void workload(ApplicationRepository repo, int rows, int calls) {
+        Random random = new Random(7);
+        int[] ids = new int[BATCH];
+        long sink = 0;
+        for (int i = 0; i < calls; i++) {
+            switch (i & 3) {
+                case 0:
+                    Status status = random.nextBoolean() ? null : STATUSES[random.nextInt(STATUSES.length)];
+                    sink += repo.getApplicationsPage(status, ApplicationRepository.SortKey.NEWEST, null, PAGE).size();
+                    break;
+                case 1:
+                    Application app = repo.getApplication(1 + random.nextInt(rows));
+                    sink += app == null ? 0 : app.getId();
+                    break;
+                case 2:
+                    for (int k = 0; k < BATCH; k++) {
+                        ids[k] = 1 + random.nextInt(rows);
+                    }
+                    List<Application> found = repo.getApplications(ids);
+                    sink += found.size();
+                    break;
+                default:
+                    sink += repo.countApplications();
+            }
+        }
+        if (sink == 42) {
+            System.out.println(); // keeps the calls from being optimised away
+        }
+    }
+
+    // Page requests made and awaited one at a time, as the window does
+    private static void asyncWorkload(AsyncApplicationDAO dao, int calls) {
+        Random random = new Random(7);
+        long sink = 0;
+        for (int i = 0; i < calls; i++) {
+            Status status = random.nextBoolean() ? null : STATUSES[random.nextInt(STATUSES.length)];
+            sink += dao.getApplicationsPage(status, ApplicationRepository.SortKey.NEWEST, null, PAGE).join().size();
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void writeCsv(Path file, int rows, Random random) throws IOException {
+        LocalDate today = LocalDate.now();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("company,position,application_date,status,notes\n");
+            for (int i = 0; i < rows; i++) {
+                out.write("Company " + random.nextInt(5_000) + ",Engineer " + random.nextInt(200) + ","
+                        + today.minusDays(random.nextInt(730)) + "," + STATUSES[random.nextInt(STATUSES.length)].getLabel()
+                        + ",\n");
+            }
+        }
+    }
+}
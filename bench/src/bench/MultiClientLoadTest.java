@@ -0,0 +1,150 @@
+package bench;
+
+import db.ApplicationDAO;
+import db.ApplicationRepository;
+import db.ChangeCursor;
+import db.Database;
+import db.StaleUpdateException;
+import model.Application;
+import model.Status;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates several MainWindow clients sharing one MySQL database:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.MultiClientLoadTest [clients] [seconds] [rows]
+ *
+ * Inserts rows scratch rows (company "loadtest-..."), then each client
+ * repeatedly reads a random one, changes its status with a compare-and-set
+ * update and tails the change feed every POLL_INTERVAL_MS, the way the
+ * window's refresh timer does. Prints update throughput, the conflict rate
+ * and how long changes took to reach the other clients through the feed,
+ * then deletes the scratch rows.
+ *
+ * Runs against the database configured in db.Database; all clients share
+ * its connection pool.
+ */
+public class MultiClientLoadTest {
+
+    private static final long POLL_INTERVAL_MS = 2_000;
+    private static final int POLL_LIMIT = 1_000;
+    private static final String COMPANY_PREFIX = "loadtest-";
+
+    private final ApplicationRepository repo = new ApplicationDAO();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong feedEntries = new AtomicLong();
+    private final List<Long> lagMillis = new ArrayList<>();
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        try {
+            new MultiClientLoadTest().run(clients, seconds, rows);
+        } finally {
+            Database.shutdown();
+        }
+    }
+
+    private void run(int clients, int seconds, int rowCount) throws InterruptedException {
+        int[] ids = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = repo.addApplication(new Application(0, COMPANY_PREFIX + i, "Engineer",
+                    LocalDate.now(), Status.APPLIED, ""));
+        }
+        System.out.println("Inserted " + rowCount + " scratch rows; running " + clients
+                + " clients for " + seconds + "s.");
+
+        long deadline = System.currentTimeMillis() + seconds * 1000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            Thread t = new Thread(() -> client(ids, deadline), "client-" + c);
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        report(clients, seconds);
+        for (int id : ids) {
+            if (id > 0) {
+                repo.deleteApplication(id);
+            }
+        }
+    }
+
+    private void client(int[] ids, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ChangeCursor cursor = new ChangeCursor(repo.getLatestChangeSeq());
+        long nextPoll = System.currentTimeMillis() + POLL_INTERVAL_MS;
+
+        while (System.currentTimeMillis() < deadline) {
+            Application app = repo.getApplication(ids[random.nextInt(ids.length)]);
+            if (app != null) {
+                app.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                try {
+                    if (repo.updateApplication(app) != null) {
+                        updates.incrementAndGet();
+                    }
+                } catch (StaleUpdateException e) {
+                    conflicts.incrementAndGet();
+                }
+            }
+            if (System.currentTimeMillis() >= nextPoll) {
+                poll(cursor);
+                nextPoll += POLL_INTERVAL_MS;
+            }
+        }
+    }
+
+    private void poll(ChangeCursor cursor) {
+        List<ApplicationRepository.Change> feed = cursor.poll(repo, POLL_LIMIT);
+        polls.incrementAndGet();
+        feedEntries.addAndGet(feed.size());
+        Instant now = Instant.now();
+        List<Long> lags = new ArrayList<>(feed.size());
+        for (ApplicationRepository.Change change : feed) {
+            Application app = change.getApplication();
+            if (app != null && app.getUpdatedAt() != null) {
+                lags.add(now.toEpochMilli() - app.getUpdatedAt().toEpochMilli());
+            }
+        }
+        synchronized (lagMillis) {
+            lagMillis.addAll(lags);
+        }
+    }
+
+    private void report(int clients, int seconds) {
+        long done = updates.get(), lost = conflicts.get();
+        System.out.println("Clients:        " + clients);
+        System.out.println("Updates:        " + done + " (" + (done / Math.max(1, seconds)) + "/s)");
+        System.out.println("Conflicts:      " + lost + " (" + percent(lost, done + lost) + " of attempts)");
+        System.out.println("Feed polls:     " + polls.get() + ", " + feedEntries.get() + " entries");
+
+        long[] lags;
+        synchronized (lagMillis) {
+            lags = lagMillis.stream().mapToLong(Long::longValue).toArray();
+        }
+        if (lags.length > 0) {
+            Arrays.sort(lags);
+            System.out.println("Feed lag (ms):  p50 " + lags[lags.length / 2]
+                    + ", p99 " + lags[(int) (lags.length * 0.99)]
+                    + ", max " + lags[lags.length - 1]);
+        }
+        System.out.println("Pool:           " + Database.getStats());
+    }
+
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "0%" : String.format("%.1f%%", 100.0 * part / whole);
+    }
+}
@@ -0,0 +1,365 @@
+package bench;
+
+import db.ApplicationRepository;
+import db.LogApplicationRepository;
+import gui.ApplicationTableModel;
+import model.Application;
+import model.Status;
+import search.SearchIndex;
+import snapshot.ApplicationSnapshot;
+import table.TableIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks the whole stack below the window on SyntheticData rows:
+ *
+ *   java [-Xmx..] -cp bench/target/benchmarks.jar bench.StackBenchmark [rows] [crudOps]
+ *
+ * rows defaults to 100,000 and is meant to go from 10k to 10M (give the
+ * JVM about 1 GB of heap per million rows). Every run with the same
+ * arguments sees the same data.
+ *
+ * The database is the embedded LogApplicationRepository in a temporary
+ * directory: the same ApplicationRepository interface the window uses
+ * against MySQL, with no server or container to set up, so numbers are
+ * reproducible on any Linux box. Writes are fsynced, as in production.
+ * BackendBenchmark puts start, insert, update and list side by side with
+ * MySQL.
+ *
+ * Groups, selectable with -Dbench.only=prefix,...:
+ * - gc.*      full-GC pause with nothing else loaded but the rows as a
+ *             list of Applications, or as a snapshot (timed System.gc(), so
+ *             don't run with -XX:+ExplicitGCInvokesConcurrent)
+ * - memory.*  retained heap per row of the loaded rows, the repository,
+ *             a snapshot, the table and search indexes and the table model
+ * - import.*, load.*  bulk import, reopening (log replay), full list,
+ *             first page, paging through everything, columnar snapshot
+ * - crud.*    insert (one and several threads), get, versioned update and
+ *             delete, each a committed round trip
+ * - filter.*  status page, repository search, SearchIndex, TableIndex
+ *             compound filter, snapshot select, and a plain scan
+ * - table.*   filling ApplicationTableModel and reading every cell
+ *
+ * See Harness for iteration counts and -Dbench.out / -Dbench.baseline.
+ */
+public class StackBenchmark {
+
+    private static final long SEED = 42;
+    private static final int PAGE = 200;
+    private static final int PAGE_CALLS = 1_000;
+    private static final int GETS = 100_000;
+    private static final int SEARCHES = 1_000;
+    private static final int THREADS = 4;
+    private static final String QUERY = "senior data";
+    private static final Status[] STATUSES = Status.values();
+
+    private final int rows;
+    private final int crudOps;
+    private final Path dir;
+    private final Harness harness;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final Deque<Integer> inserted = new ArrayDeque<>();
+
+    private List<Application> apps;
+    private LogApplicationRepository repo;
+    private ApplicationSnapshot snapshot;
+    private long sink;
+
+    private StackBenchmark(int rows, int crudOps, Path dir, Harness harness) {
+        this.rows = rows;
+        this.crudOps = crudOps;
+        this.dir = dir;
+        this.harness = harness;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int crudOps = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        System.out.println("Rows: " + rows + ", cores: " + Runtime.getRuntime().availableProcessors()
+                + ", max heap: " + Runtime.getRuntime().maxMemory() / (1 << 20) + " MB");
+
+        Path dir = Files.createTempDirectory("stack-bench");
+        try {
+            Harness harness = new Harness();
+            new StackBenchmark(rows, crudOps, dir, harness).run();
+            harness.finish();
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private void run() throws Exception {
+        gcPauses();
+        Path csv = dir.resolve("rows.csv");
+        new SyntheticData(SEED).writeCsv(csv, rows);
+        Path data = dir.resolve("data");
+        LogApplicationRepository loaded = new LogApplicationRepository(data);
+        loaded.importFile(csv);
+        loaded.close();
+
+        memory(data);
+        load(csv, data);
+        crud();
+        filter();
+        table();
+
+        repo.close();
+        if (sink == 42) {
+            System.out.println(); // keeps the results from being optimised away
+        }
+    }
+
+    // Each shape is built straight from the generator, so the other is never on the heap with it
+    private void gcPauses() throws Exception {
+        if (harness.enabled("gc.list")) {
+            List<Application> list = new SyntheticData(SEED).applications(rows);
+            harness.time("gc.list", 1, System::gc);
+            sink += list.size();
+        }
+        if (harness.enabled("gc.snapshot")) {
+            SyntheticData data = new SyntheticData(SEED);
+            ApplicationSnapshot.Builder builder = new ApplicationSnapshot.Builder();
+            for (int i = 0; i < rows; i++) {
+                builder.add(data.next());
+            }
+            ApplicationSnapshot built = builder.build();
+            builder = null; // only the snapshot stays reachable
+            harness.time("gc.snapshot", 1, System::gc);
+            sink += built.size();
+        }
+    }
+
+    private void memory(Path data) throws IOException {
+        apps = harness.memory("memory.list", rows, () -> new SyntheticData(SEED).applications(rows));
+        if (apps == null) {
+            apps = new SyntheticData(SEED).applications(rows);
+        }
+        repo = harness.memory("memory.repository", rows, () -> open(data));
+        if (repo == null) {
+            repo = open(data);
+        }
+        snapshot = harness.memory("memory.snapshot", rows, repo::loadSnapshot);
+        if (snapshot == null) {
+            snapshot = repo.loadSnapshot();
+        }
+        harness.memory("memory.tableIndex", rows, () -> {
+            TableIndex index = new TableIndex();
+            index.rebuild(apps);
+            return index;
+        });
+        harness.memory("memory.searchIndex", rows, () -> {
+            SearchIndex index = new SearchIndex();
+            index.rebuild(apps);
+            return index;
+        });
+        harness.memory("memory.tableModel", rows, () -> {
+            ApplicationTableModel model = new ApplicationTableModel();
+            model.setApplications(apps);
+            return model;
+        });
+    }
+
+    private void load(Path csv, Path data) throws Exception {
+        Path[] target = new Path[1];
+        int[] run = {0};
+        harness.time("import.csv", 1, () -> {
+            if (target[0] != null) {
+                delete(target[0]);
+            }
+            target[0] = dir.resolve("import-" + run[0]++);
+        }, () -> {
+            LogApplicationRepository fresh = new LogApplicationRepository(target[0]);
+            sink += fresh.importFile(csv).getImported();
+            fresh.close();
+        });
+        if (target[0] != null) {
+            delete(target[0]);
+        }
+        harness.time("load.replay", 1, () -> {
+            LogApplicationRepository reopened = new LogApplicationRepository(data);
+            sink += reopened.countApplications();
+            reopened.close();
+        });
+        harness.time("load.all", 1, () -> sink += repo.getAllApplications().size());
+        harness.time("load.firstPage", PAGE_CALLS, () -> {
+            for (int i = 0; i < PAGE_CALLS; i++) {
+                sink += repo.getApplicationsPage(null, ApplicationRepository.SortKey.NEWEST, null, PAGE).size();
+            }
+        });
+        harness.time("load.pageThrough", 1, () -> {
+            Application after = null;
+            List<Application> page;
+            do {
+                page = repo.getApplicationsPage(null, ApplicationRepository.SortKey.NEWEST, after, PAGE);
+                sink += page.size();
+                after = page.isEmpty() ? null : page.get(page.size() - 1);
+            } while (page.size() == PAGE);
+        });
+        harness.time("load.snapshot", 1, () -> sink += repo.loadSnapshot().size());
+    }
+
+    private void crud() throws Exception {
+        int[] ids = new int[GETS];
+        for (int i = 0; i < GETS; i++) {
+            ids[i] = 1 + random.nextInt(rows);
+        }
+        SyntheticData fresh = new SyntheticData(SEED + 1);
+
+        harness.time("crud.insert", crudOps, () -> {
+            for (int i = 0; i < crudOps; i++) {
+                inserted.add(repo.addApplication(fresh.next()));
+            }
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            harness.time("crud.insert." + THREADS + "threads", crudOps, () -> {
+                List<Future<List<Integer>>> done = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    List<Application> batch = new ArrayList<>();
+                    synchronized (fresh) {
+                        for (int i = t; i < crudOps; i += THREADS) {
+                            batch.add(fresh.next());
+                        }
+                    }
+                    done.add(pool.submit(() -> {
+                        List<Integer> added = new ArrayList<>(batch.size());
+                        for (Application app : batch) {
+                            added.add(repo.addApplication(app));
+                        }
+                        return added;
+                    }));
+                }
+                for (Future<List<Integer>> f : done) {
+                    inserted.addAll(f.get());
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        harness.time("crud.get", GETS, () -> {
+            for (int id : ids) {
+                Application app = repo.getApplication(id);
+                sink += app == null ? 0 : app.getVersion();
+            }
+        });
+        harness.time("crud.update", crudOps, () -> {
+            for (int i = 0; i < crudOps; i++) {
+                Application current = repo.getApplication(ids[i % GETS]);
+                // Stored rows are shared with readers, so change a copy
+                Application changed = new Application(current.getId(), current.getCompany(), current.getPosition(),
+                        current.getApplicationDate(), STATUSES[random.nextInt(STATUSES.length)], current.getNotes());
+                changed.setVersion(current.getVersion());
+                sink += repo.updateApplication(changed).getVersion();
+            }
+        });
+        List<Integer> victims = new ArrayList<>();
+        harness.time("crud.delete", crudOps, () -> {
+            victims.clear();
+            while (victims.size() < crudOps) {
+                victims.add(inserted.isEmpty() ? repo.addApplication(fresh.next()) : inserted.poll());
+            }
+        }, () -> {
+            for (int id : victims) {
+                repo.deleteApplication(id);
+            }
+        });
+    }
+
+    private void filter() throws Exception {
+        LocalDate to = SyntheticData.END_DATE.minusDays(30);
+        LocalDate from = to.minusDays(180);
+        TableIndex.Filter compound = new TableIndex.Filter(EnumSet.of(Status.APPLIED, Status.INTERVIEWED),
+                from, to, SyntheticData.company(0).substring(0, 3));
+        TableIndex tableIndex = new TableIndex();
+        tableIndex.rebuild(apps);
+        SearchIndex searchIndex = new SearchIndex();
+        searchIndex.rebuild(apps);
+
+        harness.time("filter.statusPage", PAGE_CALLS, () -> {
+            for (int i = 0; i < PAGE_CALLS; i++) {
+                sink += repo.getApplicationsPage(Status.INTERVIEWED, ApplicationRepository.SortKey.NEWEST, null, PAGE)
+                        .size();
+            }
+        });
+        harness.time("filter.search.repository", 1, () -> sink += repo.searchApplications(QUERY, PAGE).size());
+        harness.time("filter.search.index", SEARCHES, () -> {
+            for (int i = 0; i < SEARCHES; i++) {
+                sink += searchIndex.search(QUERY, PAGE).length;
+            }
+        });
+        harness.time("filter.tableIndex", 1, () ->
+                sink += tableIndex.select(TableIndex.Column.DATE, true, compound).size());
+        harness.time("filter.snapshot", 1, () -> sink += snapshot.select(Status.INTERVIEWED, from, to).length);
+        harness.time("filter.scan", 1, () -> {
+            int n = 0;
+            for (Application app : apps) {
+                if (compound.matches(app)) {
+                    n++;
+                }
+            }
+            sink += n;
+        });
+    }
+
+    private void table() throws Exception {
+        ApplicationTableModel model = new ApplicationTableModel();
+        harness.time("table.setApplications", 1, () -> {
+            model.setApplications(apps);
+            sink += model.getRowCount();
+        });
+        harness.time("table.addPages", 1, () -> {
+            model.clear();
+            for (int i = 0; i < rows; i += PAGE) {
+                model.addAll(apps.subList(i, Math.min(rows, i + PAGE)));
+            }
+            sink += model.getRowCount();
+        });
+        harness.time("table.setView", 1, () -> {
+            model.setView(snapshot.view());
+            sink += model.getRowCount();
+        });
+        int columns = model.getColumnCount();
+        harness.time("table.readCells.view", (long) rows * columns, () -> readCells(model));
+        model.setApplications(apps);
+        harness.time("table.readCells.list", (long) rows * columns, () -> readCells(model));
+    }
+
+    // What painting every row would ask of the model
+    private void readCells(ApplicationTableModel model) {
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                Object value = model.getValueAt(row, column);
+                sink += value == null ? 0 : 1;
+            }
+        }
+    }
+
+    private static LogApplicationRepository open(Path data) {
+        try {
+            return new LogApplicationRepository(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open " + data + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
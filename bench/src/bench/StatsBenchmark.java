@@ -0,0 +1,105 @@
+package bench;
+
+import model.Application;
+import model.Status;
+import stats.ApplicationStats;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times the statistics aggregates on a synthetic table held in memory:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.StatsBenchmark [rows]
+ *
+ * Compares a sequential and a parallel rebuild, a plain full rescan of the
+ * kind a dashboard would do on every refresh without the aggregates, and
+ * the per-change cost of put() and summary(). Needs no database. See
+ * Harness for iteration counts and -Dbench.out / -Dbench.baseline.
+ */
+public class StatsBenchmark {
+
+    private static final int COMPANIES = 5_000;
+    private static final int DAYS = 730;
+    private static final int UPDATES = 200_000;
+    private static final int SUMMARIES = 10_000;
+    private static final Status[] STATUSES = Status.values();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        List<Application> apps = generate(rows, random);
+        System.out.println("Rows: " + rows + ", cores: " + Runtime.getRuntime().availableProcessors());
+
+        Harness harness = new Harness();
+        ApplicationStats stats = new ApplicationStats();
+        harness.time("stats.rebuild.sequential", 1, () -> stats.rebuild(apps, false));
+        harness.time("stats.rebuild.parallel", 1, () -> stats.rebuild(apps, true));
+        harness.time("stats.rescan", 1, () -> rescan(apps));
+
+        List<Application> updates = new ArrayList<>(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            Application app = copy(apps.get(random.nextInt(rows)));
+            app.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            updates.add(app);
+        }
+        harness.time("stats.put", UPDATES, () -> {
+            for (Application app : updates) {
+                stats.put(app);
+            }
+        });
+        long[] sink = new long[1];
+        harness.time("stats.summary", SUMMARIES, () -> {
+            for (int i = 0; i < SUMMARIES; i++) {
+                sink[0] += stats.summary().getTotal();
+            }
+        });
+        harness.finish();
+        System.out.println("Total after updates: " + stats.summary().getTotal() + ", "
+                + stats.summary().getTopCompanies().size() + " top companies");
+        if (sink[0] == 42) {
+            System.out.println(); // keeps the results from being optimised away
+        }
+    }
+
+    private static List<Application> generate(int rows, Random random) {
+        LocalDate today = LocalDate.now();
+        List<Application> apps = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            LocalDate date = today.minusDays(random.nextInt(DAYS));
+            Application app = new Application(i, "Company " + random.nextInt(COMPANIES), "Engineer",
+                    date, STATUSES[random.nextInt(STATUSES.length)], "");
+            app.setUpdatedAt(date.plusDays(random.nextInt(60)).atStartOfDay().toInstant(ZoneOffset.UTC));
+            apps.add(app);
+        }
+        return apps;
+    }
+
+    private static Application copy(Application app) {
+        Application out = new Application(app.getId(), app.getCompany(), app.getPosition(),
+                app.getApplicationDate(), app.getStatus(), app.getNotes());
+        out.setUpdatedAt(app.getUpdatedAt());
+        return out;
+    }
+
+    // What a refresh costs when every figure is recounted from the rows
+    private static void rescan(List<Application> apps) {
+        int[] byStatus = new int[STATUSES.length];
+        Map<Long, Integer> byWeek = new HashMap<>();
+        Map<String, Integer> byCompany = new HashMap<>();
+        for (Application app : apps) {
+            byStatus[app.getStatus().ordinal()]++;
+            byWeek.merge(Math.floorDiv(app.getApplicationDate().toEpochDay() + 3, 7), 1, Integer::sum);
+            byCompany.merge(app.getCompany(), 1, Integer::sum);
+        }
+        byCompany.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .limit(ApplicationStats.TOP_COMPANIES)
+            .count();
+    }
+}
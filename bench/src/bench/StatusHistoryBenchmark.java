@@ -0,0 +1,101 @@
+package bench;
+
+import history.StatusEventStore;
+import model.Status;
+import model.StatusFunnel;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Times the embedded status history on synthetic events:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.StatusHistoryBenchmark [events] [applications]
+ *
+ * Spreads the applications' creation over two years, with random status
+ * changes to those already created in between (timed once, as it writes
+ * the file), then times reloading the file and timeline and funnel queries
+ * with Harness. Works in a temporary directory and needs no database.
+ */
+public class StatusHistoryBenchmark {
+
+    private static final int TIMELINES = 100_000;
+    private static final Duration SPAN = Duration.ofDays(730);
+    private static final Status[] STATUSES = Status.values();
+
+    public static void main(String[] args) throws Exception {
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int apps = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Path dir = Files.createTempDirectory("status-history-bench");
+        Path file = dir.resolve("status.events");
+        try {
+            run(file, eventCount, apps);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void run(Path file, int eventCount, int apps) throws Exception {
+        Random random = new Random(42);
+        Instant start = Instant.now().minus(SPAN);
+        long step = Math.max(1, SPAN.toMillis() / eventCount);
+        byte[] current = new byte[apps + 1];
+        long createEvery = Math.max(1, eventCount / apps);
+        int created = 0;
+
+        StatusEventStore store = new StatusEventStore(file);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < eventCount; i++) {
+            Instant at = start.plusMillis(i * step);
+            if (created < apps && (i % createEvery == 0 || eventCount - i <= apps - created)) {
+                store.append(++created, null, Status.APPLIED, at);
+                continue;
+            }
+            int app = 1 + random.nextInt(created);
+            Status from = STATUSES[current[app]];
+            Status to = STATUSES[(current[app] + 1 + random.nextInt(STATUSES.length - 1)) % STATUSES.length];
+            store.append(app, from, to, at);
+            current[app] = (byte) to.ordinal();
+        }
+        store.force();
+        double appendSeconds = (System.nanoTime() - t0) / 1e9;
+        store.close();
+        System.out.println(String.format("Appended %d events for %d applications in %.1f s (%.0f events/s, %d MB)",
+                eventCount, apps, appendSeconds, eventCount / appendSeconds, Files.size(file) >> 20));
+
+        Harness harness = new Harness();
+        long[] sink = new long[1];
+        harness.time("history.reload", 1, () -> {
+            StatusEventStore reloaded = new StatusEventStore(file);
+            sink[0] += reloaded.size();
+            reloaded.close();
+        });
+
+        StatusEventStore loaded = new StatusEventStore(file);
+        int[] ids = new int[TIMELINES];
+        for (int i = 0; i < TIMELINES; i++) {
+            ids[i] = 1 + random.nextInt(apps);
+        }
+        harness.time("history.timeline", TIMELINES, () -> {
+            for (int id : ids) {
+                sink[0] += loaded.timeline(id).size();
+            }
+        });
+
+        Instant end = start.plus(SPAN);
+        Instant recent = end.minus(Duration.ofDays(30));
+        harness.time("history.funnel.30days", 1, () -> sink[0] += loaded.funnel(recent, end).hashCode());
+        harness.time("history.funnel.all", 1, () -> sink[0] += loaded.funnel(start, end.plusMillis(1)).hashCode());
+        StatusFunnel funnel = loaded.funnel(start, end.plusMillis(1));
+        System.out.println("Funnel, everything: " + funnel);
+        loaded.close();
+        harness.finish();
+        if (sink[0] == 42) {
+            System.out.println(); // keeps the results from being optimised away
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package bench;
+
+import model.Application;
+import model.Status;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of realistic-looking applications for benchmarks:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.SyntheticData rows file.csv [seed]
+ *
+ * writes rows applications as CSV that "Import" and importFile() accept,
+ * streaming, so 10M rows need no more memory than 10k.
+ *
+ * The same seed always gives the same rows, and the first n rows of a larger
+ * set are the n-row set. Dates are relative to the fixed END_DATE rather than
+ * today, so results do not drift from one day to the next.
+ *
+ * Distributions:
+ * - Companies are drawn from a fixed pool of COMPANIES names with a Zipf
+ *   distribution: the biggest employers get a few percent of all rows each,
+ *   most only a handful.
+ * - Positions are a weighted seniority ("Senior ", "Staff ", ...) and a
+ *   weighted role.
+ * - Dates cover SPAN_DAYS and are denser towards the end, the way an active
+ *   search looks.
+ * - Statuses depend on age: recent applications are mostly still Applied,
+ *   older ones mostly resolved.
+ * - About a third of the rows have notes, each its own string.
+ */
+public final class SyntheticData {
+
+    public static final LocalDate END_DATE = LocalDate.of(2025, 6, 30);
+    public static final int SPAN_DAYS = 1_095;
+    public static final int COMPANIES = 20_000;
+
+    private static final double ZIPF_EXPONENT = 0.8;
+    private static final int RECENT_DAYS = 14;
+    private static final double NOTES_SHARE = 0.35;
+
+    private static final String[] COMPANY_HEADS = {
+        "Blue", "North", "Bright", "Silver", "Iron", "Red", "Green", "Summit", "Clear", "Stone",
+        "Swift", "Cedar", "Harbor", "Golden", "Pine", "Quantum", "Atlas", "Nova", "Orbit", "Prairie",
+        "Maple", "Falcon", "Crystal", "Copper", "Polar", "Vector", "Lumen", "Arrow", "Delta", "Ember",
+        "Granite", "Hollow", "Juniper", "Kestrel", "Lark", "Meridian", "Oak", "Pioneer", "Raven", "Tidal"
+    };
+    private static final String[] COMPANY_TAILS = {
+        "field", "wave", "bridge", "leaf", "point", "gate", "works", "path", "forge", "line",
+        "rock", "crest", "light", "stream", "scale", "mark", "shift", "spring", "well", "wind",
+        "bay", "hill", "grid", "core", "port"
+    };
+    private static final String[] COMPANY_KINDS = {
+        "Labs", "Systems", "Technologies", "Software", "Analytics", "Health", "Financial", "Networks",
+        "Robotics", "Media", "Logistics", "Energy", "Security", "Cloud", "Games", "Bio", "Retail",
+        "Consulting", "Inc", "Group"
+    };
+
+    private static final String[] SENIORITIES = {"", "Senior ", "Junior ", "Staff ", "Lead ", "Principal "};
+    private static final int[] SENIORITY_WEIGHTS = {45, 25, 12, 8, 6, 4};
+    private static final String[] ROLES = {
+        "Software Engineer", "Backend Engineer", "Frontend Engineer", "Full Stack Developer", "Data Scientist",
+        "Data Engineer", "DevOps Engineer", "Product Manager", "QA Engineer", "Mobile Developer",
+        "Machine Learning Engineer", "Site Reliability Engineer", "Security Engineer", "Data Analyst",
+        "UX Designer", "Engineering Manager", "Solutions Architect", "Support Engineer", "Technical Writer",
+        "Embedded Engineer"
+    };
+    private static final int[] ROLE_WEIGHTS = {20, 9, 8, 8, 6, 5, 5, 5, 4, 4, 4, 3, 2, 4, 3, 2, 2, 2, 1, 1};
+
+    private static final Status[] STATUSES = {Status.APPLIED, Status.INTERVIEWED, Status.REJECTED, Status.ACCEPTED};
+    private static final int[] RECENT_STATUS_WEIGHTS = {85, 12, 3, 0};
+    private static final int[] OLD_STATUS_WEIGHTS = {35, 16, 45, 4};
+
+    private static final String[] CONTACTS = {"Alex", "Sam", "Jordan", "Taylor", "Morgan", "Casey", "Riley", "Jamie"};
+    private static final String[] NOTES = {
+        "Referred by ", "Recruiter reached out: ", "Phone screen with ", "Take-home sent by ",
+        "Follow up with ", "Onsite loop organised by ", "Offer call with "
+    };
+
+    private static final double[] ZIPF = zipf(COMPANIES, ZIPF_EXPONENT);
+    private static final int[] SENIORITY_TOTALS = totals(SENIORITY_WEIGHTS);
+    private static final int[] ROLE_TOTALS = totals(ROLE_WEIGHTS);
+    private static final int[] RECENT_STATUS_TOTALS = totals(RECENT_STATUS_WEIGHTS);
+    private static final int[] OLD_STATUS_TOTALS = totals(OLD_STATUS_WEIGHTS);
+
+    private final SplittableRandom random;
+    private int nextId = 1;
+
+    public SyntheticData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java bench.SyntheticData rows file.csv [seed]");
+            return;
+        }
+        int rows = Integer.parseInt(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        long start = System.nanoTime();
+        new SyntheticData(seed).writeCsv(Paths.get(args[1]), rows);
+        System.out.println(String.format("Wrote %d application(s) to %s in %.1f s", rows, args[1],
+                (System.nanoTime() - start) / 1e9));
+    }
+
+    /** The company of the given popularity rank (0 is the most applied to). */
+    public static String company(int rank) {
+        // Spread the popular ranks over the name space so they don't all share a head word
+        int i = (int) ((long) rank * 7_919 % COMPANIES);
+        int heads = COMPANY_HEADS.length, tails = COMPANY_TAILS.length;
+        return COMPANY_HEADS[i % heads] + COMPANY_TAILS[i / heads % tails] + " "
+                + COMPANY_KINDS[i / (heads * tails) % COMPANY_KINDS.length];
+    }
+
+    /** The next application, with ids counting up from 1. */
+    public Application next() {
+        int found = Arrays.binarySearch(ZIPF, random.nextDouble());
+        String company = company(found >= 0 ? found : -found - 1);
+        String position = SENIORITIES[pick(SENIORITY_TOTALS)] + ROLES[pick(ROLE_TOTALS)];
+        double u = random.nextDouble();
+        int age = (int) (SPAN_DAYS * u * u);
+        Status status = STATUSES[pick(age < RECENT_DAYS ? RECENT_STATUS_TOTALS : OLD_STATUS_TOTALS)];
+        String notes = "";
+        if (random.nextDouble() < NOTES_SHARE) {
+            notes = NOTES[random.nextInt(NOTES.length)] + CONTACTS[random.nextInt(CONTACTS.length)]
+                    + " on " + END_DATE.minusDays(Math.max(0, age - random.nextInt(RECENT_DAYS)));
+        }
+        return new Application(nextId++, company, position, END_DATE.minusDays(age), status, notes);
+    }
+
+    public List<Application> applications(int rows) {
+        List<Application> apps = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            apps.add(next());
+        }
+        return apps;
+    }
+
+    /** Writes the next rows applications as CSV without ids, so an import numbers them itself. */
+    public void writeCsv(Path file, int rows) throws IOException {
+        writeCsv(file, rows, "");
+    }
+
+    /** The same, with companyPrefix in front of every company, to tell the rows apart in a shared database. */
+    public void writeCsv(Path file, int rows, String companyPrefix) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("company,position,application_date,status,notes\n");
+            StringBuilder line = new StringBuilder(160);
+            for (int i = 0; i < rows; i++) {
+                Application app = next();
+                line.setLength(0);
+                // Generated names and notes never contain commas, quotes or newlines
+                line.append(companyPrefix).append(app.getCompany()).append(',').append(app.getPosition()).append(',')
+                    .append(app.getApplicationDate()).append(',').append(app.getStatus().getLabel()).append(',')
+                    .append(app.getNotes()).append('\n');
+                out.append(line);
+            }
+        }
+    }
+
+    private int pick(int[] totals) {
+        int r = random.nextInt(totals[totals.length - 1]);
+        int i = 0;
+        while (totals[i] <= r) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] totals(int[] weights) {
+        int[] totals = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            totals[i] = sum += weights[i];
+        }
+        return totals;
+    }
+
+    // Cumulative Zipf probabilities by rank; a uniform draw's insertion point is its rank
+    private static double[] zipf(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            cumulative[k] = sum += 1 / Math.pow(k + 1, exponent);
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+        cumulative[n - 1] = 1;
+        return cumulative;
+    }
+}
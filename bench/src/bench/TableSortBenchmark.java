@@ -0,0 +1,135 @@
+package bench;
+
+import gui.ApplicationTableModel;
+import model.Application;
+import model.Status;
+import table.TableIndex;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableRowSorter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Times sorting and filtering the main table in memory, TableIndex against
+ * the stock Swing TableRowSorter over the same table model:
+ *
+ *   java -cp bench/target/benchmarks.jar bench.TableSortBenchmark [rows]
+ *
+ * For each it measures sorting by company and by date, a compound filter
+ * (status set, date range, company prefix) and the cost of one edited row.
+ * The filter for TableRowSorter is the regex-and-custom kind an application
+ * would write with RowFilter. Needs no database or display. See Harness
+ * for iteration counts, -Dbench.only and -Dbench.out / -Dbench.baseline;
+ * TableRowSorter is slow enough at a million rows that
+ * -Dbench.iterations=2 is worth passing.
+ */
+public class TableSortBenchmark {
+
+    private static final int COMPANIES = 5_000;
+    private static final int POSITIONS = 200;
+    private static final int DAYS = 730;
+    private static final int UPDATES = 10_000;
+    private static final Status[] STATUSES = Status.values();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        List<Application> apps = generate(rows, random);
+        System.out.println("Rows: " + rows + ", cores: " + Runtime.getRuntime().availableProcessors());
+
+        LocalDate to = LocalDate.now().minusDays(30);
+        LocalDate from = to.minusDays(180);
+        Set<Status> statuses = EnumSet.of(Status.APPLIED, Status.INTERVIEWED);
+        String prefix = "company 1";
+        Harness harness = new Harness();
+        long[] sink = new long[1];
+
+        // ---- TableIndex ----
+        TableIndex index = new TableIndex();
+        harness.time("tableIndex.build", 1, () -> index.rebuild(apps));
+        TableIndex.Filter filter = new TableIndex.Filter(statuses, from, to, prefix);
+        harness.time("tableIndex.sortCompany", 1, () ->
+                sink[0] += index.select(TableIndex.Column.COMPANY, false, TableIndex.Filter.ALL).size());
+        harness.time("tableIndex.sortDateDesc", 1, () ->
+                sink[0] += index.select(TableIndex.Column.DATE, true, TableIndex.Filter.ALL).size());
+        harness.time("tableIndex.compoundFilter", 1, () ->
+                sink[0] += index.select(TableIndex.Column.COMPANY, false, filter).size());
+        List<Application> edits = edits(apps, random);
+        harness.time("tableIndex.edit", UPDATES, () -> {
+            for (Application app : edits) {
+                index.put(app);
+            }
+        });
+
+        // ---- TableRowSorter ----
+        ApplicationTableModel model = new ApplicationTableModel();
+        model.setApplications(apps);
+        TableRowSorter<ApplicationTableModel> sorter = new TableRowSorter<>(model);
+        sorter.setSortsOnUpdates(true);
+        harness.time("tableRowSorter.sortCompany", 1, () -> {
+            sorter.setSortKeys(List.of(new RowSorter.SortKey(ApplicationTableModel.COMPANY, SortOrder.ASCENDING)));
+            sorter.sort();
+        });
+        harness.time("tableRowSorter.sortDateDesc", 1, () -> {
+            sorter.setSortKeys(List.of(new RowSorter.SortKey(ApplicationTableModel.DATE, SortOrder.DESCENDING)));
+            sorter.sort();
+        });
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(ApplicationTableModel.COMPANY, SortOrder.ASCENDING)));
+        List<RowFilter<ApplicationTableModel, Integer>> parts = new ArrayList<>();
+        parts.add(RowFilter.regexFilter("(?i)^" + prefix, ApplicationTableModel.COMPANY));
+        parts.add(new RowFilter<ApplicationTableModel, Integer>() {
+            public boolean include(Entry<? extends ApplicationTableModel, ? extends Integer> entry) {
+                Application app = entry.getModel().getApplicationAt(entry.getIdentifier());
+                return statuses.contains(app.getStatus())
+                    && !app.getApplicationDate().isBefore(from) && !app.getApplicationDate().isAfter(to);
+            }
+        });
+        harness.time("tableRowSorter.compoundFilter", 1, () -> {
+            sorter.setRowFilter(RowFilter.andFilter(parts));
+            sink[0] += sorter.getViewRowCount();
+        });
+        // Each edit re-sorts everything, so only a few
+        int sorterEdits = Math.min(UPDATES, 20);
+        harness.time("tableRowSorter.edit", sorterEdits, () -> {
+            for (int i = 0; i < sorterEdits; i++) {
+                Application app = edits.get(i);
+                int row = model.indexOfId(app.getId());
+                model.update(row, app);
+                sorter.rowsUpdated(row, row);
+            }
+        });
+        harness.finish();
+        if (sink[0] == 42) {
+            System.out.println(); // keeps the results from being optimised away
+        }
+    }
+
+    private static List<Application> generate(int rows, Random random) {
+        LocalDate today = LocalDate.now();
+        List<Application> apps = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            apps.add(new Application(i, "Company " + random.nextInt(COMPANIES), "Position " + random.nextInt(POSITIONS),
+                    today.minusDays(random.nextInt(DAYS)), STATUSES[random.nextInt(STATUSES.length)], ""));
+        }
+        return apps;
+    }
+
+    // Random rows with a new status and, for half of them, a new company
+    private static List<Application> edits(List<Application> apps, Random random) {
+        List<Application> out = new ArrayList<>(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            Application app = apps.get(random.nextInt(apps.size()));
+            out.add(new Application(app.getId(),
+                    i % 2 == 0 ? "Company " + random.nextInt(COMPANIES) : app.getCompany(),
+                    app.getPosition(), app.getApplicationDate(), STATUSES[random.nextInt(STATUSES.length)], ""));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,86 @@
+-- Schema for the job_tracker database used by db.Database.
+-- Safe to read top to bottom on a fresh server; on an existing database
+-- run only the sections added after your current version.
+
+CREATE DATABASE IF NOT EXISTS job_tracker;
+USE job_tracker;
+
+CREATE TABLE IF NOT EXISTS applications (
+    id               INT AUTO_INCREMENT PRIMARY KEY,
+    company          VARCHAR(255) NOT NULL,
+    position         VARCHAR(255) NOT NULL,
+    application_date DATE         NOT NULL,
+    status           VARCHAR(32)  NOT NULL,
+    notes            TEXT
+);
+
+-- Paged list queries (ApplicationDAO.getApplicationsPage): filter by status,
+-- order by date or company, with id as the keyset tie-breaker.
+CREATE INDEX idx_applications_status_date ON applications (status, application_date, id);
+CREATE INDEX idx_applications_date ON applications (application_date, id);
+CREATE INDEX idx_applications_company ON applications (company, id);
+
+-- Change tracking: records when each row was last written. Clients used to
+-- poll on it; they now tail change_log (below), which also reports deletes.
+ALTER TABLE applications
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL
+        DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+CREATE INDEX idx_applications_updated_at ON applications (updated_at, id);
+
+-- Full-text search fallback (ApplicationDAO.searchApplications), used when
+-- the table is too large for the in-memory search index.
+CREATE FULLTEXT INDEX ftx_applications_text ON applications (company, position, notes);
+
+-- Typed columns: application_date as DATE and status as a one-byte ENUM
+-- (model.Status). Normalise existing status spellings first.
+UPDATE applications SET status = CONCAT(UPPER(LEFT(status, 1)), LOWER(SUBSTRING(status, 2)));
+ALTER TABLE applications
+    MODIFY application_date DATE NOT NULL,
+    MODIFY status ENUM('Applied', 'Interviewed', 'Rejected', 'Accepted') NOT NULL DEFAULT 'Applied';
+
+-- Optimistic concurrency: ApplicationDAO.updateApplication only writes a row
+-- still at the version the client read, and bumps it.
+ALTER TABLE applications ADD COLUMN version INT NOT NULL DEFAULT 1;
+
+-- Change feed (ApplicationDAO.getChangesAfter): every insert, update and
+-- delete appends the row's id here, and clients tail it by seq instead of
+-- polling the table. The triggers cover every writer, bulk imports included.
+CREATE TABLE IF NOT EXISTS change_log (
+    seq        BIGINT AUTO_INCREMENT PRIMARY KEY,
+    app_id     INT          NOT NULL,
+    changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+CREATE TRIGGER trg_applications_insert AFTER INSERT ON applications
+    FOR EACH ROW INSERT INTO change_log (app_id) VALUES (NEW.id);
+CREATE TRIGGER trg_applications_update AFTER UPDATE ON applications
+    FOR EACH ROW INSERT INTO change_log (app_id) VALUES (NEW.id);
+CREATE TRIGGER trg_applications_delete AFTER DELETE ON applications
+    FOR EACH ROW INSERT INTO change_log (app_id) VALUES (OLD.id);
+
+-- Keep a week of feed history (needs event_scheduler=ON).
+CREATE EVENT IF NOT EXISTS evt_change_log_purge ON SCHEDULE EVERY 1 HOUR
+    DO DELETE FROM change_log WHERE changed_at < NOW(3) - INTERVAL 7 DAY;
+
+-- Status history (ApplicationDAO.getStatusHistory, getStatusFunnel): one row
+-- per status change, appended by triggers and never updated or purged; rows
+-- outlive the application. from_status is NULL for the status a row was
+-- created with. Existing rows start with one such event at their updated_at.
+CREATE TABLE IF NOT EXISTS status_events (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    app_id      INT          NOT NULL,
+    from_status ENUM('Applied', 'Interviewed', 'Rejected', 'Accepted') NULL,
+    to_status   ENUM('Applied', 'Interviewed', 'Rejected', 'Accepted') NOT NULL,
+    changed_at  TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    -- one application's timeline in id order, and the statuses it reached;
+    -- holds every column either query reads, so neither touches the table
+    INDEX idx_status_events_app (app_id, id, from_status, to_status, changed_at),
+    -- cohorts: applications created in a period
+    INDEX idx_status_events_created (from_status, changed_at, app_id)
+);
+INSERT INTO status_events (app_id, from_status, to_status, changed_at)
+    SELECT id, NULL, status, updated_at FROM applications;
+CREATE TRIGGER trg_applications_status_insert AFTER INSERT ON applications
+    FOR EACH ROW INSERT INTO status_events (app_id, to_status) VALUES (NEW.id, NEW.status);
+CREATE TRIGGER trg_applications_status_update AFTER UPDATE ON applications
+    FOR EACH ROW INSERT INTO status_events (app_id, from_status, to_status)
+        SELECT NEW.id, OLD.status, NEW.status FROM DUAL WHERE OLD.status <> NEW.status;
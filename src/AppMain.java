@@ -1,10 +1,22 @@
-
-
+import cli.CliMain;
+import gui.EdtStallProbe;
 import gui.MainWindow;
+import metrics.MetricsExporter;
+
+import javax.swing.SwingUtilities;
 
 public class AppMain {
     public static void main(String[] args) {
-        new MainWindow();
+        if (args.length > 0) {
+            // Command-line mode; returns before any Swing or AWT class is touched
+            CliMain.main(args);
+            return;
+        }
+        EdtStallProbe.startIfEnabled();
+        MetricsExporter.startIfEnabled();
+        // Swing components are built on the event dispatch thread; MainWindow
+        // opens the backend in the background meanwhile
+        SwingUtilities.invokeLater(MainWindow::new);
     }
     
 }
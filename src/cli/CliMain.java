@@ -0,0 +1,570 @@
+package cli;
+
+import db.ApplicationExporter;
+import db.ApplicationImporter;
+import db.ApplicationRepository;
+import db.ApplicationRepository.Criteria;
+import db.ApplicationRepository.SortKey;
+import db.Backends;
+import db.Database;
+import db.FileFormat;
+import dedup.DuplicateClusters;
+import metrics.MetricsExporter;
+import model.Application;
+import model.Status;
+import stats.ApplicationStats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Headless command line over the repository, for scripts and servers
+ * without a display. AppMain hands over to it whenever it is given
+ * arguments:
+ *
+ *   java -jar job-tracker.jar list --status Applied --older-than 60 --format jsonl
+ *   java -jar job-tracker.jar update --set-status Rejected --status Applied --older-than 60
+ *
+ * Nothing here touches Swing or AWT, so none of it is loaded. Output rows go
+ * to stdout as CSV or JSON Lines, streamed as the database returns them;
+ * everything the repository reports (errors, "Exported n ...") goes to
+ * stderr, so stdout can be piped straight into another tool.
+ *
+ * update and delete are set-based: the filters become one UPDATE or DELETE
+ * statement, whose triggers keep the change feed and status history as for
+ * single edits. With --ids the list is cut into chunks of IDS_PER_STATEMENT,
+ * run in parallel over the connection pool, as are several import files.
+ *
+ * dedup loads the matching rows and clusters them with DuplicateClusters on
+ * --threads threads: company names spelled more than one way, and the same
+ * role applied for more than once within a few weeks.
+ *
+ * Uses the backend chosen by -Dtracker.backend, opened without the cache
+ * (Backends.openDirect). Metrics are kept as in the window, with
+ * -Dtracker.metricsFile to keep them, but JMX is off and only calls over a
+ * minute count as slow unless -Dtracker.jmx / -Dtracker.slowMs say
+ * otherwise. Exit status is 0 on success, 1 if an operation failed and 2
+ * for a usage error.
+ */
+public class CliMain {
+
+    static final int IDS_PER_STATEMENT = 1_000;
+    static final int DEFAULT_THREADS = 4;
+    static final int DEFAULT_SEARCH_LIMIT = 100;
+    static final long SLOW_MS = 60_000;
+
+    private static final String USAGE = String.join("\n",
+        "Usage: java -jar job-tracker.jar <command> [options]",
+        "",
+        "Commands:",
+        "  list    [filters] [--sort newest|oldest|company|id] [--format csv|jsonl]",
+        "  search  <text> [filters] [--limit n] [--format csv|jsonl]",
+        "  update  --set-status <status> (filters | --all) [--dry-run] [--threads n]",
+        "  delete  (filters | --all) [--dry-run] [--threads n]",
+        "  report  [filters] [--format csv|jsonl]",
+        "  import  <file>... [--threads n]        CSV, or JSON Lines for .jsonl",
+        "  dedup   [filters] [--threads n] [--format csv|jsonl]",
+        "                                         company spellings and repeated applications",
+        "",
+        "Filters (all given must match):",
+        "  --status s[,s...]    Applied, Interviewed, Rejected or Accepted",
+        "  --from yyyy-mm-dd    applied on or after",
+        "  --to yyyy-mm-dd      applied on or before",
+        "  --older-than days    applied more than this many days ago",
+        "  --company prefix     company starts with (ignoring case)",
+        "  --ids list           comma-separated ids, @file or - for stdin",
+        "",
+        "Backend: -Dtracker.backend=mysql (default) or embedded, as for the window.");
+
+    private static final Set<String> FILTERS = Set.of("status", "from", "to", "older-than", "company", "ids");
+    private static final Set<String> FLAGS = Set.of("all", "dry-run", "help");
+    private static final Set<String> SETTINGS = Set.of("sort", "format", "limit", "set-status", "threads");
+
+    private final PrintStream out;
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> arguments = new ArrayList<>();
+    private ApplicationRepository repo;
+    private int[] parsedIds;
+
+    CliMain(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        // Unless asked for: no JMX in a process this short, and bulk calls are slow by nature
+        System.getProperties().putIfAbsent("tracker.jmx", "false");
+        System.getProperties().putIfAbsent("tracker.slowMs", String.valueOf(SLOW_MS));
+        PrintStream stdout = System.out;
+        // The repository reports through System.out; keep that off the data stream
+        System.setOut(System.err);
+        MetricsExporter.startIfEnabled();
+        int status;
+        try {
+            status = new CliMain(stdout).run(args);
+        } catch (UsageException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(USAGE);
+            status = 2;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error: " + e.getMessage());
+            status = 1;
+        }
+        stdout.flush();
+        System.exit(status);
+    }
+
+    int run(String[] args) throws IOException {
+        if (args.length == 0 || args[0].equals("help") || args[0].equals("--help")) {
+            out.println(USAGE);
+            return 0;
+        }
+        String command = args[0];
+        parse(Arrays.copyOfRange(args, 1, args.length));
+        if (options.containsKey("help")) {
+            out.println(USAGE);
+            return 0;
+        }
+        switch (command) {
+            case "list":
+            case "search":
+            case "update":
+            case "delete":
+            case "report":
+            case "import":
+            case "dedup":
+                break;
+            default:
+                throw new UsageException("Unknown command '" + command + "'.");
+        }
+
+        repo = Backends.openDirect();
+        try {
+            switch (command) {
+                case "list":   return list();
+                case "search": return search();
+                case "update": return update();
+                case "delete": return delete();
+                case "report": return report();
+                case "dedup":  return dedup();
+                default:       return importFiles();
+            }
+        } finally {
+            Backends.close(repo);
+            Database.shutdown();
+        }
+    }
+
+    // ---- commands ----
+
+    private int list() throws IOException {
+        Writer w = writer();
+        new ApplicationExporter(repo).exportTo(w, format(), criteria(), sortKey());
+        w.flush();
+        return 0;
+    }
+
+    private int search() throws IOException {
+        if (arguments.isEmpty()) {
+            throw new UsageException("search needs the text to look for.");
+        }
+        int limit = intOption("limit", DEFAULT_SEARCH_LIMIT);
+        Criteria criteria = criteria();
+        List<Application> hits = new ArrayList<>();
+        for (Application app : repo.searchApplications(String.join(" ", arguments), limit)) {
+            if (criteria.matches(app)) {
+                hits.add(app);
+            }
+        }
+        Writer w = writer();
+        ApplicationExporter.write(w, format(), hits);
+        w.flush();
+        System.err.println(hits.size() + " application(s) found.");
+        return 0;
+    }
+
+    private int update() throws IOException {
+        String label = options.get("set-status");
+        Status status = Status.fromLabel(label);
+        if (status == null) {
+            throw new UsageException("update needs --set-status with one of " + Arrays.toString(Status.values()) + ".");
+        }
+        Criteria criteria = bulkCriteria("update");
+        if (options.containsKey("dry-run")) {
+            long n = count(criteria, app -> app.getStatus() != status);
+            System.err.println("Would set " + n + " application(s) to " + status + ": " + criteria + ".");
+            return 0;
+        }
+        long changed = inChunks(criteria, chunk -> repo.updateStatus(chunk, status));
+        if (changed < 0) {
+            return 1;
+        }
+        System.err.println("Set " + changed + " application(s) to " + status + ".");
+        return 0;
+    }
+
+    private int delete() throws IOException {
+        Criteria criteria = bulkCriteria("delete");
+        if (options.containsKey("dry-run")) {
+            System.err.println("Would delete " + count(criteria, app -> true) + " application(s): " + criteria + ".");
+            return 0;
+        }
+        long deleted = inChunks(criteria, repo::deleteApplications);
+        if (deleted < 0) {
+            return 1;
+        }
+        System.err.println("Deleted " + deleted + " application(s).");
+        return 0;
+    }
+
+    /** Streams the matching rows through ApplicationStats, so memory doesn't grow with the table. */
+    private int report() throws IOException {
+        ApplicationStats stats = new ApplicationStats();
+        stats.setInterviewTimes(repo.getInterviewTimes());
+        repo.forEach(criteria(), SortKey.ID, stats::put);
+        ApplicationStats.Summary summary = stats.summary();
+
+        ReportWriter report = new ReportWriter(writer(), format());
+        report.row("total", "applications", summary.getTotal());
+        for (Status s : Status.values()) {
+            report.row("status", s.getLabel(), summary.getCount(s));
+        }
+        report.row("response", "rate", Math.round(summary.getResponseRate() * 1000) / 1000.0);
+        report.row("interview", "count", summary.getInterviewed());
+        report.row("interview", "averageDays", Math.round(summary.getAverageDaysToInterview() * 10) / 10.0);
+        report.row("interview", "medianDays", summary.getMedianDaysToInterview());
+        for (Map.Entry<String, Integer> e : summary.getTopCompanies().entrySet()) {
+            report.row("company", e.getKey(), e.getValue());
+        }
+        for (Map.Entry<LocalDate, Integer> e : summary.getWeekly().entrySet()) {
+            report.row("week", e.getKey().toString(), e.getValue());
+        }
+        report.flush();
+        return 0;
+    }
+
+    /**
+     * Clusters the matching rows, in parallel streams on a pool of --threads
+     * threads. The rows have to be in memory at once, unlike report's.
+     */
+    private int dedup() throws IOException {
+        List<Application> apps = new ArrayList<>();
+        repo.forEach(criteria(), SortKey.ID, apps::add);
+        long start = System.nanoTime();
+        int threads = threads();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        DuplicateClusters clusters;
+        try {
+            clusters = pool.submit(() -> DuplicateClusters.find(apps, threads > 1)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (ExecutionException e) {
+            System.err.println("Error: " + e.getCause());
+            return 1;
+        } finally {
+            pool.shutdown();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        ClusterWriter w = new ClusterWriter(writer(), format());
+        int group = 0;
+        for (DuplicateClusters.CompanyCluster c : clusters.getCompanyClusters()) {
+            group++;
+            for (String spelling : c.getSpellings()) {
+                w.spelling(group, spelling, c.getRows(spelling));
+            }
+        }
+        for (List<Application> same : clusters.getDuplicateApplications()) {
+            group++;
+            for (Application app : same) {
+                w.duplicate(group, app);
+            }
+        }
+        w.flush();
+        System.err.println(apps.size() + " application(s), " + clusters.getSpellingCount() + " company spelling(s): "
+                + clusters.getCompanyClusters().size() + " company cluster(s), "
+                + clusters.getDuplicateApplications().size() + " repeated role(s), in " + millis + " ms ("
+                + clusters.getComparisons() + " name comparisons).");
+        return 0;
+    }
+
+    private int importFiles() throws IOException {
+        if (arguments.isEmpty()) {
+            throw new UsageException("import needs at least one file.");
+        }
+        List<Path> files = new ArrayList<>();
+        for (String name : arguments) {
+            Path file = Paths.get(name);
+            if (!Files.isReadable(file)) {
+                throw new UsageException("Cannot read " + name + ".");
+            }
+            files.add(file);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(files.size(), threads()));
+        try {
+            List<Future<ApplicationImporter.ImportResult>> results = new ArrayList<>();
+            for (Path file : files) {
+                results.add(pool.submit(() -> repo.importFile(file)));
+            }
+            int status = 0;
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    ApplicationImporter.ImportResult result = results.get(i).get();
+                    System.err.println(files.get(i) + ": " + result);
+                    result.getErrors().forEach(System.err::println);
+                } catch (ExecutionException e) {
+                    System.err.println(files.get(i) + ": " + e.getCause().getMessage());
+                    status = 1;
+                }
+            }
+            return status;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ---- bulk helpers ----
+
+    private interface Bulk {
+        int apply(Criteria criteria);
+    }
+
+    /**
+     * Runs op once over the whole criteria, or for an id list once per
+     * IDS_PER_STATEMENT ids on --threads threads. Returns the rows affected,
+     * or -1 if any statement failed (the others still ran).
+     */
+    private long inChunks(Criteria criteria, Bulk op) throws IOException {
+        int[] ids = ids();
+        if (ids == null || ids.length <= IDS_PER_STATEMENT) {
+            return op.apply(criteria);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads());
+        try {
+            List<Future<Integer>> parts = new ArrayList<>();
+            for (int i = 0; i < ids.length; i += IDS_PER_STATEMENT) {
+                Criteria chunk = criteria.withIds(Arrays.copyOfRange(ids, i, Math.min(ids.length, i + IDS_PER_STATEMENT)));
+                parts.add(pool.submit(() -> op.apply(chunk)));
+            }
+            long total = 0;
+            boolean failed = false;
+            for (Future<Integer> part : parts) {
+                int n = part.get();
+                failed |= n < 0;
+                total += Math.max(0, n);
+            }
+            return failed ? -1 : total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long count(Criteria criteria, Predicate<Application> also) {
+        long[] n = {0};
+        repo.forEach(criteria, SortKey.ID, app -> {
+            if (also.test(app)) {
+                n[0]++;
+            }
+        });
+        return n[0];
+    }
+
+    // update and delete touch the whole table only when asked to explicitly
+    private Criteria bulkCriteria(String command) throws IOException {
+        Criteria criteria = criteria();
+        if (criteria.isAll() && !options.containsKey("all")) {
+            throw new UsageException(command + " needs at least one filter, or --all for every application.");
+        }
+        return criteria;
+    }
+
+    // ---- options ----
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                arguments.add(arg);
+                continue;
+            }
+            String name = arg.substring(2);
+            String value = null;
+            int eq = name.indexOf('=');
+            if (eq >= 0) {
+                value = name.substring(eq + 1);
+                name = name.substring(0, eq);
+            }
+            if (!FILTERS.contains(name) && !FLAGS.contains(name) && !SETTINGS.contains(name)) {
+                throw new UsageException("Unknown option --" + name + ".");
+            }
+            if (eq < 0 && !FLAGS.contains(name)) {
+                if (i + 1 >= args.length) {
+                    throw new UsageException("Option --" + name + " needs a value.");
+                }
+                value = args[++i];
+            }
+            options.put(name, value);
+        }
+    }
+
+    private Criteria criteria() throws IOException {
+        Set<Status> statuses = null;
+        String list = options.get("status");
+        if (list != null) {
+            statuses = EnumSet.noneOf(Status.class);
+            for (String label : list.split(",")) {
+                Status s = Status.fromLabel(label);
+                if (s == null) {
+                    throw new UsageException("Unknown status '" + label.trim() + "'.");
+                }
+                statuses.add(s);
+            }
+        }
+        LocalDate from = date("from");
+        LocalDate to = date("to");
+        if (options.containsKey("older-than")) {
+            LocalDate cutoff = LocalDate.now().minusDays(intOption("older-than", 0) + 1L);
+            to = to == null || cutoff.isBefore(to) ? cutoff : to;
+        }
+        return new Criteria(statuses, from, to, options.get("company"), ids());
+    }
+
+    private int[] ids() throws IOException {
+        String spec = options.get("ids");
+        if (spec == null || parsedIds != null) {
+            return parsedIds;
+        }
+        String text;
+        if (spec.equals("-")) {
+            text = read(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+        } else if (spec.startsWith("@")) {
+            text = read(Files.newBufferedReader(Paths.get(spec.substring(1)), StandardCharsets.UTF_8));
+        } else {
+            text = spec;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (String token : text.split("[\\s,]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Integer.parseInt(token));
+            } catch (NumberFormatException e) {
+                throw new UsageException("Not an id: '" + token + "'.");
+            }
+        }
+        parsedIds = ids.stream().mapToInt(Integer::intValue).distinct().toArray();
+        return parsedIds;
+    }
+
+    private static String read(BufferedReader in) throws IOException {
+        try (BufferedReader r = in) {
+            StringBuilder text = new StringBuilder();
+            String line;
+            while ((line = r.readLine()) != null) {
+                text.append(line).append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    private LocalDate date(String name) {
+        String value = options.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new UsageException("--" + name + " must be a date like 2025-01-31, not '" + value + "'.");
+        }
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(value.trim());
+            if (n < 0) {
+                throw new NumberFormatException();
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new UsageException("--" + name + " must be a whole number, not '" + value + "'.");
+        }
+    }
+
+    private int threads() {
+        return Math.max(1, intOption("threads", DEFAULT_THREADS));
+    }
+
+    private SortKey sortKey() {
+        String value = options.getOrDefault("sort", "newest");
+        try {
+            return SortKey.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UsageException("--sort must be newest, oldest, company or id, not '" + value + "'.");
+        }
+    }
+
+    private FileFormat format() {
+        String value = options.getOrDefault("format", "csv");
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return FileFormat.CSV;
+            case "jsonl":
+            case "json":
+                return FileFormat.JSON_LINES;
+            default:
+                throw new UsageException("--format must be csv or jsonl, not '" + value + "'.");
+        }
+    }
+
+    private Writer writer() {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /** A mistake on the command line; reported with the usage text. */
+    static final class UsageException extends RuntimeException {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cli;
+
+import db.FileFormat;
+import model.Application;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the result of dedup as one row per member of a group:
+ *
+ *   kind,group,id,company,position,application_date,status,rows
+ *   company,1,,Bluefield Labs,,,,5120
+ *   company,1,,"Bluefield Labs, Inc.",,,,37
+ *   duplicate,1,4711,Bluefield Labs,Data Engineer,2025-03-02,Applied,
+ *
+ * company rows are the spellings of one company with the rows using each;
+ * duplicate rows are the applications of one repeated role. As JSON Lines
+ * each row is an object with the fields that apply to its kind.
+ */
+final class ClusterWriter {
+
+    private final Writer out;
+    private final boolean json;
+
+    ClusterWriter(Writer out, FileFormat format) throws IOException {
+        this.out = out;
+        this.json = format == FileFormat.JSON_LINES;
+        if (!json) {
+            out.write("kind,group,id,company,position,application_date,status,rows\n");
+        }
+    }
+
+    void spelling(int group, String company, long rows) throws IOException {
+        if (json) {
+            out.write("{\"kind\":\"company\",\"group\":" + group + ",\"company\":" + ReportWriter.jsonString(company)
+                    + ",\"rows\":" + rows + "}\n");
+        } else {
+            out.write("company," + group + ",," + ReportWriter.csvField(company) + ",,,," + rows + "\n");
+        }
+    }
+
+    void duplicate(int group, Application app) throws IOException {
+        String company = app.getCompany() == null ? "" : app.getCompany();
+        String position = app.getPosition() == null ? "" : app.getPosition();
+        if (json) {
+            out.write("{\"kind\":\"duplicate\",\"group\":" + group + ",\"id\":" + app.getId()
+                    + ",\"company\":" + ReportWriter.jsonString(company)
+                    + ",\"position\":" + ReportWriter.jsonString(position)
+                    + ",\"application_date\":\"" + app.getApplicationDate() + "\""
+                    + ",\"status\":" + ReportWriter.jsonString(app.getStatus().getLabel()) + "}\n");
+        } else {
+            out.write("duplicate," + group + "," + app.getId() + "," + ReportWriter.csvField(company) + ","
+                    + ReportWriter.csvField(position) + "," + app.getApplicationDate() + ","
+                    + app.getStatus().getLabel() + ",\n");
+        }
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,64 @@
+package cli;
+
+import db.FileFormat;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes report figures as section,key,value rows: CSV with a header, or one
+ * JSON object per line with the same three fields.
+ */
+final class ReportWriter {
+
+    private final Writer out;
+    private final boolean json;
+
+    ReportWriter(Writer out, FileFormat format) throws IOException {
+        this.out = out;
+        this.json = format == FileFormat.JSON_LINES;
+        if (!json) {
+            out.write("section,key,value\n");
+        }
+    }
+
+    void row(String section, String key, Number value) throws IOException {
+        if (json) {
+            out.write("{\"section\":" + jsonString(section) + ",\"key\":" + jsonString(key) + ",\"value\":" + value + "}\n");
+        } else {
+            out.write(csvField(section) + "," + csvField(key) + "," + value + "\n");
+        }
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    static String jsonString(String value) {
+        StringBuilder s = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  s.append("\\\""); break;
+                case '\\': s.append("\\\\"); break;
+                case '\n': s.append("\\n"); break;
+                case '\r': s.append("\\r"); break;
+                case '\t': s.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        s.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        s.append(c);
+                    }
+            }
+        }
+        return s.append('"').toString();
+    }
+}
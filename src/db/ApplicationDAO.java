@@ -1,63 +1,447 @@
 package db;
 
 import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+import metrics.Metrics;
+import metrics.Operation;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * MySQL implementation of ApplicationRepository, using the pooled
+ * connections from Database.
+ */
+public class ApplicationDAO implements ApplicationRepository {
+
+    static final String COLUMNS = "id, company, position, application_date, status, notes, updated_at, version";
+
+    // compare-and-set: only applies while the row is still at the version the caller read
+    private static final String UPDATE =
+        "UPDATE applications SET company=?, position=?, application_date=?, status=?, notes=?, version=version+1 "
+        + "WHERE id=? AND version=?";
+    private static final String DELETE = "DELETE FROM applications WHERE id = ?";
 
-public class ApplicationDAO {
+    private static final Operation applyBatch = Metrics.operation(Backends.MYSQL + ".applyBatch");
+
+    private final ChangeListeners listeners = new ChangeListeners();
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
 
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
     public List<Application> getAllApplications() {
         List<Application> applications = new ArrayList<>();
  
-        String query = "SELECT * FROM applications";
+        String query = "SELECT " + COLUMNS + " FROM applications";
 
         try (Connection conn = Database.connect();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
 
             while (rs.next()) {
-                Application app = new Application(
-                    rs.getInt("id"),
-                    rs.getString("company"),
-                    rs.getString("position"),
-                    rs.getString("application_date"),
-                    rs.getString("status"),
-                    rs.getString("notes")
-                );
+                applications.add(mapRow(rs));
+            }
+
+        } catch (SQLException e) {
+            failed("getAllApplications", "Error retrieving applications: ", e);
+        }
+
+        return applications;
+    }
+
+    /** Filters and sorts in SQL; the keyset cursor avoids OFFSET scans. */
+    @Override
+    public List<Application> getApplicationsPage(Status status, SortKey sort, Application after, int pageSize) {
+        List<Application> applications = new ArrayList<>(pageSize);
+
+        StringBuilder query = new StringBuilder("SELECT " + COLUMNS + " FROM applications");
+        List<String> where = new ArrayList<>();
+        if (status != null) {
+            where.add("status = ?");
+        }
+        if (after != null) {
+            where.add(sort.after());
+        }
+        if (!where.isEmpty()) {
+            query.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        query.append(" ORDER BY ").append(sort.orderBy()).append(" LIMIT ?");
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+
+            int i = 1;
+            if (status != null) {
+                stmt.setString(i++, status.getLabel());
+            }
+            if (after != null) {
+                Object value = sort.valueOf(after);
+                stmt.setObject(i++, value);
+                stmt.setObject(i++, value);
+                stmt.setInt(i++, after.getId());
+            }
+            stmt.setInt(i, pageSize);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    applications.add(mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("getApplicationsPage", "Error retrieving applications: ", e);
+        }
+
+        return applications;
+    }
+
+    @Override
+    public int countApplications() {
+        String query = "SELECT COUNT(*) FROM applications";
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            failed("countApplications", "Error counting applications: ", e);
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Application getApplication(int id) {
+        return fetchApplication(id);
+    }
+
+    /** Loads the given applications in one query. */
+    @Override
+    public List<Application> getApplications(int[] ids) {
+        List<Application> applications = new ArrayList<>(ids.length);
+        if (ids.length == 0) {
+            return applications;
+        }
+
+        StringBuilder query = new StringBuilder("SELECT " + COLUMNS + " FROM applications WHERE id IN (?");
+        for (int i = 1; i < ids.length; i++) {
+            query.append(", ?");
+        }
+        query.append(')');
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+
+            for (int i = 0; i < ids.length; i++) {
+                stmt.setInt(i + 1, ids[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    applications.add(mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("getApplications", "Error retrieving applications: ", e);
+        }
+
+        return applications;
+    }
+
+    /**
+     * Full-text search in MySQL (FULLTEXT index on company, position, notes),
+     * for tables too large to index in memory.
+     */
+    @Override
+    public List<Application> searchApplications(String text, int limit) {
+        List<Application> applications = new ArrayList<>();
 
-                applications.add(app);
+        StringBuilder terms = new StringBuilder();
+        for (String token : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.append(terms.length() == 0 ? "+" : " +").append(token);
+            }
+        }
+        if (terms.length() == 0) {
+            return applications;
+        }
+        terms.append('*');
+
+        String query = "SELECT " + COLUMNS + " FROM applications"
+                + " WHERE MATCH(company, position, notes) AGAINST (? IN BOOLEAN MODE)"
+                + " ORDER BY id DESC LIMIT ?";
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setString(1, terms.toString());
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    applications.add(mapRow(rs));
+                }
             }
 
         } catch (SQLException e) {
-            System.out.println("Error retrieving applications: " + e.getMessage());
+            failed("searchApplications", "Error searching applications: ", e);
         }
 
         return applications;
     }
 
-    public void addApplication(Application app) {
+    @Override
+    public void forEach(SortKey sort, Consumer<Application> action) {
+        forEach(Criteria.ALL, sort, action);
+    }
+
+    /** Reads through a forward-only, fetch-size-limited cursor, so memory stays flat. */
+    @Override
+    public void forEach(Criteria criteria, SortKey sort, Consumer<Application> action) {
+        List<Object> params = new ArrayList<>();
+        String query = "SELECT " + COLUMNS + " FROM applications WHERE " + criteria.where(params)
+                + " ORDER BY " + sort.orderBy();
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            bind(stmt, 1, params);
+            stmt.setFetchSize(1_000); // server-side cursor, see useCursorFetch in Database
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("forEach", "Error reading applications: ", e);
+        }
+    }
+
+    private Application fetchApplication(int id) {
+        try {
+            return findApplication(id);
+        } catch (SQLException e) {
+            failed("getApplication", "Error retrieving application: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads a single application by id, or returns null if it doesn't exist.
+     * Unlike getApplication, a failed query is thrown rather than reported,
+     * so callers can tell a missing row from an unreachable database.
+     */
+    Application findApplication(int id) throws SQLException {
+        String query = "SELECT " + COLUMNS + " FROM applications WHERE id = ?";
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapRow(rs) : null;
+            }
+        }
+    }
+
+    @Override
+    public List<Change> getChangesAfter(long after, int limit) {
+        List<Change> changes = new ArrayList<>();
+
+        // change_log is filled by triggers on applications; see sql/schema.sql
+        String query = "SELECT c.seq, c.app_id, a.* FROM change_log c "
+                + "LEFT JOIN applications a ON a.id = c.app_id "
+                + "WHERE c.seq > ? ORDER BY c.seq LIMIT ?";
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setLong(1, after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Application app = rs.getObject("id") == null ? null : mapRow(rs);
+                    changes.add(new Change(rs.getLong("seq"), rs.getInt("app_id"), app));
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("getChangesAfter", "Error retrieving changes: ", e);
+        }
+
+        return changes;
+    }
+
+    @Override
+    public long getLatestChangeSeq() {
+        String query = "SELECT MAX(seq) FROM change_log";
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            failed("getLatestChangeSeq", "Error retrieving latest change: ", e);
+        }
+
+        return 0;
+    }
+
+    @Override
+    public List<StatusEvent> getStatusHistory(int id) {
+        List<StatusEvent> events = new ArrayList<>();
+
+        // status_events is filled by triggers on applications; see sql/schema.sql
+        String query = "SELECT from_status, to_status, changed_at FROM status_events WHERE app_id = ? ORDER BY id";
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new StatusEvent(id, Status.fromLabel(rs.getString("from_status")),
+                            Status.fromLabel(rs.getString("to_status")), rs.getTimestamp("changed_at").toInstant()));
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("getStatusHistory", "Error retrieving status history: ", e);
+        }
+
+        return events;
+    }
+
+    /**
+     * The cohort is read from idx_status_events_created (first events by
+     * time); each member's statuses then come from idx_status_events_app.
+     */
+    @Override
+    public StatusFunnel getStatusFunnel(Instant from, Instant to) {
+        String cohortQuery = "SELECT COUNT(*) FROM status_events "
+                + "WHERE from_status IS NULL AND changed_at >= ? AND changed_at < ?";
+        String reachedQuery = "SELECT e.to_status, COUNT(DISTINCT e.app_id) FROM status_events c "
+                + "JOIN status_events e ON e.app_id = c.app_id "
+                + "WHERE c.from_status IS NULL AND c.changed_at >= ? AND c.changed_at < ? "
+                + "GROUP BY e.to_status";
+        int cohort = 0;
+        int[] reached = new int[Status.values().length];
+
+        try (Connection conn = Database.connect();
+             PreparedStatement cohortStmt = conn.prepareStatement(cohortQuery);
+             PreparedStatement reachedStmt = conn.prepareStatement(reachedQuery)) {
+
+            for (PreparedStatement stmt : new PreparedStatement[]{cohortStmt, reachedStmt}) {
+                stmt.setTimestamp(1, Timestamp.from(from));
+                stmt.setTimestamp(2, Timestamp.from(to));
+            }
+            try (ResultSet rs = cohortStmt.executeQuery()) {
+                if (rs.next()) {
+                    cohort = rs.getInt(1);
+                }
+            }
+            try (ResultSet rs = reachedStmt.executeQuery()) {
+                while (rs.next()) {
+                    Status status = Status.fromLabel(rs.getString(1));
+                    if (status != null) {
+                        reached[status.ordinal()] = rs.getInt(2);
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("getStatusFunnel", "Error computing status funnel: ", e);
+        }
+
+        return new StatusFunnel(cohort, reached);
+    }
+
+    @Override
+    public Map<Integer, Instant> getInterviewTimes() {
+        Map<Integer, Instant> times = new HashMap<>();
+        String query = "SELECT app_id, MIN(changed_at) FROM status_events "
+                + "WHERE to_status IN ('Interviewed', 'Accepted') GROUP BY app_id";
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setFetchSize(1_000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    times.put(rs.getInt(1), rs.getTimestamp(2).toInstant());
+                }
+            }
+
+        } catch (SQLException e) {
+            failed("getInterviewTimes", "Error retrieving interview times: ", e);
+        }
+
+        return times;
+    }
+
+    @Override
+    public int addApplication(Application app) {
         String query = "INSERT INTO applications (company, position, application_date, status, notes) VALUES (?, ?, ?, ?, ?)";
     
         try (Connection conn = Database.connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
     
-            stmt.setString(1, app.getCompany());
-            stmt.setString(2, app.getPosition());
-            stmt.setString(3, app.getApplicationDate());
-            stmt.setString(4, app.getStatus());
-            stmt.setString(5, app.getNotes());
+            setFields(stmt, app);
     
             int rowsAffected = stmt.executeUpdate();
             System.out.println("Inserted " + rowsAffected + " application(s).");
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    int id = keys.getInt(1);
+                    if (!listeners.isEmpty()) {
+                        Application saved = fetchApplication(id);
+                        if (saved != null) {
+                            listeners.saved(saved);
+                        } else {
+                            listeners.replaced(); // couldn't read the row back; have them reload instead
+                        }
+                    }
+                    return id;
+                }
+            }
     
         } catch (SQLException e) {
-            System.out.println("Error inserting application: " + e.getMessage());
+            failed("addApplication", "Error inserting application: ", e);
         }
+        return -1;
     }
 
+    @Override
     public void deleteApplication(int id) {
-        String query = "DELETE FROM applications WHERE id = ?";
+        String query = DELETE;
     
         try (Connection conn = Database.connect();
              PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -67,32 +451,206 @@ public class ApplicationDAO {
     
             if (rows > 0) {
                 System.out.println("Application deleted successfully.");
+                listeners.deleted(id);
             } else {
                 System.out.println("No application found with that ID.");
             }
     
         } catch (SQLException e) {
-            System.out.println("Error deleting application: " + e.getMessage());
+            failed("deleteApplication", "Error deleting application: ", e);
         }
     }
 
-    public void updateApplication(Application app) {
-        String query = "UPDATE applications SET company=?, position=?, application_date=?, status=?, notes=? WHERE id=?";
+    @Override
+    public Application updateApplication(Application app) {
+        String query = UPDATE;
     
         try (Connection conn = Database.connect();
              PreparedStatement stmt = conn.prepareStatement(query)) {
     
-            stmt.setString(1, app.getCompany());
-            stmt.setString(2, app.getPosition());
-            stmt.setString(3, app.getApplicationDate());
-            stmt.setString(4, app.getStatus());
-            stmt.setString(5, app.getNotes());
+            setFields(stmt, app);
             stmt.setInt(6, app.getId());
+            stmt.setInt(7, app.getVersion());
     
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() == 0) {
+                Application current = fetchApplication(app.getId());
+                if (current != null) {
+                    throw new StaleUpdateException(current);
+                }
+                return null;
+            }
+        } catch (SQLException e) {
+            failed("updateApplication", "Error updating application: ", e);
+            return null;
+        }
+        Application saved = fetchApplication(app.getId());
+        if (saved != null) {
+            listeners.saved(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * One UPDATE for every matching row. The triggers on applications add
+     * each changed row to change_log and status_events, as for single updates.
+     */
+    @Override
+    public int updateStatus(Criteria criteria, Status status) {
+        if (status == null) {
+            System.out.println("Error updating applications: no status given");
+            return -1;
+        }
+        List<Object> params = new ArrayList<>();
+        params.add(status.getLabel());
+        params.add(status.getLabel());
+        String query = "UPDATE applications SET status = ?, version = version + 1 WHERE status <> ? AND "
+                + criteria.where(params);
+
+        int rows;
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            bind(stmt, 1, params);
+            rows = stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            failed("updateStatus", "Error updating applications: ", e);
+            return -1;
+        }
+        if (rows > 0) {
+            listeners.replaced();
+        }
+        return rows;
+    }
+
+    /** One DELETE for every matching row; change_log records each through its trigger. */
+    @Override
+    public int deleteApplications(Criteria criteria) {
+        List<Object> params = new ArrayList<>();
+        String query = "DELETE FROM applications WHERE " + criteria.where(params);
+
+        int rows;
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            bind(stmt, 1, params);
+            rows = stmt.executeUpdate();
+
         } catch (SQLException e) {
-            System.out.println("Error updating application: " + e.getMessage());
+            failed("deleteApplications", "Error deleting applications: ", e);
+            return -1;
+        }
+        if (rows > 0) {
+            listeners.replaced();
+        }
+        return rows;
+    }
+
+    /** Batched, chunked JDBC import; see ApplicationImporter. */
+    @Override
+    public ApplicationImporter.ImportResult importFile(Path file) throws IOException {
+        try {
+            return new ApplicationImporter().importFile(file);
+        } finally {
+            listeners.replaced();
+        }
+    }
+
+    /**
+     * Applies updates and deletes in a single transaction, each kind as one
+     * JDBC batch. Each update carries the version the row will have once
+     * written and is compare-and-set against the one before it. Returns the
+     * ids of updates that matched no row, because the row was changed by
+     * someone else or deleted.
+     *
+     * Listeners are not notified; this is the flush path of
+     * WriteBehindRepository, which already told them when the change was
+     * queued.
+     */
+    List<Integer> applyBatch(List<Application> updates, int[] deletes) throws SQLException {
+        long start = System.nanoTime();
+        List<Integer> skipped = new ArrayList<>();
+        try (Connection conn = Database.connect()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement update = conn.prepareStatement(UPDATE);
+                 PreparedStatement delete = conn.prepareStatement(DELETE)) {
+
+                for (Application app : updates) {
+                    setFields(update, app);
+                    update.setInt(6, app.getId());
+                    update.setInt(7, app.getVersion() - 1);
+                    update.addBatch();
+                }
+                for (int id : deletes) {
+                    delete.setInt(1, id);
+                    delete.addBatch();
+                }
+                if (!updates.isEmpty()) {
+                    int[] counts = update.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            skipped.add(updates.get(i).getId());
+                        }
+                    }
+                }
+                if (deletes.length > 0) {
+                    delete.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            applyBatch.failed();
+            applyBatch.stop(start);
+            throw e;
+        }
+        applyBatch.stop(start, updates.size() + deletes.length);
+        return skipped;
+    }
+
+    // Reports a failed query as before, and counts it against the method's
+    // operation (see InstrumentedRepository), which otherwise sees a normal return
+    private static void failed(String method, String message, SQLException e) {
+        Metrics.operation(Backends.MYSQL + "." + method).failed();
+        System.out.println(message + e.getMessage());
+    }
+
+    private static void bind(PreparedStatement stmt, int first, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(first + i, params.get(i));
+        }
+    }
+
+    /** Binds company, position, application_date, status and notes to parameters 1-5. */
+    static void setFields(PreparedStatement stmt, Application app) throws SQLException {
+        if (app.getStatus() == null) {
+            // status is NOT NULL; fail here with a message that says which row, not in the driver
+            throw new SQLException("Application " + app.getId() + " (" + app.getCompany() + ") has no status", "22004");
+        }
+        stmt.setString(1, app.getCompany());
+        stmt.setString(2, app.getPosition());
+        stmt.setObject(3, app.getApplicationDate());
+        stmt.setString(4, app.getStatus().getLabel());
+        stmt.setString(5, app.getNotes());
+    }
+
+    static Application mapRow(ResultSet rs) throws SQLException {
+        Application app = new Application(
+            rs.getInt("id"),
+            rs.getString("company"),
+            rs.getString("position"),
+            rs.getObject("application_date", LocalDate.class),
+            Status.fromLabel(rs.getString("status")),
+            rs.getString("notes")
+        );
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        if (updatedAt != null) {
+            app.setUpdatedAt(updatedAt.toInstant());
         }
+        app.setVersion(rs.getInt("version"));
+        return app;
     }
     
 }
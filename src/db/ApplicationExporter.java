@@ -0,0 +1,67 @@
+package db;
+
+import model.Application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Streams every application in a repository to a CSV or JSON Lines file.
+ * Rows are written as the repository hands them over (for MySQL, through a
+ * forward-only cursor), so memory use does not grow with the table.
+ */
+public class ApplicationExporter {
+
+    private final ApplicationRepository repository;
+
+    public ApplicationExporter(ApplicationRepository repository) {
+        this.repository = repository;
+    }
+
+    /** Writes every application to the file and returns the number of rows written. */
+    public long exportFile(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportTo(out, FileFormat.forPath(file));
+        }
+    }
+
+    public long exportTo(Writer out, FileFormat format) throws IOException {
+        return exportTo(out, format, ApplicationRepository.Criteria.ALL, ApplicationRepository.SortKey.ID);
+    }
+
+    /** Writes the applications matching criteria, in sort order, and returns the number written. */
+    public long exportTo(Writer out, FileFormat format, ApplicationRepository.Criteria criteria,
+                         ApplicationRepository.SortKey sort) throws IOException {
+        long[] rows = {0};
+        format.writeHeader(out);
+        try {
+            repository.forEach(criteria, sort, app -> {
+                try {
+                    format.write(out, app);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        System.out.println("Exported " + rows[0] + " application(s).");
+        return rows[0];
+    }
+
+    /** Writes applications already in hand, such as search results, with a header for CSV. */
+    public static void write(Writer out, FileFormat format, Collection<Application> apps) throws IOException {
+        format.writeHeader(out);
+        for (Application app : apps) {
+            format.write(out, app);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package db;
+
+import model.Application;
+import model.Status;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams applications from a CSV or JSON Lines file into the database.
+ *
+ * Rows are sent with JDBC batching (the driver rewrites each batch into one
+ * multi-row INSERT) and committed in chunks. A chunk that fails is rolled
+ * back and reported; the import carries on with the next one.
+ */
+public class ApplicationImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    private static final String INSERT =
+        "INSERT INTO applications (company, position, application_date, status, notes) VALUES (?, ?, ?, ?, ?)";
+
+    private final int batchSize;
+    private final int chunkSize;
+
+    public ApplicationImporter() {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param batchSize rows per executeBatch round trip
+     * @param chunkSize rows per transaction; rounded up to a whole number of batches
+     */
+    public ApplicationImporter(int batchSize, int chunkSize) {
+        if (batchSize < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("batch and chunk sizes must be positive");
+        }
+        this.batchSize = batchSize;
+        this.chunkSize = Math.max(batchSize, chunkSize);
+    }
+
+    public ImportResult importFile(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(in, FileFormat.forPath(file));
+        }
+    }
+
+    public ImportResult importFrom(Reader reader, FileFormat format) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        FileFormat.RecordReader records = format.reader(in);
+        ImportResult result = new ImportResult();
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(INSERT)) {
+
+            conn.setAutoCommit(false);
+            long record = 0;
+            int chunk = 0;
+            boolean done = false;
+
+            while (!done) {
+                chunk++;
+                long chunkStart = record + 1;
+                int inChunk = 0, inBatch = 0;
+                try {
+                    while (inChunk < chunkSize) {
+                        Map<String, String> fields;
+                        try {
+                            fields = records.next();
+                        } catch (IOException e) {
+                            record++;
+                            result.rejected++;
+                            result.addError("Record " + record + ": " + e.getMessage());
+                            continue;
+                        }
+                        if (fields == null) {
+                            done = true;
+                            break;
+                        }
+                        record++;
+                        Application app;
+                        try {
+                            app = toApplication(fields);
+                        } catch (IllegalArgumentException e) {
+                            if (!isBlank(fields)) {
+                                result.rejected++;
+                                result.addError("Record " + record + ": " + e.getMessage());
+                            }
+                            continue;
+                        }
+                        ApplicationDAO.setFields(stmt, app);
+                        stmt.addBatch();
+                        inChunk++;
+                        if (++inBatch == batchSize) {
+                            stmt.executeBatch();
+                            inBatch = 0;
+                        }
+                    }
+                    if (inBatch > 0) {
+                        stmt.executeBatch();
+                    }
+                    conn.commit();
+                    result.imported += inChunk;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    stmt.clearBatch();
+                    result.failed += inChunk;
+                    result.addError("Chunk " + chunk + " (records " + chunkStart + "-" + record + ") rolled back: " + e.getMessage());
+                }
+            }
+
+        } catch (SQLException e) {
+            result.addError("Import aborted: " + e.getMessage());
+        }
+
+        System.out.println("Imported " + result.imported + " application(s), "
+                + (result.failed + result.rejected) + " not imported.");
+        return result;
+    }
+
+    /** Parses one record; throws IllegalArgumentException if it is missing or has invalid fields. */
+    static Application toApplication(Map<String, String> fields) {
+        String company = trimToNull(fields.get("company"));
+        String position = trimToNull(fields.get("position"));
+        String date = trimToNull(fields.get("application_date"));
+        if (company == null || position == null || date == null) {
+            throw new IllegalArgumentException("company, position and application_date are required");
+        }
+        LocalDate applicationDate;
+        try {
+            applicationDate = LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("application_date '" + date + "' is not YYYY-MM-DD");
+        }
+        String label = trimToNull(fields.get("status"));
+        Status status = label == null ? Status.APPLIED : Status.fromLabel(label);
+        if (status == null) {
+            throw new IllegalArgumentException("unknown status '" + label + "'");
+        }
+        String notes = fields.get("notes");
+        return new Application(0, company, position, applicationDate, status,
+                notes == null ? "" : notes.trim());
+    }
+
+    static boolean isBlank(Map<String, String> fields) {
+        for (String v : fields.values()) {
+            if (v != null && !v.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String trimToNull(String s) {
+        if (s == null) {
+            return null;
+        }
+        s = s.trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    /** Outcome of an import. */
+    public static class ImportResult {
+        private static final int MAX_ERRORS = 100;
+
+        private long imported;
+        private long failed;
+        private long rejected;
+        private long droppedErrors;
+        private final List<String> errors = new ArrayList<>();
+
+        /** Rows committed to the database. */
+        public long getImported() {
+            return imported;
+        }
+        /** Valid rows lost because their chunk was rolled back. */
+        public long getFailed() {
+            return failed;
+        }
+        /** Records skipped because they could not be parsed or were missing required fields. */
+        public long getRejected() {
+            return rejected;
+        }
+        /** Per-chunk and per-record error messages, capped at the first MAX_ERRORS. */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        void countImported(long n) {
+            imported += n;
+        }
+
+        void countRejected() {
+            rejected++;
+        }
+
+        void addError(String message) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            } else {
+                droppedErrors++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Imported " + imported + ", rolled back " + failed + ", rejected " + rejected
+                    + (droppedErrors > 0 ? " (" + droppedErrors + " more errors not shown)" : "");
+        }
+    }
+}
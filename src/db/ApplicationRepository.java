@@ -0,0 +1,349 @@
+package db;
+
+import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+import snapshot.ApplicationSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage for applications. ApplicationDAO keeps them in MySQL,
+ * LogApplicationRepository in a local append-only file; Backends picks one
+ * at startup.
+ */
+public interface ApplicationRepository {
+
+    /**
+     * Notified after the repository changes a row, so in-memory structures
+     * such as the search index can follow along. Called on the thread that
+     * made the change.
+     */
+    interface ChangeListener {
+        /** A row was inserted or updated; app is the row as stored. */
+        default void applicationSaved(Application app) { }
+        /** A row was deleted. */
+        default void applicationDeleted(int id) { }
+        /** Many rows changed at once (e.g. an import); reload rather than patch. */
+        default void applicationsReplaced() { }
+        /**
+         * An update that was accepted and reported as saved could not be
+         * written after all, because someone else changed or deleted the row
+         * first (see WriteBehindRepository). Listeners have already been sent
+         * the row as stored; current is that row, or null if it was deleted.
+         */
+        default void updateDropped(Application queued, Application current) { }
+    }
+
+    /**
+     * Orderings supported by getApplicationsPage. Each one ends in id so the
+     * order is total and a page can resume from the last row it returned.
+     */
+    enum SortKey {
+        NEWEST("application_date", true),
+        OLDEST("application_date", false),
+        COMPANY("company", false),
+        ID("id", false);
+
+        private final String column;
+        private final boolean descending;
+
+        SortKey(String column, boolean descending) {
+            this.column = column;
+            this.descending = descending;
+        }
+
+        String orderBy() {
+            String dir = descending ? " DESC" : " ASC";
+            return this == ID ? "id" + dir : column + dir + ", id" + dir;
+        }
+
+        String after() {
+            String cmp = descending ? " < " : " > ";
+            return "(" + column + cmp + "? OR (" + column + " = ? AND id" + cmp + "?))";
+        }
+
+        Object valueOf(Application app) {
+            switch (this) {
+                case COMPANY: return app.getCompany();
+                case ID:      return app.getId();
+                default:      return app.getApplicationDate();
+            }
+        }
+
+        /** The same ordering applied in memory. */
+        public Comparator<Application> comparator() {
+            Comparator<Application> c;
+            switch (this) {
+                case COMPANY: c = Comparator.comparing(Application::getCompany, String.CASE_INSENSITIVE_ORDER); break;
+                case ID:      c = Comparator.comparingInt(Application::getId); break;
+                default:      c = Comparator.comparing(Application::getApplicationDate);
+            }
+            c = c.thenComparingInt(Application::getId);
+            return descending ? c.reversed() : c;
+        }
+    }
+
+    /**
+     * One entry of the change feed: a row that was inserted, updated or
+     * deleted, with the row as it is now (null once deleted). Entries carry
+     * current state rather than the operation, so applying one twice or
+     * late is harmless.
+     */
+    final class Change {
+        private final long seq;
+        private final int id;
+        private final Application app;
+
+        public Change(long seq, int id, Application app) {
+            this.seq = seq;
+            this.id = id;
+            this.app = app;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+        public int getId() {
+            return id;
+        }
+        /** The row as it is now, or null if it has been deleted. */
+        public Application getApplication() {
+            return app;
+        }
+        public boolean isDeleted() {
+            return app == null;
+        }
+    }
+
+    /**
+     * Which rows a bulk operation applies to: statuses in a set, application
+     * dates in an inclusive range, companies starting with a prefix (ignoring
+     * case) and ids in a list. Null or empty conditions match everything, so
+     * ALL is the whole table.
+     */
+    final class Criteria {
+        public static final Criteria ALL = new Criteria(null, null, null, null, null);
+
+        private final Set<Status> statuses; // null for any
+        private final LocalDate from, to;
+        private final String companyPrefix; // null for any
+        private final int[] ids;            // sorted, or null for any
+
+        public Criteria(Set<Status> statuses, LocalDate from, LocalDate to, String companyPrefix, int[] ids) {
+            this.statuses = statuses == null || statuses.isEmpty() || statuses.containsAll(EnumSet.allOf(Status.class))
+                ? null : EnumSet.copyOf(statuses);
+            this.from = from;
+            this.to = to;
+            this.companyPrefix = companyPrefix == null || companyPrefix.isEmpty() ? null : companyPrefix;
+            if (ids != null) {
+                ids = ids.clone();
+                Arrays.sort(ids);
+            }
+            this.ids = ids;
+        }
+
+        /** The same conditions, limited to the given ids. */
+        public Criteria withIds(int[] ids) {
+            return new Criteria(statuses, from, to, companyPrefix, ids);
+        }
+
+        public boolean isAll() {
+            return statuses == null && from == null && to == null && companyPrefix == null && ids == null;
+        }
+
+        /** The same test the database applies, for a single row. */
+        public boolean matches(Application app) {
+            if (statuses != null && !statuses.contains(app.getStatus())) {
+                return false;
+            }
+            LocalDate date = app.getApplicationDate();
+            if ((from != null || to != null) && (date == null
+                    || (from != null && date.isBefore(from)) || (to != null && date.isAfter(to)))) {
+                return false;
+            }
+            if (companyPrefix != null && (app.getCompany() == null
+                    || !app.getCompany().regionMatches(true, 0, companyPrefix, 0, companyPrefix.length()))) {
+                return false;
+            }
+            return ids == null || Arrays.binarySearch(ids, app.getId()) >= 0;
+        }
+
+        /**
+         * The conditions as an SQL WHERE expression ("TRUE" for ALL), adding
+         * the values for its placeholders to params in order.
+         */
+        String where(List<Object> params) {
+            StringBuilder sql = new StringBuilder("TRUE");
+            if (statuses != null) {
+                List<String> marks = new ArrayList<>();
+                for (Status s : statuses) {
+                    marks.add("?");
+                    params.add(s.getLabel());
+                }
+                sql.append(" AND status IN (").append(String.join(", ", marks)).append(')');
+            }
+            if (from != null) {
+                sql.append(" AND application_date >= ?");
+                params.add(from);
+            }
+            if (to != null) {
+                sql.append(" AND application_date <= ?");
+                params.add(to);
+            }
+            if (companyPrefix != null) {
+                // the default collation ignores case, as matches() does
+                sql.append(" AND company LIKE ? ESCAPE '!'");
+                params.add(companyPrefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+            }
+            if (ids != null) {
+                sql.append(" AND id IN (");
+                for (int i = 0; i < ids.length; i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                    params.add(ids[i]);
+                }
+                sql.append(ids.length == 0 ? "NULL)" : ")");
+            }
+            return sql.toString();
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>();
+            if (statuses != null) {
+                parts.add("status in " + statuses);
+            }
+            if (from != null) {
+                parts.add("from " + from);
+            }
+            if (to != null) {
+                parts.add("to " + to);
+            }
+            if (companyPrefix != null) {
+                parts.add("company starting '" + companyPrefix + "'");
+            }
+            if (ids != null) {
+                parts.add(ids.length + " id(s)");
+            }
+            return parts.isEmpty() ? "all applications" : String.join(", ", parts);
+        }
+    }
+
+    void addChangeListener(ChangeListener listener);
+
+    void removeChangeListener(ChangeListener listener);
+
+    List<Application> getAllApplications();
+
+    /**
+     * Fetches one page of applications.
+     *
+     * @param status   status to match, or null for every status
+     * @param sort     ordering of the result
+     * @param after    last row of the previous page (keyset cursor), or null for the first page
+     * @param pageSize maximum number of rows to return
+     */
+    List<Application> getApplicationsPage(Status status, SortKey sort, Application after, int pageSize);
+
+    /** Number of applications, or -1 if it could not be determined. */
+    int countApplications();
+
+    /** Loads a single application by id, or returns null if it doesn't exist. */
+    Application getApplication(int id);
+
+    /**
+     * Loads the given applications. Ids that don't exist are skipped; the
+     * result is in no particular order.
+     */
+    List<Application> getApplications(int[] ids);
+
+    /**
+     * Text search over company, position and notes. Every term must match;
+     * the last one also matches as a prefix. Newest ids first.
+     */
+    List<Application> searchApplications(String text, int limit);
+
+    /**
+     * Change feed entries with a sequence number above after, oldest first,
+     * at most limit. Sequence numbers increase but may have gaps; use a
+     * ChangeCursor to tail the feed.
+     */
+    List<Change> getChangesAfter(long after, int limit);
+
+    /** Sequence number of the newest change feed entry (0 if none), a starting point for getChangesAfter. */
+    long getLatestChangeSeq();
+
+    /**
+     * Every status change of one application, oldest first, starting with the
+     * status it was created with. Kept after the application is deleted.
+     */
+    List<StatusEvent> getStatusHistory(int id);
+
+    /** How far the applications created in [from, to) got; see StatusFunnel. */
+    StatusFunnel getStatusFunnel(Instant from, Instant to);
+
+    /**
+     * When each application first moved to Interviewed or Accepted, from the
+     * status history, by application id. Applications that never did are
+     * absent; deleted ones may be present.
+     */
+    Map<Integer, Instant> getInterviewTimes();
+
+    /** Inserts the application and returns its generated id, or -1 if the insert failed. */
+    int addApplication(Application app);
+
+    void deleteApplication(int id);
+
+    /**
+     * Saves the application if it is still at app.getVersion() and returns
+     * the row as stored (with the new version), or null if it no longer
+     * exists or the update failed.
+     *
+     * @throws StaleUpdateException if someone else updated the row since it was read
+     */
+    Application updateApplication(Application app);
+
+    /** Bulk-loads a CSV or JSON Lines file. */
+    ApplicationImporter.ImportResult importFile(Path file) throws IOException;
+
+    /** Streams every application to the consumer in the given order without collecting them. */
+    void forEach(SortKey sort, Consumer<Application> action);
+
+    /** Streams the applications matching criteria, like forEach(SortKey, Consumer). */
+    void forEach(Criteria criteria, SortKey sort, Consumer<Application> action);
+
+    /**
+     * Sets the status of every application matching criteria that doesn't
+     * already have it, as one operation (a single UPDATE in MySQL), bumping
+     * each row's version. Returns the number of rows changed, or -1 if the
+     * update failed. Listeners get applicationsReplaced.
+     */
+    int updateStatus(Criteria criteria, Status status);
+
+    /**
+     * Deletes every application matching criteria (Criteria.ALL empties the
+     * table) as one operation. Returns the number deleted, or -1 if the
+     * delete failed. Listeners get applicationsReplaced.
+     */
+    int deleteApplications(Criteria criteria);
+
+    /** The whole table, newest first, as a columnar snapshot. */
+    default ApplicationSnapshot loadSnapshot() {
+        ApplicationSnapshot.Builder builder = new ApplicationSnapshot.Builder();
+        forEach(SortKey.NEWEST, builder::add);
+        return builder.build();
+    }
+}
@@ -0,0 +1,155 @@
+package db;
+
+import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+import snapshot.ApplicationSnapshot;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs repository calls on a background executor so callers (the Swing
+ * UI in particular) never block on a database round trip. Uses virtual
+ * threads when the running JDK has them, otherwise a small daemon pool sized
+ * to the connection pool.
+ *
+ * The repository itself can be opened lazily: calls made before it is ready
+ * queue up behind the open and run once it completes.
+ */
+public class AsyncApplicationDAO {
+
+    private static final int PLATFORM_THREADS = 4;
+
+    private final CompletableFuture<ApplicationRepository> dao;
+    private final ExecutorService executor;
+
+    public AsyncApplicationDAO(ApplicationRepository dao) {
+        this.dao = CompletableFuture.completedFuture(dao);
+        this.executor = newExecutor();
+    }
+
+    /** Opens the repository on the background executor; see opened(). */
+    public AsyncApplicationDAO(Supplier<ApplicationRepository> opener) {
+        this.executor = newExecutor();
+        this.dao = CompletableFuture.supplyAsync(opener, executor);
+    }
+
+    /** Completes when the repository is open, or exceptionally if opening it failed. */
+    public CompletableFuture<Void> opened() {
+        return dao.thenApply(repo -> null);
+    }
+
+    public CompletableFuture<List<Application>> getAllApplications() {
+        return call(ApplicationRepository::getAllApplications);
+    }
+
+    public CompletableFuture<List<Application>> getApplicationsPage(Status status, ApplicationRepository.SortKey sort,
+                                                                    Application after, int pageSize) {
+        return call(repo -> repo.getApplicationsPage(status, sort, after, pageSize));
+    }
+
+    public CompletableFuture<List<Application>> getApplications(int[] ids) {
+        return call(repo -> repo.getApplications(ids));
+    }
+
+    public CompletableFuture<List<Application>> searchApplications(String text, int limit) {
+        return call(repo -> repo.searchApplications(text, limit));
+    }
+
+    public CompletableFuture<ApplicationSnapshot> loadSnapshot() {
+        return call(ApplicationRepository::loadSnapshot);
+    }
+
+    public CompletableFuture<Integer> countApplications() {
+        return call(ApplicationRepository::countApplications);
+    }
+
+    public CompletableFuture<Long> getLatestChangeSeq() {
+        return call(ApplicationRepository::getLatestChangeSeq);
+    }
+
+    public CompletableFuture<List<StatusEvent>> getStatusHistory(int id) {
+        return call(repo -> repo.getStatusHistory(id));
+    }
+
+    public CompletableFuture<StatusFunnel> getStatusFunnel(Instant from, Instant to) {
+        return call(repo -> repo.getStatusFunnel(from, to));
+    }
+
+    public CompletableFuture<Map<Integer, Instant>> getInterviewTimes() {
+        return call(ApplicationRepository::getInterviewTimes);
+    }
+
+    /** Tails the change feed from the cursor's position; see ChangeCursor.poll. */
+    public CompletableFuture<List<ApplicationRepository.Change>> pollChanges(ChangeCursor cursor, int limit) {
+        return call(repo -> cursor.poll(repo, limit));
+    }
+
+    public CompletableFuture<Integer> addApplication(Application app) {
+        return call(repo -> repo.addApplication(app));
+    }
+
+    public CompletableFuture<Void> deleteApplication(int id) {
+        return dao.thenAcceptAsync(repo -> repo.deleteApplication(id), executor);
+    }
+
+    public CompletableFuture<Application> updateApplication(Application app) {
+        return call(repo -> repo.updateApplication(app));
+    }
+
+    public CompletableFuture<ApplicationImporter.ImportResult> importFile(Path file) {
+        return call(repo -> {
+            try {
+                return repo.importFile(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Long> exportFile(Path file) {
+        return call(repo -> {
+            try {
+                return new ApplicationExporter(repo).exportFile(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> call(Function<ApplicationRepository, T> task) {
+        return dao.thenApplyAsync(task, executor);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() exists from JDK 21 on
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(PLATFORM_THREADS, r -> {
+                Thread t = new Thread(r, "dao-worker-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
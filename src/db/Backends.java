@@ -0,0 +1,121 @@
+package db;
+
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Picks the storage backend at startup:
+ *
+ *   -Dtracker.backend=mysql     the MySQL database in Database (default), behind a CachingApplicationDAO
+ *   -Dtracker.backend=embedded  a LogApplicationRepository in -Dtracker.dataDir (default ~/.job-tracker)
+ *
+ * With -Dtracker.writeBehind=true the MySQL backend queues updates and
+ * deletes through a WriteBehindRepository journaled in the data directory;
+ * the queue is drained when the JVM exits.
+ *
+ * Either way the storage sits inside an InstrumentedRepository, so every call
+ * to it is timed in Metrics (as mysql.* or embedded.*), and the connection
+ * pool, cache and write-behind queue counters are published as gauges.
+ *
+ * openDirect() is the same without the cache and the write-behind queue,
+ * for one-shot batch work such as the command line.
+ */
+public final class Backends {
+
+    public static final String MYSQL = "mysql";
+    public static final String EMBEDDED = "embedded";
+
+    private Backends() {
+    }
+
+    /** Opens the backend named by the tracker.backend system property. */
+    public static ApplicationRepository open() {
+        return open(System.getProperty("tracker.backend", MYSQL), dataDir());
+    }
+
+    public static ApplicationRepository open(String backend, Path dataDir) {
+        switch (backend) {
+            case MYSQL:
+                ApplicationRepository storage = Boolean.getBoolean("tracker.writeBehind")
+                    ? openWriteBehind(dataDir) : new ApplicationDAO();
+                CachingApplicationDAO cache = new CachingApplicationDAO(new InstrumentedRepository(MYSQL, storage));
+                publishGauges(cache);
+                return cache;
+            case EMBEDDED:
+                try {
+                    return new InstrumentedRepository(EMBEDDED, new LogApplicationRepository(dataDir));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open data directory " + dataDir + ": " + e.getMessage(), e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown backend '" + backend + "', expected "
+                        + MYSQL + " or " + EMBEDDED);
+        }
+    }
+
+    /**
+     * Opens the backend named by tracker.backend with nothing between the
+     * caller and the instrumented storage: a cache filled only to be thrown
+     * away at exit, and its locking, would slow down bulk and parallel work.
+     */
+    public static ApplicationRepository openDirect() {
+        String backend = System.getProperty("tracker.backend", MYSQL);
+        return MYSQL.equals(backend) ? new InstrumentedRepository(MYSQL, new ApplicationDAO()) : open(backend, dataDir());
+    }
+
+    /** Closes what the repository holds open (the embedded log); MySQL connections are pooled in Database. */
+    public static void close(ApplicationRepository repo) throws IOException {
+        if (repo instanceof InstrumentedRepository) {
+            repo = ((InstrumentedRepository) repo).getDelegate();
+        }
+        if (repo instanceof LogApplicationRepository) {
+            ((LogApplicationRepository) repo).close();
+        }
+    }
+
+    private static WriteBehindRepository openWriteBehind(Path dataDir) {
+        WriteBehindRepository repo;
+        try {
+            repo = new WriteBehindRepository(new ApplicationDAO(), dataDir.resolve(WriteBehindRepository.JOURNAL_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind journal in " + dataDir + ": " + e.getMessage(), e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(repo::close, "write-behind-flush"));
+        Metrics.gauge("writeBehind.queueDepth", repo::getQueueDepth);
+        Metrics.gauge("writeBehind.coalesced", repo::getCoalesced);
+        Metrics.gauge("writeBehind.flushes", repo::getFlushes);
+        Metrics.gauge("writeBehind.lastBatchSize", repo::getLastBatchSize);
+        Metrics.gauge("writeBehind.averageBatchSize", repo::getAverageBatchSize);
+        Metrics.gauge("writeBehind.lastFlushMillis", repo::getLastFlushMillis);
+        Metrics.gauge("writeBehind.maxFlushMillis", repo::getMaxFlushMillis);
+        Metrics.gauge("writeBehind.skipped", repo::getSkipped);
+        Metrics.gauge("writeBehind.failures", repo::getFailures);
+        return repo;
+    }
+
+    private static void publishGauges(CachingApplicationDAO cache) {
+        Metrics.gauge("db.pool.active", () -> Database.getStats().getActive());
+        Metrics.gauge("db.pool.idle", () -> Database.getStats().getIdle());
+        Metrics.gauge("db.pool.created", () -> Database.getStats().getCreated());
+        Metrics.gauge("db.pool.maxWaitMillis", () -> Database.getStats().getMaxWaitMillis());
+        Metrics.gauge("cache.hits", cache::getHits);
+        Metrics.gauge("cache.misses", cache::getMisses);
+        Metrics.gauge("cache.evictions", cache::getEvictions);
+    }
+
+    /** For the MySQL backend, opens a first pooled connection; see Database.warmUp. */
+    public static void warmUp() {
+        if (MYSQL.equals(System.getProperty("tracker.backend", MYSQL))) {
+            Database.warmUp();
+        }
+    }
+
+    public static Path dataDir() {
+        String dir = System.getProperty("tracker.dataDir");
+        return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("user.home"), ".job-tracker");
+    }
+}
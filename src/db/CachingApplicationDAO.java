@@ -0,0 +1,450 @@
+package db;
+
+import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Wraps another repository (normally the MySQL ApplicationDAO) with an
+ * in-memory copy of the applications table.
+ *
+ * Rows are kept in a RowIndex: by id, plus sorted sets per sort order and
+ * status, so switching the status filter or the order is answered from
+ * memory once warmUp (or the first getAllApplications) has loaded the table;
+ * until then list queries go to the database. Writes go to the database
+ * first and then update the cache. When the table is larger than maxEntries
+ * the least recently used rows are evicted; from then on list queries go to
+ * the database and only single-row lookups are cached.
+ *
+ * The cache's lock is held only while its maps are read or changed, never
+ * across a call to the delegate, so page loads, imports and edits reach the
+ * connection pool side by side. Every change to the cached rows bumps a
+ * generation counter; rows read from the delegate are cached only if the
+ * generation hasn't moved during the read, and never over a newer version
+ * of the same row, so a slow read can't put back a row that was changed or
+ * deleted meanwhile.
+ *
+ * Changes made by other clients reach the cache through the change feed:
+ * every getChangesAfter result passes through it, and with a revalidation
+ * interval set, the next read after it has passed tails the feed itself.
+ * An update the delegate accepted but later dropped (write-behind) is
+ * replaced by the stored row as soon as the delegate reports it.
+ */
+public class CachingApplicationDAO implements ApplicationRepository {
+
+    public static final int DEFAULT_MAX_ENTRIES = 250_000;
+
+    private static final int REVALIDATE_BATCH = 10_000;
+
+    private final ApplicationRepository delegate;
+    private final int maxEntries;
+    private final long revalidateAfterMillis;
+    private final RowIndex rows;
+
+    private boolean complete;  // true while the cache holds every row in the table
+    private boolean warmed;
+    private long generation;   // bumped by every change to the cached rows
+    private long clears;       // bumped by clear(), so a warm-up overtaken by one doesn't claim completeness
+    private ChangeCursor cursor;  // set when the cache is first filled
+    private long lastSyncMillis;
+    private boolean syncing;   // one thread at a time tails the feed
+
+    private long hits, misses;
+
+    public CachingApplicationDAO(ApplicationRepository delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, 0);
+    }
+
+    /**
+     * @param maxEntries            most rows held before LRU eviction starts
+     * @param revalidateAfterMillis how stale the cache may get before pulling
+     *                              changes from the database; 0 never checks
+     */
+    public CachingApplicationDAO(ApplicationRepository delegate, int maxEntries, long revalidateAfterMillis) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.revalidateAfterMillis = revalidateAfterMillis;
+        this.rows = new RowIndex(maxEntries);
+        delegate.addChangeListener(new ChangeListener() {
+            @Override
+            public void updateDropped(Application queued, Application current) {
+                forget(queued.getId(), current);
+            }
+        });
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        delegate.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        delegate.removeChangeListener(listener);
+    }
+
+    @Override
+    public List<Application> getAllApplications() {
+        warmUp();
+        revalidateIfStale();
+        long since;
+        synchronized (this) {
+            if (complete) {
+                hits++;
+                return new ArrayList<>(rows.newestFirst());
+            }
+            misses++;
+            since = generation;
+        }
+        List<Application> apps = delegate.getAllApplications();
+        fill(apps, since);
+        return apps;
+    }
+
+    @Override
+    public List<Application> getApplicationsPage(Status status, SortKey sort, Application after, int pageSize) {
+        revalidateIfStale();
+        long since;
+        synchronized (this) {
+            if (complete) {
+                hits++;
+                return rows.page(status, sort, after, pageSize);
+            }
+            misses++;
+            since = generation;
+        }
+        List<Application> page = delegate.getApplicationsPage(status, sort, after, pageSize);
+        fill(page, since);
+        return page;
+    }
+
+    @Override
+    public int countApplications() {
+        return delegate.countApplications();
+    }
+
+    @Override
+    public Application getApplication(int id) {
+        revalidateIfStale();
+        long since;
+        synchronized (this) {
+            Application app = rows.get(id);
+            if (app != null) {
+                hits++;
+                return app;
+            }
+            misses++;
+            since = generation;
+        }
+        Application app = delegate.getApplication(id);
+        if (app != null) {
+            fill(List.of(app), since);
+        }
+        return app;
+    }
+
+    @Override
+    public List<Application> getApplications(int[] ids) {
+        List<Application> found = new ArrayList<>(ids.length);
+        int[] missing = new int[ids.length];
+        int m = 0;
+        long since;
+        synchronized (this) {
+            for (int id : ids) {
+                Application app = rows.get(id);
+                if (app != null) {
+                    found.add(app);
+                } else {
+                    missing[m++] = id;
+                }
+            }
+            hits += ids.length - m;
+            misses += m;
+            if (m == 0 || complete) {
+                return found;
+            }
+            since = generation;
+        }
+        List<Application> fetched = delegate.getApplications(Arrays.copyOf(missing, m));
+        fill(fetched, since);
+        found.addAll(fetched);
+        return found;
+    }
+
+    @Override
+    public List<Application> searchApplications(String text, int limit) {
+        return delegate.searchApplications(text, limit);
+    }
+
+    @Override
+    public List<Change> getChangesAfter(long after, int limit) {
+        List<Change> changes = delegate.getChangesAfter(after, limit);
+        apply(changes);
+        return changes;
+    }
+
+    @Override
+    public long getLatestChangeSeq() {
+        return delegate.getLatestChangeSeq();
+    }
+
+    @Override
+    public List<StatusEvent> getStatusHistory(int id) {
+        return delegate.getStatusHistory(id);
+    }
+
+    @Override
+    public StatusFunnel getStatusFunnel(Instant from, Instant to) {
+        return delegate.getStatusFunnel(from, to);
+    }
+
+    @Override
+    public Map<Integer, Instant> getInterviewTimes() {
+        return delegate.getInterviewTimes();
+    }
+
+    @Override
+    public int addApplication(Application app) {
+        int id = delegate.addApplication(app);
+        if (id > 0) {
+            // re-read so the cached row carries the database's updated_at and version
+            Application saved = delegate.getApplication(id);
+            if (saved != null) {
+                stored(saved);
+            }
+        }
+        return id;
+    }
+
+    @Override
+    public Application updateApplication(Application app) {
+        Application saved;
+        try {
+            saved = delegate.updateApplication(app);
+        } catch (StaleUpdateException e) {
+            stored(e.getCurrent());
+            throw e;
+        }
+        if (saved != null) {
+            stored(saved);
+        } else {
+            forget(app.getId(), null);
+        }
+        return saved;
+    }
+
+    @Override
+    public void deleteApplication(int id) {
+        delegate.deleteApplication(id);
+        forget(id, null);
+    }
+
+    @Override
+    public ApplicationImporter.ImportResult importFile(Path file) throws IOException {
+        try {
+            return delegate.importFile(file);
+        } finally {
+            clear(); // imported rows bypass the cache
+        }
+    }
+
+    @Override
+    public void forEach(SortKey sort, Consumer<Application> action) {
+        delegate.forEach(sort, action);
+    }
+
+    @Override
+    public void forEach(Criteria criteria, SortKey sort, Consumer<Application> action) {
+        delegate.forEach(criteria, sort, action);
+    }
+
+    @Override
+    public int updateStatus(Criteria criteria, Status status) {
+        try {
+            return delegate.updateStatus(criteria, status);
+        } finally {
+            clear(); // changed rows bypass the cache
+        }
+    }
+
+    @Override
+    public int deleteApplications(Criteria criteria) {
+        try {
+            return delegate.deleteApplications(criteria);
+        } finally {
+            clear();
+        }
+    }
+
+    /** Drops every cached row; the next getAllApplications or warmUp reloads the table. */
+    public synchronized void clear() {
+        rows.clear();
+        complete = false;
+        warmed = false;
+        generation++;
+        clears++;
+    }
+
+    public synchronized String getStats() {
+        return "CacheStats{size=" + rows.size() + ", complete=" + complete + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + rows.evictions() + "}";
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+    public synchronized long getMisses() {
+        return misses;
+    }
+    public synchronized long getEvictions() {
+        return rows.evictions();
+    }
+
+    /**
+     * Loads the whole table into the cache if it fits in maxEntries; only the
+     * first call does anything. The table is read without holding the cache's
+     * lock, so page queries carry on against the database meanwhile, and
+     * changes made during the read are replayed from the change feed after
+     * it; only then are list queries answered from memory. A read that comes
+     * back short of the table's row count is taken as failed and retried on
+     * the next call.
+     */
+    public void warmUp() {
+        long clearsBefore;
+        synchronized (this) {
+            if (warmed) {
+                return;
+            }
+            warmed = true;
+            clearsBefore = clears;
+        }
+        // position the cursor first so changes made during the load are replayed
+        ChangeCursor start = new ChangeCursor(delegate.getLatestChangeSeq());
+        int count = delegate.countApplications();
+        List<Application> all = count >= 0 && count <= maxEntries ? delegate.getAllApplications() : null;
+        // The DAO reports a failed read as an empty or short list; compare with the count
+        // before and after, so rows added or deleted meanwhile aren't taken for a failure
+        if (all != null && all.size() != count && all.size() != delegate.countApplications()) {
+            synchronized (this) {
+                if (clears == clearsBefore) {
+                    warmed = false; // the next call tries again
+                }
+            }
+            return;
+        }
+        long evictedBefore;
+        synchronized (this) {
+            if (clears != clearsBefore) {
+                return; // cleared meanwhile; the next call loads again
+            }
+            cursor = start;
+            evictedBefore = rows.evictions();
+            if (all != null) {
+                all.forEach(this::putIfNewer);
+            }
+        }
+        syncWithFeed(true);
+        synchronized (this) {
+            complete = all != null && clears == clearsBefore && rows.evictions() == evictedBefore;
+        }
+    }
+
+    private void revalidateIfStale() {
+        syncWithFeed(false);
+    }
+
+    /**
+     * Tails the change feed into the cache, if it is due (or forced) and no
+     * other thread is already at it. The feed is read without the lock.
+     */
+    private void syncWithFeed(boolean force) {
+        ChangeCursor from;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (cursor == null || syncing || (!force && (revalidateAfterMillis <= 0
+                    || now - lastSyncMillis < revalidateAfterMillis))) {
+                return;
+            }
+            syncing = true;
+            lastSyncMillis = now;
+            from = cursor;
+        }
+        try {
+            while (true) {
+                long before = from.getPosition();
+                List<Change> changes = from.poll(delegate, REVALIDATE_BATCH);
+                apply(changes);
+                if (changes.size() < REVALIDATE_BATCH || from.getPosition() == before) {
+                    break; // caught up, or waiting at a gap
+                }
+            }
+        } finally {
+            synchronized (this) {
+                syncing = false;
+            }
+        }
+    }
+
+    // Caches rows read from the delegate, unless the cache changed while they were read
+    private synchronized void fill(List<Application> apps, long since) {
+        if (generation == since) {
+            apps.forEach(this::putIfNewer);
+        }
+    }
+
+    // A row as the delegate just stored it
+    private synchronized void stored(Application app) {
+        putIfNewer(app);
+        generation++;
+    }
+
+    // Replaces a cached row with the stored one, or drops it (current null): after a
+    // delete, or an update the delegate accepted but never wrote (write-behind)
+    private synchronized void forget(int id, Application current) {
+        if (current == null) {
+            rows.remove(id);
+        } else {
+            put(current);
+        }
+        generation++;
+    }
+
+    private synchronized void apply(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (Change change : changes) {
+            if (change.isDeleted()) {
+                rows.remove(change.getId());
+            } else {
+                putIfNewer(change.getApplication());
+            }
+        }
+        generation++;
+    }
+
+    private void putIfNewer(Application app) {
+        Application cached = rows.get(app.getId());
+        if (cached == null || cached.getVersion() <= app.getVersion()) {
+            put(app);
+        }
+    }
+
+    private void put(Application app) {
+        long evictedBefore = rows.evictions();
+        rows.put(app);
+        if (rows.evictions() != evictedBefore) {
+            complete = false;
+        }
+    }
+}
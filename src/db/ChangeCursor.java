@@ -0,0 +1,54 @@
+package db;
+
+import java.util.List;
+
+/**
+ * Position of one reader in a repository's change feed.
+ *
+ * Feed sequence numbers come from AUTO_INCREMENT, so a transaction can
+ * commit a lower number after a higher one is already visible. The cursor
+ * therefore only advances over contiguous numbers; at a gap it waits up to
+ * GAP_TIMEOUT_MILLIS for the missing entry (a rolled back insert never
+ * shows up) before moving past it. Entries beyond a gap are still returned,
+ * and again on later polls until the cursor passes them, which is harmless
+ * since entries carry current state.
+ */
+public class ChangeCursor {
+
+    static final long GAP_TIMEOUT_MILLIS = 10_000;
+
+    private long position;
+    private long waitingFor = -1;
+    private long waitingSince;
+
+    /** Starts after the given sequence number, e.g. ApplicationRepository.getLatestChangeSeq(). */
+    public ChangeCursor(long position) {
+        this.position = position;
+    }
+
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /** Fetches up to limit entries past the cursor and advances it as far as it safely can. */
+    public synchronized List<ApplicationRepository.Change> poll(ApplicationRepository repo, int limit) {
+        List<ApplicationRepository.Change> changes = repo.getChangesAfter(position, limit);
+        long now = System.currentTimeMillis();
+        long next = position + 1;
+        for (ApplicationRepository.Change change : changes) {
+            if (change.getSeq() > next) {
+                if (waitingFor != next) {
+                    waitingFor = next;
+                    waitingSince = now;
+                    break;
+                }
+                if (now - waitingSince < GAP_TIMEOUT_MILLIS) {
+                    break;
+                }
+            }
+            next = change.getSeq() + 1;
+        }
+        position = next - 1;
+        return changes;
+    }
+}
@@ -0,0 +1,48 @@
+package db;
+
+import model.Application;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** Listener list shared by the repository implementations. */
+class ChangeListeners {
+
+    private final List<ApplicationRepository.ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    void add(ApplicationRepository.ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    void remove(ApplicationRepository.ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    void saved(Application app) {
+        for (ApplicationRepository.ChangeListener l : listeners) {
+            l.applicationSaved(app);
+        }
+    }
+
+    void deleted(int id) {
+        for (ApplicationRepository.ChangeListener l : listeners) {
+            l.applicationDeleted(id);
+        }
+    }
+
+    void replaced() {
+        for (ApplicationRepository.ChangeListener l : listeners) {
+            l.applicationsReplaced();
+        }
+    }
+
+    void dropped(Application queued, Application current) {
+        for (ApplicationRepository.ChangeListener l : listeners) {
+            l.updateDropped(queued, current);
+        }
+    }
+}
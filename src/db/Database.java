@@ -1,15 +1,339 @@
 package db;
+import metrics.Metrics;
+import metrics.Operation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
+/**
+ * Small bounded JDBC connection pool for the tracker database.
+ *
+ * connect() hands out a pooled connection; closing it returns the physical
+ * connection to the pool instead of tearing it down, so callers keep using
+ * try-with-resources exactly as before. Prepared statements are cached per
+ * physical connection by the MySQL driver (cachePrepStmts), which pays off
+ * now that connections live across calls.
+ */
 public class Database {
 
-private static final String URL = "jdbc:mysql://localhost:3306/job_tracker";
+    private static final String URL = "jdbc:mysql://localhost:3306/job_tracker"
+            + "?cachePrepStmts=true&prepStmtCacheSize=64&prepStmtCacheSqlLimit=2048&useServerPrepStmts=true"
+            + "&rewriteBatchedStatements=true"  // send JDBC batches as multi-row INSERTs
+            + "&useCursorFetch=true";           // honour setFetchSize with a server-side cursor
     private static final String USERNAME = "root";
     private static final String PASSWORD = "****"; // Don't forget to hide this
 
+    // Pool settings
+    private static final int MAX_POOL_SIZE = 8;
+    private static final long BORROW_TIMEOUT_MS = 5_000;
+    private static final long IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static final long MAX_LIFETIME_MS = 30 * 60_000;
+    private static final long VALIDATION_INTERVAL_MS = 500;  // skip the ping for connections used this recently
+    private static final int VALIDATION_TIMEOUT_S = 2;
+
+    private static final Semaphore permits = new Semaphore(MAX_POOL_SIZE, true);
+    private static final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private static final AtomicInteger active = new AtomicInteger();
+    private static final AtomicLong borrows = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+    private static final AtomicLong created = new AtomicLong();
+
+    // Time to hand out a connection: waiting for a permit, validating or opening one
+    private static final Operation acquire = Metrics.operation("db.connect");
+
+    private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-pool-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        evictor.scheduleWithFixedDelay(Database::evictIdle, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle.
+     * Blocks for up to BORROW_TIMEOUT_MS when the pool is exhausted.
+     */
     public static Connection connect() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                acquire.failed();
+                acquire.stop(start);
+                throw new SQLTransientConnectionException(
+                        "Timed out after " + BORROW_TIMEOUT_MS + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pc = takeValidIdle();
+            if (pc == null) {
+                pc = new PooledConnection(DriverManager.getConnection(URL, USERNAME, PASSWORD));
+                created.incrementAndGet();
+            }
+            active.incrementAndGet();
+            acquire.stop(start);
+            return pc.handle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            acquire.failed();
+            acquire.stop(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a new physical connection outside the pool, which the caller
+     * closes. Only for comparing against connect(), as bench.ConnectionBenchmark
+     * does; everything else borrows from the pool.
+     */
+    public static Connection connectUnpooled() throws SQLException {
         return DriverManager.getConnection(URL, USERNAME, PASSWORD);
     }
-    
+
+    /**
+     * Opens one connection into the pool ahead of the first query, so loading
+     * the driver and logging in can overlap with other startup work.
+     */
+    public static void warmUp() {
+        try {
+            connect().close();
+        } catch (SQLException e) {
+            System.out.println("Error connecting to the database: " + e.getMessage());
+        }
+    }
+
+    /** Snapshot of the pool counters. */
+    public static PoolStats getStats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        long n = borrows.get();
+        return new PoolStats(active.get(), idleCount, created.get(), n,
+                n == 0 ? 0 : totalWaitNanos.get() / n / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    /** Closes every idle connection; connections still in use are closed when returned. */
+    public static void shutdown() {
+        evictor.shutdownNow();
+        synchronized (idle) {
+            for (PooledConnection pc : idle) {
+                pc.closeQuietly();
+            }
+            idle.clear();
+        }
+    }
+
+    private static PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection pc;
+            synchronized (idle) {
+                pc = idle.pollFirst(); // most recently used first keeps the rest eligible for eviction
+            }
+            if (pc == null) {
+                return null;
+            }
+            if (pc.isExpired(System.currentTimeMillis()) || !pc.validate()) {
+                pc.closeQuietly();
+                continue;
+            }
+            return pc;
+        }
+    }
+
+    private static void release(PooledConnection pc, boolean broken) {
+        active.decrementAndGet();
+        try {
+            if (broken || !pc.reset() || pc.isExpired(System.currentTimeMillis())) {
+                pc.closeQuietly();
+            } else {
+                pc.lastUsed = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.addFirst(pc);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsed > IDLE_TIMEOUT_MS || pc.isExpired(now)) {
+                    it.remove();
+                    pc.closeQuietly();
+                }
+            }
+        }
+    }
+
+    private static void recordWait(long nanos) {
+        borrows.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** A physical connection plus the bookkeeping the pool needs. */
+    private static final class PooledConnection {
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsed = createdAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        boolean isExpired(long now) {
+            return now - createdAt > MAX_LIFETIME_MS;
+        }
+
+        boolean validate() {
+            if (System.currentTimeMillis() - lastUsed < VALIDATION_INTERVAL_MS) {
+                return true;
+            }
+            try {
+                return physical.isValid(VALIDATION_TIMEOUT_S);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /** Puts the connection back into the state a fresh borrower expects. */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // already gone
+            }
+        }
+
+        /**
+         * Wraps the physical connection so close() returns it to the pool.
+         * Each borrow gets its own handle so a stale reference can't close
+         * a connection someone else is now using.
+         */
+        Connection handle() {
+            boolean[] closed = {false};
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                release(this, false);
+                            }
+                            return null;
+                        case "isClosed":
+                            return closed[0] || physical.isClosed();
+                        case "abort":
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                release(this, true);
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled[" + physical + "]";
+                        default:
+                            if (closed[0]) {
+                                throw new SQLException("Connection has been returned to the pool");
+                            }
+                            try {
+                                return method.invoke(physical, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+        }
+    }
+
+    /** Point-in-time pool counters, mainly for diagnostics. */
+    public static final class PoolStats {
+        private final int active;
+        private final int idle;
+        private final long created;
+        private final long borrows;
+        private final double avgWaitMillis;
+        private final double maxWaitMillis;
+
+        PoolStats(int active, int idle, long created, long borrows, double avgWaitMillis, double maxWaitMillis) {
+            this.active = active;
+            this.idle = idle;
+            this.created = created;
+            this.borrows = borrows;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public int getActive() {
+            return active;
+        }
+        public int getIdle() {
+            return idle;
+        }
+        public long getCreated() {
+            return created;
+        }
+        public long getBorrows() {
+            return borrows;
+        }
+        public double getAvgWaitMillis() {
+            return avgWaitMillis;
+        }
+        public double getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PoolStats{active=%d, idle=%d, created=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms}",
+                    active, idle, created, borrows, avgWaitMillis, maxWaitMillis);
+        }
+    }
+
 }
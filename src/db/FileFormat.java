@@ -0,0 +1,282 @@
+package db;
+
+import model.Application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File formats for bulk import and export. Both are read one record at a
+ * time so files of any size can be streamed.
+ *
+ * CSV files start with a header naming the columns (company, position,
+ * application_date, status, notes; id is ignored on import). JSON Lines
+ * files hold one flat object per line with the same keys.
+ */
+public enum FileFormat {
+    CSV, JSON_LINES;
+
+    static final String[] FIELDS = {"id", "company", "position", "application_date", "status", "notes"};
+
+    /** Picks the format from the file extension: .jsonl/.ndjson for JSON Lines, anything else is CSV. */
+    public static FileFormat forPath(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSON_LINES : CSV;
+    }
+
+    // ---- reading ----
+
+    /** Streams records out of a file, one field map per call. */
+    interface RecordReader {
+        /** Next record as field name to value, or null at end of input. */
+        Map<String, String> next() throws IOException;
+    }
+
+    RecordReader reader(BufferedReader in) throws IOException {
+        if (this == JSON_LINES) {
+            return () -> {
+                String line;
+                do {
+                    line = in.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                } while (line.isBlank());
+                return parseJsonObject(line);
+            };
+        }
+        List<String> header = readCsvRecord(in);
+        if (header == null) {
+            return () -> null;
+        }
+        return () -> {
+            List<String> values = readCsvRecord(in);
+            if (values == null) {
+                return null;
+            }
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                record.put(header.get(i).trim().toLowerCase(), values.get(i));
+            }
+            return record;
+        };
+    }
+
+    /** Reads one CSV record, following quoted fields across line breaks. Returns null at end of input. */
+    static List<String> readCsvRecord(BufferedReader in) throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted CSV field");
+                }
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                in.mark(1);
+                if (in.read() != '\n') {
+                    in.reset();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** Parses a flat JSON object whose values are strings, numbers, booleans or null. */
+    static Map<String, String> parseJsonObject(String line) throws IOException {
+        Map<String, String> record = new HashMap<>();
+        int[] pos = {skipSpace(line, 0)};
+        expect(line, pos, '{');
+        if (peek(line, pos) == '}') {
+            return record;
+        }
+        while (true) {
+            String key = parseJsonString(line, pos);
+            expect(line, pos, ':');
+            pos[0] = skipSpace(line, pos[0]);
+            String value;
+            if (peek(line, pos) == '"') {
+                value = parseJsonString(line, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < line.length() && ",} \t".indexOf(line.charAt(pos[0])) < 0) {
+                    pos[0]++;
+                }
+                String literal = line.substring(start, pos[0]);
+                value = "null".equals(literal) ? null : literal;
+            }
+            record.put(key, value);
+            pos[0] = skipSpace(line, pos[0]);
+            if (peek(line, pos) == ',') {
+                pos[0]++;
+                continue;
+            }
+            expect(line, pos, '}');
+            return record;
+        }
+    }
+
+    private static String parseJsonString(String s, int[] pos) throws IOException {
+        expect(s, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        int i = pos[0];
+        while (i < s.length()) {
+            char c = s.charAt(i++);
+            if (c == '"') {
+                pos[0] = i;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i >= s.length()) {
+                break;
+            }
+            char e = s.charAt(i++);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 > s.length()) {
+                        throw new IOException("Bad \\u escape in JSON string");
+                    }
+                    sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default: sb.append(e); // \" \\ \/
+            }
+        }
+        throw new IOException("Unterminated JSON string");
+    }
+
+    private static void expect(String s, int[] pos, char c) throws IOException {
+        pos[0] = skipSpace(s, pos[0]);
+        if (pos[0] >= s.length() || s.charAt(pos[0]) != c) {
+            throw new IOException("Expected '" + c + "' at column " + (pos[0] + 1));
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String s, int[] pos) {
+        pos[0] = skipSpace(s, pos[0]);
+        return pos[0] < s.length() ? s.charAt(pos[0]) : '\0';
+    }
+
+    private static int skipSpace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // ---- writing ----
+
+    void writeHeader(Writer out) throws IOException {
+        if (this == CSV) {
+            out.write(String.join(",", FIELDS));
+            out.write('\n');
+        }
+    }
+
+    void write(Writer out, Application app) throws IOException {
+        String[] values = {String.valueOf(app.getId()), app.getCompany(), app.getPosition(),
+                app.getApplicationDate().toString(), app.getStatus().getLabel(), app.getNotes()};
+        if (this == CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeCsvField(out, values[i]);
+            }
+        } else {
+            out.write("{\"id\":");
+            out.write(values[0]);
+            for (int i = 1; i < values.length; i++) {
+                out.write(",\"");
+                out.write(FIELDS[i]);
+                out.write("\":");
+                writeJsonString(out, values[i]);
+            }
+            out.write('}');
+        }
+        out.write('\n');
+    }
+
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
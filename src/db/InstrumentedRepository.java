@@ -0,0 +1,322 @@
+package db;
+
+import metrics.Metrics;
+import metrics.Operation;
+import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+import snapshot.ApplicationSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Wraps another repository and times every call into Metrics, as operations
+ * named prefix.method (e.g. mysql.getApplicationsPage), counting the rows
+ * returned and the calls that threw. A StaleUpdateException is an answer,
+ * not a failure, and is not counted as an error.
+ *
+ * Backends puts one directly around the storage backend, below the cache,
+ * so the numbers are real database or file work. Recording allocates
+ * nothing; see LatencyHistogram.
+ */
+public class InstrumentedRepository implements ApplicationRepository {
+
+    private final ApplicationRepository delegate;
+    private final Operation all, page, count, one, many, search, changes, latestChange,
+            history, funnel, interviews, add, delete, update, importing, forEach, snapshot,
+            updateStatus, deleteMany;
+
+    public InstrumentedRepository(String prefix, ApplicationRepository delegate) {
+        this.delegate = delegate;
+        this.all = Metrics.operation(prefix + ".getAllApplications");
+        this.page = Metrics.operation(prefix + ".getApplicationsPage");
+        this.count = Metrics.operation(prefix + ".countApplications");
+        this.one = Metrics.operation(prefix + ".getApplication");
+        this.many = Metrics.operation(prefix + ".getApplications");
+        this.search = Metrics.operation(prefix + ".searchApplications");
+        this.changes = Metrics.operation(prefix + ".getChangesAfter");
+        this.latestChange = Metrics.operation(prefix + ".getLatestChangeSeq");
+        this.history = Metrics.operation(prefix + ".getStatusHistory");
+        this.funnel = Metrics.operation(prefix + ".getStatusFunnel");
+        this.interviews = Metrics.operation(prefix + ".getInterviewTimes");
+        this.add = Metrics.operation(prefix + ".addApplication");
+        this.delete = Metrics.operation(prefix + ".deleteApplication");
+        this.update = Metrics.operation(prefix + ".updateApplication");
+        this.importing = Metrics.operation(prefix + ".importFile");
+        this.forEach = Metrics.operation(prefix + ".forEach");
+        this.snapshot = Metrics.operation(prefix + ".loadSnapshot");
+        this.updateStatus = Metrics.operation(prefix + ".updateStatus");
+        this.deleteMany = Metrics.operation(prefix + ".deleteApplications");
+    }
+
+    /** The wrapped repository. */
+    public ApplicationRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        delegate.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        delegate.removeChangeListener(listener);
+    }
+
+    @Override
+    public List<Application> getAllApplications() {
+        long start = System.nanoTime();
+        try {
+            return rows(all, start, delegate.getAllApplications());
+        } catch (RuntimeException e) {
+            throw failed(all, start, e);
+        }
+    }
+
+    @Override
+    public List<Application> getApplicationsPage(Status status, SortKey sort, Application after, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            return rows(page, start, delegate.getApplicationsPage(status, sort, after, pageSize));
+        } catch (RuntimeException e) {
+            throw failed(page, start, e);
+        }
+    }
+
+    @Override
+    public int countApplications() {
+        long start = System.nanoTime();
+        try {
+            int n = delegate.countApplications();
+            count.stop(start);
+            return n;
+        } catch (RuntimeException e) {
+            throw failed(count, start, e);
+        }
+    }
+
+    @Override
+    public Application getApplication(int id) {
+        long start = System.nanoTime();
+        try {
+            Application app = delegate.getApplication(id);
+            one.stop(start, app == null ? 0 : 1);
+            return app;
+        } catch (RuntimeException e) {
+            throw failed(one, start, e);
+        }
+    }
+
+    @Override
+    public List<Application> getApplications(int[] ids) {
+        long start = System.nanoTime();
+        try {
+            return rows(many, start, delegate.getApplications(ids));
+        } catch (RuntimeException e) {
+            throw failed(many, start, e);
+        }
+    }
+
+    @Override
+    public List<Application> searchApplications(String text, int limit) {
+        long start = System.nanoTime();
+        try {
+            return rows(search, start, delegate.searchApplications(text, limit));
+        } catch (RuntimeException e) {
+            throw failed(search, start, e);
+        }
+    }
+
+    @Override
+    public List<Change> getChangesAfter(long after, int limit) {
+        long start = System.nanoTime();
+        try {
+            return rows(changes, start, delegate.getChangesAfter(after, limit));
+        } catch (RuntimeException e) {
+            throw failed(changes, start, e);
+        }
+    }
+
+    @Override
+    public long getLatestChangeSeq() {
+        long start = System.nanoTime();
+        try {
+            long seq = delegate.getLatestChangeSeq();
+            latestChange.stop(start);
+            return seq;
+        } catch (RuntimeException e) {
+            throw failed(latestChange, start, e);
+        }
+    }
+
+    @Override
+    public List<StatusEvent> getStatusHistory(int id) {
+        long start = System.nanoTime();
+        try {
+            return rows(history, start, delegate.getStatusHistory(id));
+        } catch (RuntimeException e) {
+            throw failed(history, start, e);
+        }
+    }
+
+    @Override
+    public StatusFunnel getStatusFunnel(Instant from, Instant to) {
+        long start = System.nanoTime();
+        try {
+            StatusFunnel result = delegate.getStatusFunnel(from, to);
+            funnel.stop(start);
+            return result;
+        } catch (RuntimeException e) {
+            throw failed(funnel, start, e);
+        }
+    }
+
+    @Override
+    public Map<Integer, Instant> getInterviewTimes() {
+        long start = System.nanoTime();
+        try {
+            Map<Integer, Instant> result = delegate.getInterviewTimes();
+            interviews.stop(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            throw failed(interviews, start, e);
+        }
+    }
+
+    @Override
+    public int addApplication(Application app) {
+        long start = System.nanoTime();
+        try {
+            int id = delegate.addApplication(app);
+            add.stop(start, id < 0 ? 0 : 1);
+            return id;
+        } catch (RuntimeException e) {
+            throw failed(add, start, e);
+        }
+    }
+
+    @Override
+    public void deleteApplication(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteApplication(id);
+            delete.stop(start);
+        } catch (RuntimeException e) {
+            throw failed(delete, start, e);
+        }
+    }
+
+    @Override
+    public Application updateApplication(Application app) {
+        long start = System.nanoTime();
+        try {
+            Application saved = delegate.updateApplication(app);
+            update.stop(start, saved == null ? 0 : 1);
+            return saved;
+        } catch (RuntimeException e) {
+            throw failed(update, start, e);
+        }
+    }
+
+    @Override
+    public ApplicationImporter.ImportResult importFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        try {
+            ApplicationImporter.ImportResult result = delegate.importFile(file);
+            importing.stop(start, result.getImported());
+            return result;
+        } catch (IOException e) {
+            importing.failed();
+            importing.stop(start);
+            throw e;
+        } catch (RuntimeException e) {
+            throw failed(importing, start, e);
+        }
+    }
+
+    @Override
+    public void forEach(SortKey sort, Consumer<Application> action) {
+        long start = System.nanoTime();
+        long[] n = new long[1];
+        try {
+            delegate.forEach(sort, app -> {
+                n[0]++;
+                action.accept(app);
+            });
+            forEach.stop(start, n[0]);
+        } catch (RuntimeException e) {
+            throw failed(forEach, start, e);
+        }
+    }
+
+    @Override
+    public void forEach(Criteria criteria, SortKey sort, Consumer<Application> action) {
+        long start = System.nanoTime();
+        long[] n = new long[1];
+        try {
+            delegate.forEach(criteria, sort, app -> {
+                n[0]++;
+                action.accept(app);
+            });
+            forEach.stop(start, n[0]);
+        } catch (RuntimeException e) {
+            throw failed(forEach, start, e);
+        }
+    }
+
+    @Override
+    public int updateStatus(Criteria criteria, Status status) {
+        long start = System.nanoTime();
+        try {
+            int changed = delegate.updateStatus(criteria, status);
+            updateStatus.stop(start, Math.max(0, changed));
+            return changed;
+        } catch (RuntimeException e) {
+            throw failed(updateStatus, start, e);
+        }
+    }
+
+    @Override
+    public int deleteApplications(Criteria criteria) {
+        long start = System.nanoTime();
+        try {
+            int deleted = delegate.deleteApplications(criteria);
+            deleteMany.stop(start, Math.max(0, deleted));
+            return deleted;
+        } catch (RuntimeException e) {
+            throw failed(deleteMany, start, e);
+        }
+    }
+
+    @Override
+    public ApplicationSnapshot loadSnapshot() {
+        long start = System.nanoTime();
+        try {
+            ApplicationSnapshot s = delegate.loadSnapshot();
+            snapshot.stop(start, s.size());
+            return s;
+        } catch (RuntimeException e) {
+            throw failed(snapshot, start, e);
+        }
+    }
+
+    private static <T extends List<?>> T rows(Operation op, long start, T result) {
+        op.stop(start, result.size());
+        return result;
+    }
+
+    private static RuntimeException failed(Operation op, long start, RuntimeException e) {
+        if (!(e instanceof StaleUpdateException)) {
+            op.failed();
+        }
+        op.stop(start);
+        return e;
+    }
+}
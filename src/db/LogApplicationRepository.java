@@ -0,0 +1,580 @@
+package db;
+
+import history.StatusEventStore;
+import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+import search.SearchIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Embedded repository that needs no database server: every change is appended
+ * to a LogFile in the data directory and all rows are held in memory.
+ *
+ * On startup the log is replayed (through memory-mapped segments) into a
+ * RowIndex, which then answers every read. Writes return once their record
+ * has been forced to disk; concurrent writers share fsyncs. A change reaches
+ * the RowIndex and the change feed only after its fsync succeeds, and a
+ * write to a row whose earlier change is still being forced waits for it,
+ * so a failed fsync leaves nothing behind in memory. Updates and
+ * deletes leave dead records behind, so a background task rewrites the log
+ * with only live rows once more than half of it is garbage.
+ *
+ * Status changes go to a separate StatusEventStore. It is written with the
+ * row but forced only on close; on startup any row whose status differs from
+ * the last recorded event (after a crash, or a data directory from before the
+ * history existed) gets an event at its updated_at.
+ */
+public class LogApplicationRepository implements ApplicationRepository {
+
+    public static final String LOG_FILE = "applications.log";
+    public static final String EVENTS_FILE = "status.events";
+
+    private static final long COMPACT_CHECK_SECONDS = 60;
+    private static final long COMPACT_MIN_RECORDS = 10_000;
+    private static final int FEED_CAPACITY = 100_000;
+
+    private final LogFile log;
+    private final StatusEventStore events;
+    private final RowIndex rows = new RowIndex();
+    private final ChangeListeners listeners = new ChangeListeners();
+    private final ScheduledExecutorService compactor;
+
+    // Lowest id never handed out; kept across compactions, so deleted ids are never reused
+    private int nextId = 1;
+
+    // Change feed for this process: the last FEED_CAPACITY changed ids by
+    // seq. Starts empty on each start; there are no other clients to catch up.
+    private long changeSeq;
+    private final TreeMap<Long, Integer> feed = new TreeMap<>();
+
+    // Rows appended to the log but not yet forced, by id; null for a delete.
+    // They are applied to rows by settle() once the sync has succeeded.
+    private final Map<Integer, Application> pending = new HashMap<>();
+
+    /** Opens (or creates) the log in dataDir and loads it into memory. */
+    public LogApplicationRepository(Path dataDir) throws IOException {
+        this.log = new LogFile(dataDir.resolve(LOG_FILE));
+        log.replay(new LogFile.Replay() {
+            public void put(Application app) { apply(app); }
+            public void delete(int id) { rows.remove(id); reserve(id + 1); }
+            public void nextId(int id) { reserve(id); }
+        });
+        this.events = new StatusEventStore(dataDir.resolve(EVENTS_FILE));
+        catchUpStatusEvents();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfWorthwhile,
+                COMPACT_CHECK_SECONDS, COMPACT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized List<Application> getAllApplications() {
+        return new ArrayList<>(rows.newestFirst());
+    }
+
+    @Override
+    public synchronized List<Application> getApplicationsPage(Status status, SortKey sort, Application after, int pageSize) {
+        return rows.page(status, sort, after, pageSize);
+    }
+
+    @Override
+    public synchronized int countApplications() {
+        return rows.size();
+    }
+
+    @Override
+    public synchronized Application getApplication(int id) {
+        return rows.get(id);
+    }
+
+    @Override
+    public synchronized List<Application> getApplications(int[] ids) {
+        List<Application> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Application app = rows.get(id);
+            if (app != null) {
+                found.add(app);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Application> searchApplications(String text, int limit) {
+        List<Application> hits = new ArrayList<>();
+        for (Application app : snapshot()) {
+            if (SearchIndex.matches(app, text)) {
+                hits.add(app);
+            }
+        }
+        hits.sort(SortKey.ID.comparator().reversed());
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    @Override
+    public synchronized List<Change> getChangesAfter(long after, int limit) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<Long, Integer> e : feed.tailMap(after, false).entrySet()) {
+            if (changes.size() == limit) {
+                break;
+            }
+            changes.add(new Change(e.getKey(), e.getValue(), rows.get(e.getValue())));
+        }
+        return changes;
+    }
+
+    @Override
+    public synchronized long getLatestChangeSeq() {
+        return changeSeq;
+    }
+
+    @Override
+    public List<StatusEvent> getStatusHistory(int id) {
+        return events.timeline(id);
+    }
+
+    @Override
+    public StatusFunnel getStatusFunnel(Instant from, Instant to) {
+        return events.funnel(from, to);
+    }
+
+    @Override
+    public Map<Integer, Instant> getInterviewTimes() {
+        return events.firstReached(EnumSet.of(Status.INTERVIEWED, Status.ACCEPTED));
+    }
+
+    @Override
+    public int addApplication(Application app) {
+        if (app.getStatus() == null) {
+            System.out.println("Error adding application: it has no status");
+            return -1;
+        }
+        List<Integer> appended = new ArrayList<>(1);
+        boolean durable = false;
+        Application stored;
+        try {
+            long end;
+            synchronized (this) {
+                stored = copy(nextId, app, 1);
+                end = log.put(stored);
+                reserve(stored.getId() + 1);
+                appended(stored.getId(), stored, appended);
+            }
+            log.sync(end);
+            durable = true;
+        } catch (IOException e) {
+            System.out.println("Error adding application: " + e.getMessage());
+            return -1;
+        } finally {
+            settle(appended, durable);
+        }
+        listeners.saved(stored);
+        return stored.getId();
+    }
+
+    @Override
+    public void deleteApplication(int id) {
+        List<Integer> appended = new ArrayList<>(1);
+        boolean durable = false;
+        try {
+            long end;
+            synchronized (this) {
+                awaitPending(id);
+                if (rows.get(id) == null) {
+                    return;
+                }
+                end = log.delete(id);
+                appended(id, null, appended);
+            }
+            log.sync(end);
+            durable = true;
+        } catch (IOException e) {
+            System.out.println("Error deleting application: " + e.getMessage());
+            return;
+        } finally {
+            settle(appended, durable);
+        }
+        listeners.deleted(id);
+    }
+
+    @Override
+    public Application updateApplication(Application app) {
+        if (app.getStatus() == null) {
+            System.out.println("Error updating application " + app.getId() + ": it has no status");
+            return null;
+        }
+        List<Integer> appended = new ArrayList<>(1);
+        boolean durable = false;
+        Application stored;
+        try {
+            long end;
+            synchronized (this) {
+                awaitPending(app.getId());
+                Application current = rows.get(app.getId());
+                if (current == null) {
+                    return null;
+                }
+                if (current.getVersion() != app.getVersion()) {
+                    throw new StaleUpdateException(current);
+                }
+                stored = copy(app.getId(), app, current.getVersion() + 1);
+                end = log.put(stored);
+                appended(stored.getId(), stored, appended);
+            }
+            log.sync(end);
+            durable = true;
+        } catch (IOException e) {
+            System.out.println("Error updating application: " + e.getMessage());
+            return null;
+        } finally {
+            settle(appended, durable);
+        }
+        listeners.saved(stored);
+        return stored;
+    }
+
+    /** Appends every valid record, then syncs once at the end; the rows appear together. */
+    @Override
+    public ApplicationImporter.ImportResult importFile(Path file) throws IOException {
+        ApplicationImporter.ImportResult result = new ApplicationImporter.ImportResult();
+        List<Integer> appended = new ArrayList<>();
+        long end = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            FileFormat.RecordReader records = FileFormat.forPath(file).reader(in);
+            long record = 0;
+            while (true) {
+                Map<String, String> fields;
+                try {
+                    fields = records.next();
+                } catch (IOException e) {
+                    record++;
+                    result.countRejected();
+                    result.addError("Record " + record + ": " + e.getMessage());
+                    continue;
+                }
+                if (fields == null) {
+                    break;
+                }
+                record++;
+                Application app;
+                try {
+                    app = ApplicationImporter.toApplication(fields);
+                } catch (IllegalArgumentException e) {
+                    if (!ApplicationImporter.isBlank(fields)) {
+                        result.countRejected();
+                        result.addError("Record " + record + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+                synchronized (this) {
+                    Application stored = copy(nextId, app, 1);
+                    end = log.put(stored);
+                    reserve(stored.getId() + 1);
+                    appended(stored.getId(), stored, appended);
+                }
+                result.countImported(1);
+            }
+        } finally {
+            boolean durable = false;
+            try {
+                if (end > 0) {
+                    log.sync(end);
+                }
+                durable = true;
+            } finally {
+                settle(appended, durable);
+                listeners.replaced();
+            }
+        }
+
+        System.out.println("Imported " + result.getImported() + " application(s), "
+                + result.getRejected() + " not imported.");
+        return result;
+    }
+
+    @Override
+    public void forEach(SortKey sort, Consumer<Application> action) {
+        List<Application> all = snapshot();
+        all.sort(sort.comparator());
+        all.forEach(action);
+    }
+
+    @Override
+    public void forEach(Criteria criteria, SortKey sort, Consumer<Application> action) {
+        List<Application> matching = new ArrayList<>();
+        for (Application app : snapshot()) {
+            if (criteria.matches(app)) {
+                matching.add(app);
+            }
+        }
+        matching.sort(sort.comparator());
+        matching.forEach(action);
+    }
+
+    /** Appends a record per changed row, then syncs once at the end. */
+    @Override
+    public int updateStatus(Criteria criteria, Status status) {
+        if (status == null) {
+            System.out.println("Error updating applications: no status given");
+            return -1;
+        }
+        List<Application> changed = new ArrayList<>();
+        List<Integer> appended = new ArrayList<>();
+        boolean durable = false;
+        long end = 0;
+        try {
+            synchronized (this) {
+                awaitNoPending();
+                for (Application current : rows.newestFirst()) {
+                    if (current.getStatus() != status && criteria.matches(current)) {
+                        changed.add(current);
+                    }
+                }
+                for (Application current : changed) {
+                    Application stored = copy(current.getId(), current, current.getVersion() + 1);
+                    stored.setStatus(status);
+                    end = log.put(stored);
+                    appended(stored.getId(), stored, appended);
+                }
+            }
+            if (end > 0) {
+                log.sync(end);
+            }
+            durable = true;
+        } catch (IOException e) {
+            System.out.println("Error updating applications: " + e.getMessage());
+            return -1;
+        } finally {
+            settle(appended, durable);
+        }
+        if (!changed.isEmpty()) {
+            listeners.replaced();
+        }
+        return changed.size();
+    }
+
+    /** Appends a delete record per matching row, then syncs once at the end. */
+    @Override
+    public int deleteApplications(Criteria criteria) {
+        List<Integer> deleted = new ArrayList<>();
+        List<Integer> appended = new ArrayList<>();
+        boolean durable = false;
+        long end = 0;
+        try {
+            synchronized (this) {
+                awaitNoPending();
+                for (Application app : rows.newestFirst()) {
+                    if (criteria.matches(app)) {
+                        deleted.add(app.getId());
+                    }
+                }
+                for (int id : deleted) {
+                    end = log.delete(id);
+                    appended(id, null, appended);
+                }
+            }
+            if (end > 0) {
+                log.sync(end);
+            }
+            durable = true;
+        } catch (IOException e) {
+            System.out.println("Error deleting applications: " + e.getMessage());
+            return -1;
+        } finally {
+            settle(appended, durable);
+        }
+        if (!deleted.isEmpty()) {
+            listeners.replaced();
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Rewrites the log with one PUT per live row and atomically swaps it in.
+     * Readers and writers wait while it runs.
+     */
+    public synchronized void compact() throws IOException {
+        List<Application> live = new ArrayList<>(rows.newestFirst());
+        if (!pending.isEmpty()) {
+            // changes appended but not yet settled are in the log being replaced; keep them
+            live.removeIf(app -> pending.containsKey(app.getId()));
+            for (Application app : pending.values()) {
+                if (app != null) {
+                    live.add(app);
+                }
+            }
+        }
+        live.sort(SortKey.ID.comparator());
+        log.rewrite(nextId, live);
+        System.out.println("Compacted " + log.path() + " to " + live.size() + " record(s).");
+    }
+
+    /** Stops background compaction and closes the log and the status history. */
+    public synchronized void close() throws IOException {
+        compactor.shutdownNow();
+        log.close();
+        events.close();
+    }
+
+    private void compactIfWorthwhile() {
+        try {
+            boolean worthwhile;
+            synchronized (this) {
+                worthwhile = log.records() >= COMPACT_MIN_RECORDS && log.records() > 2L * rows.size();
+            }
+            if (worthwhile) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.out.println("Error compacting " + log.path() + ": " + e.getMessage());
+        }
+    }
+
+    // Records a change just appended to the log (app null for a delete) until settle()
+    private void appended(int id, Application app, List<Integer> appended) {
+        pending.put(id, app);
+        appended.add(id);
+    }
+
+    /**
+     * Applies the appended changes to the rows, the change feed and the status
+     * history once the log holds them (durable), or drops them if forcing it
+     * failed, and wakes writers waiting on those rows.
+     */
+    private synchronized void settle(List<Integer> appended, boolean durable) {
+        if (appended.isEmpty()) {
+            return;
+        }
+        for (int id : appended) {
+            Application app = pending.remove(id);
+            if (!durable) {
+                continue;
+            }
+            if (app == null) {
+                rows.remove(id);
+            } else {
+                apply(app);
+                Status before = events.current(id);
+                if (before != app.getStatus()) {
+                    recordStatus(app, before);
+                }
+            }
+            recordChange(id);
+        }
+        notifyAll();
+    }
+
+    // Waits (releasing the lock) until no change to the row is waiting for its fsync
+    private void awaitPending(int id) throws IOException {
+        while (pending.containsKey(id)) {
+            waitForSettle();
+        }
+    }
+
+    // Bulk changes wait for every single-row change in flight, so they never build on an unsettled row
+    private void awaitNoPending() throws IOException {
+        while (!pending.isEmpty()) {
+            waitForSettle();
+        }
+    }
+
+    private void waitForSettle() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a change to be written");
+        }
+    }
+
+    private void apply(Application app) {
+        rows.put(app);
+        reserve(app.getId() + 1);
+    }
+
+    private void reserve(int id) {
+        if (id > nextId) {
+            nextId = id;
+        }
+    }
+
+    // History is best effort: a lost event is put back by catchUpStatusEvents on the next start
+    private void recordStatus(Application stored, Status from) {
+        try {
+            events.append(stored.getId(), from, stored.getStatus(), stored.getUpdatedAt());
+        } catch (IOException e) {
+            System.out.println("Error recording status of application " + stored.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void catchUpStatusEvents() throws IOException {
+        List<Application> behind = new ArrayList<>();
+        for (Application app : rows.newestFirst()) {
+            if (app.getStatus() != null && events.current(app.getId()) != app.getStatus()) {
+                behind.add(app);
+            }
+        }
+        if (behind.isEmpty()) {
+            return;
+        }
+        behind.sort(Comparator.comparing(Application::getUpdatedAt));
+        for (Application app : behind) {
+            events.append(app.getId(), events.current(app.getId()), app.getStatus(), app.getUpdatedAt());
+        }
+        events.force();
+        System.out.println("Recorded " + behind.size() + " missing status event(s) in " + EVENTS_FILE + ".");
+    }
+
+    private void recordChange(int id) {
+        feed.put(++changeSeq, id);
+        if (feed.size() > FEED_CAPACITY) {
+            feed.pollFirstEntry();
+        }
+    }
+
+    private synchronized List<Application> snapshot() {
+        return new ArrayList<>(rows.newestFirst());
+    }
+
+    /** A private copy of the row as it will be stored, stamped with the current time. */
+    private static Application copy(int id, Application app, int version) {
+        Application stored = new Application(id, app.getCompany(), app.getPosition(),
+                app.getApplicationDate(), app.getStatus(), app.getNotes());
+        stored.setUpdatedAt(Instant.now());
+        stored.setVersion(version);
+        return stored;
+    }
+}
@@ -0,0 +1,386 @@
+package db;
+
+import model.Application;
+import model.Status;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of application records, shared by the embedded backend
+ * and the write-behind journal.
+ *
+ * Each record is [int length][int crc32][byte type][payload], where type is
+ * PUT (the whole row), DELETE (just the id) or NEXT_ID (the lowest id never
+ * handed out, written first by rewrite() so that ids of rows deleted before
+ * a compaction are not reused). A PUT ends with the row version; records
+ * written before versions existed lack it and read as 1. replay() reads the
+ * file through read-only mappings a segment at a time and cuts off a torn or
+ * corrupt tail left by a crash.
+ *
+ * The file is locked (through a ".lock" file beside it, which survives the
+ * rename in rewrite()) for as long as it is open, so a second process - the
+ * command line while the window is running, say - fails to open it instead
+ * of appending and compacting over the first one's records.
+ *
+ * put() and delete() only write; sync(offset) makes it durable. Concurrent callers
+ * share fsyncs (group commit): whichever thread finds no sync in progress
+ * forces everything appended so far and the others wait for it.
+ */
+class LogFile {
+
+    /** Receives records in file order during replay. */
+    interface Replay {
+        void put(Application app);
+        void delete(int id);
+        /** Ids below nextId have been handed out, whether or not a row still has them. */
+        default void nextId(int nextId) {
+        }
+    }
+
+    private static final byte PUT = 1, DELETE = 2, NEXT_ID = 3;
+    private static final int HEADER = 4 + 4;  // length, crc
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+    private static final long MAP_SEGMENT = 256L * 1024 * 1024;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final Status[] STATUSES = Status.values();
+
+    private final Path file;
+    private final FileChannel lockChannel;
+    private FileChannel channel;
+    private volatile long written;     // bytes ever appended, across rewrites
+    private long records;              // records in the file
+
+    private final Object syncLock = new Object();
+    private long durable;              // prefix of written known to be on disk
+    private boolean syncing;
+
+    LogFile(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.file = file;
+        this.lockChannel = lock(file.resolveSibling(file.getFileName() + ".lock"));
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return file;
+    }
+
+    /** Number of records in the file, live or superseded. */
+    synchronized long records() {
+        return records;
+    }
+
+    /** Feeds every intact record to the callback and positions the file for appending. */
+    synchronized void replay(Replay callback) throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        while (pos < size) {
+            long length = Math.min(MAP_SEGMENT, size - pos);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+            // a record cut by the segment boundary is picked up by the next
+            // mapping; nothing consumed means a torn or corrupt record
+            int consumed = replaySegment(segment, callback);
+            if (consumed == 0) {
+                break;
+            }
+            pos += consumed;
+        }
+        if (pos < size) {
+            System.out.println("Discarding " + (size - pos) + " unreadable byte(s) at the end of " + file);
+            channel.truncate(pos);
+        }
+        channel.position(pos);
+        written = pos;
+        synchronized (syncLock) {
+            durable = pos;
+        }
+    }
+
+    /** Appends a PUT and returns the offset to pass to sync. */
+    synchronized long put(Application app) throws IOException {
+        return append(encodePut(app));
+    }
+
+    /** Appends a DELETE and returns the offset to pass to sync. */
+    synchronized long delete(int id) throws IOException {
+        return append(encodeDelete(id));
+    }
+
+    /**
+     * Returns once the file is on disk up to offset. The first waiter to find
+     * no sync running forces everything written so far, covering the records
+     * of every thread that appended before it started.
+     */
+    void sync(long offset) throws IOException {
+        while (true) {
+            FileChannel target;
+            synchronized (syncLock) {
+                while (durable < offset && syncing) {
+                    waitForSync();
+                }
+                if (durable >= offset) {
+                    return;
+                }
+                syncing = true;
+                target = channel;
+            }
+            long upTo = written;
+            try {
+                target.force(false);
+            } finally {
+                synchronized (syncLock) {
+                    syncing = false;
+                    durable = Math.max(durable, upTo);
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents with a NEXT_ID record and one PUT per given row:
+     * written to a temporary file, forced, renamed over the log, then the
+     * directory is forced so the rename survives a crash. Callers
+     * must not append while it runs.
+     */
+    synchronized void rewrite(int nextId, Iterable<Application> live) throws IOException {
+        replace(Stream.concat(Stream.of(encodeNextId(nextId)),
+                StreamSupport.stream(live.spliterator(), false).map(LogFile::encodePut)).iterator());
+    }
+
+    /**
+     * Replaces the contents with one PUT per row and one DELETE per id mapped
+     * to null, in the map's order, the same way as the other rewrite.
+     */
+    synchronized void rewrite(Map<Integer, Application> rows) throws IOException {
+        replace(rows.entrySet().stream()
+                .map(e -> e.getValue() == null ? encodeDelete(e.getKey()) : encodePut(e.getValue()))
+                .iterator());
+    }
+
+    private void replace(Iterator<ByteBuffer> contents) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        synchronized (syncLock) {
+            while (syncing) {
+                waitForSync();
+            }
+            syncing = true;
+        }
+        try {
+            long size = 0, count = 0;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (contents.hasNext()) {
+                    ByteBuffer buf = contents.next();
+                    size += buf.remaining();
+                    while (buf.hasRemaining()) {
+                        out.write(buf);
+                    }
+                    count++;
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(size);
+            records = count;
+        } finally {
+            synchronized (syncLock) {
+                syncing = false;
+                durable = written;
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /** Empties the file; everything in it must already have been applied elsewhere. */
+    synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+        records = 0;
+    }
+
+    /** Closes the file and releases its lock. */
+    synchronized void close() throws IOException {
+        try {
+            channel.force(true);
+            channel.close();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    // Makes the rename in replace() durable; the new directory entry is only on disk once the directory is
+    private void forceDirectory() throws IOException {
+        try (FileChannel dir = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+    }
+
+    // Holds an exclusive lock on lockFile until the returned channel is closed
+    private static FileChannel lock(Path lockFile) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;  // held by this process already
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(lockFile.toAbsolutePath().getParent() + " is in use by another job tracker"
+                    + " (window or command line); close it and try again");
+        }
+        return channel;
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        records++;
+        written += record.limit();
+        return written;
+    }
+
+    private void waitForSync() {
+        try {
+            syncLock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- encoding ----
+
+    /** Applies every complete, intact record in the buffer and returns the bytes consumed. */
+    private int replaySegment(ByteBuffer buf, Replay callback) {
+        CRC32 crc = new CRC32();
+        while (buf.remaining() >= HEADER) {
+            int start = buf.position();
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length < 1 || length > MAX_RECORD || buf.remaining() < length) {
+                buf.position(start);
+                break;
+            }
+            ByteBuffer body = buf.slice();
+            body.limit(length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buf.position(start);
+                break;
+            }
+            buf.position(buf.position() + length);
+            replayRecord(body, callback);
+            records++;
+        }
+        return buf.position();
+    }
+
+    private static void replayRecord(ByteBuffer body, Replay callback) {
+        byte type = body.get();
+        if (type == DELETE) {
+            callback.delete(body.getInt());
+            return;
+        }
+        if (type == NEXT_ID) {
+            callback.nextId(body.getInt());
+            return;
+        }
+        int id = body.getInt();
+        Instant updatedAt = Instant.ofEpochMilli(body.getLong());
+        int day = body.getInt();
+        byte status = body.get();
+        Application app = new Application(id, readString(body), readString(body),
+                day == NO_DATE ? null : LocalDate.ofEpochDay(day),
+                status < 0 ? null : STATUSES[status], readString(body));
+        app.setUpdatedAt(updatedAt);
+        app.setVersion(body.remaining() >= 4 ? body.getInt() : 1);
+        callback.put(app);
+    }
+
+    private static ByteBuffer encodePut(Application app) {
+        byte[] company = bytes(app.getCompany());
+        byte[] position = bytes(app.getPosition());
+        byte[] notes = bytes(app.getNotes());
+        int length = 1 + 4 + 8 + 4 + 1 + 12 + company.length + position.length + notes.length + 4;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + length);
+        buf.putInt(length).putInt(0);
+        buf.put(PUT)
+           .putInt(app.getId())
+           .putLong(app.getUpdatedAt() == null ? 0 : app.getUpdatedAt().toEpochMilli())
+           .putInt(app.getApplicationDate() == null ? NO_DATE : (int) app.getApplicationDate().toEpochDay())
+           .put(app.getStatus() == null ? -1 : (byte) app.getStatus().ordinal());
+        buf.putInt(company.length).put(company);
+        buf.putInt(position.length).put(position);
+        buf.putInt(notes.length).put(notes);
+        buf.putInt(app.getVersion());
+        return seal(buf);
+    }
+
+    private static ByteBuffer encodeDelete(int id) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + 5);
+        buf.putInt(5).putInt(0);
+        buf.put(DELETE).putInt(id);
+        return seal(buf);
+    }
+
+    private static ByteBuffer encodeNextId(int nextId) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + 5);
+        buf.putInt(5).putInt(0);
+        buf.put(NEXT_ID).putInt(nextId);
+        return seal(buf);
+    }
+
+    /** Fills in the checksum over everything after the header and flips the buffer for writing. */
+    private static ByteBuffer seal(ByteBuffer buf) {
+        buf.flip();
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buf.duplicate();
+        body.position(HEADER);
+        crc.update(body);
+        buf.putInt(4, (int) crc.getValue());
+        return buf;
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] b = new byte[buf.getInt()];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
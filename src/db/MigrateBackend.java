@@ -0,0 +1,45 @@
+package db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Copies every application from one backend to another:
+ *
+ *   java db.MigrateBackend mysql embedded
+ *   java -Dtracker.dataDir=/path db.MigrateBackend embedded mysql
+ *
+ * Rows go through a temporary JSON Lines export, so the target assigns new
+ * ids. The target must be empty.
+ */
+public class MigrateBackend {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 || args[0].equals(args[1])) {
+            System.out.println("Usage: MigrateBackend <from> <to>   (" + Backends.MYSQL + " or " + Backends.EMBEDDED + ")");
+            System.exit(2);
+        }
+        ApplicationRepository from = Backends.open(args[0], Backends.dataDir());
+        ApplicationRepository to = Backends.open(args[1], Backends.dataDir());
+
+        int existing = to.countApplications();
+        if (existing != 0) {
+            System.out.println("Target " + args[1] + " is not empty (" + existing + " rows); nothing copied.");
+            System.exit(1);
+        }
+
+        Path tmp = Files.createTempFile("job-tracker-migrate", ".jsonl");
+        try {
+            long exported = new ApplicationExporter(from).exportFile(tmp);
+            ApplicationImporter.ImportResult result = to.importFile(tmp);
+            System.out.println("Migrated " + args[0] + " -> " + args[1] + ": " + exported + " exported, " + result);
+            result.getErrors().forEach(System.out::println);
+        } finally {
+            Files.deleteIfExists(tmp);
+            Backends.close(from);
+            Backends.close(to);
+            Database.shutdown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package db;
+
+import model.Application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A few rows saved in the data directory when the window closes and shown
+ * on the next start before the backend has answered, so the first paint
+ * needs no database. Stored as JSON Lines; rows read back carry no version
+ * or updated_at and are only for display until the real page arrives.
+ */
+public class PageCache {
+
+    public static final String FILE = "last-page.jsonl";
+
+    private final Path file;
+
+    public PageCache(Path dataDir) {
+        this.file = dataDir.resolve(FILE);
+    }
+
+    /** Replaces the saved rows; written to a temporary file and renamed over the old one. */
+    public void save(List<Application> rows) {
+        Path tmp = file.resolveSibling(FILE + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Application app : rows) {
+                    FileFormat.JSON_LINES.write(out, app);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error saving " + file + ": " + e.getMessage());
+        }
+    }
+
+    /** The saved rows in the order they were saved, or an empty list if there are none or they can't be read. */
+    public List<Application> load() {
+        List<Application> rows = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return rows;
+        }
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            FileFormat.RecordReader records = FileFormat.JSON_LINES.reader(in);
+            Map<String, String> fields;
+            while ((fields = records.next()) != null) {
+                Application parsed = ApplicationImporter.toApplication(fields);
+                rows.add(new Application(Integer.parseInt(fields.get("id")), parsed.getCompany(), parsed.getPosition(),
+                        parsed.getApplicationDate(), parsed.getStatus(), parsed.getNotes()));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring " + file + ": " + e.getMessage());
+            rows.clear();
+        }
+        return rows;
+    }
+}
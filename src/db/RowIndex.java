@@ -0,0 +1,164 @@
+package db;
+
+import model.Application;
+import model.Status;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * In-memory rows by id plus, per sort order, a sorted set of every row and
+ * one per status, so paged list queries are answered without sorting.
+ * Newest-first is always kept (oldest-first reads it backwards); the other
+ * orders are built the first time a page asks for them and kept up to date
+ * from then on. Optionally bounded: past maxEntries the least recently used
+ * rows are dropped.
+ *
+ * Not thread-safe; callers lock around it.
+ */
+class RowIndex {
+
+    private static final ApplicationRepository.SortKey INDEXED_SORT = ApplicationRepository.SortKey.NEWEST;
+
+    /** Every row and the rows of each status, in one order. */
+    private static final class Order {
+        final ApplicationRepository.SortKey sort;
+        final NavigableSet<Application> all;
+        final Map<Status, NavigableSet<Application>> byStatus = new EnumMap<>(Status.class);
+
+        Order(ApplicationRepository.SortKey sort) {
+            this.sort = sort;
+            this.all = new TreeSet<>(sort.comparator());
+        }
+
+        void add(Application app) {
+            all.add(app);
+            byStatus.computeIfAbsent(app.getStatus(), k -> new TreeSet<>(sort.comparator())).add(app);
+        }
+
+        void remove(Application app) {
+            all.remove(app);
+            NavigableSet<Application> bucket = byStatus.get(app.getStatus());
+            if (bucket != null) {
+                bucket.remove(app);
+            }
+        }
+
+        void clear() {
+            all.clear();
+            byStatus.clear();
+        }
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<Integer, Application> byId;
+    private final Order newest = new Order(INDEXED_SORT);
+    private final Map<ApplicationRepository.SortKey, Order> orders = new EnumMap<>(ApplicationRepository.SortKey.class);
+    private long evictions;
+
+    RowIndex() {
+        this(Integer.MAX_VALUE);
+    }
+
+    RowIndex(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Application> eldest) {
+                if (size() <= RowIndex.this.maxEntries) {
+                    return false;
+                }
+                unindex(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+        orders.put(INDEXED_SORT, newest);
+    }
+
+    Application get(int id) {
+        return byId.get(id);
+    }
+
+    void put(Application app) {
+        Application old = byId.get(app.getId());
+        if (old != null) {
+            unindex(old);
+        }
+        byId.put(app.getId(), app);
+        for (Order order : orders.values()) {
+            order.add(app);
+        }
+    }
+
+    Application remove(int id) {
+        Application old = byId.remove(id);
+        if (old != null) {
+            unindex(old);
+        }
+        return old;
+    }
+
+    void clear() {
+        byId.clear();
+        for (Order order : orders.values()) {
+            order.clear();
+        }
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    /** Every row, newest first. */
+    NavigableSet<Application> newestFirst() {
+        return newest.all;
+    }
+
+    List<Application> page(Status status, ApplicationRepository.SortKey sort, Application after, int pageSize) {
+        boolean reversed = sort == ApplicationRepository.SortKey.OLDEST;
+        Order order = reversed ? newest : order(sort);
+        NavigableSet<Application> rows = status == null ? order.all : order.byStatus.get(status);
+        List<Application> page = new ArrayList<>(pageSize);
+        if (rows == null) {
+            return page;
+        }
+        if (reversed) {
+            rows = rows.descendingSet();
+        }
+        Iterator<Application> it = (after == null ? rows : rows.tailSet(after, false)).iterator();
+        while (page.size() < pageSize && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+    // The order for sort, sorting the rows into it the first time it is asked for
+    private Order order(ApplicationRepository.SortKey sort) {
+        Order order = orders.get(sort);
+        if (order == null) {
+            order = new Order(sort);
+            for (Application app : newest.all) {
+                order.add(app);
+            }
+            orders.put(sort, order);
+        }
+        return order;
+    }
+
+    private void unindex(Application app) {
+        for (Order order : orders.values()) {
+            order.remove(app);
+        }
+    }
+}
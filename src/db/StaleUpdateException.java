@@ -0,0 +1,23 @@
+package db;
+
+import model.Application;
+
+/**
+ * Thrown by updateApplication when the row was changed by someone else
+ * after the caller read it, i.e. its version no longer matches.
+ */
+public class StaleUpdateException extends RuntimeException {
+
+    private final transient Application current;
+
+    public StaleUpdateException(Application current) {
+        super("Application " + current.getId() + " was changed by someone else (now at version "
+                + current.getVersion() + ")");
+        this.current = current;
+    }
+
+    /** The row as it is now. */
+    public Application getCurrent() {
+        return current;
+    }
+}
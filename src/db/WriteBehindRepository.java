@@ -0,0 +1,579 @@
+package db;
+
+import metrics.Metrics;
+import metrics.Operation;
+import model.Application;
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Queues updates and deletes in front of ApplicationDAO and writes them to
+ * MySQL from a background thread, so a user re-statusing many rows in a row
+ * doesn't wait for a commit per click.
+ *
+ * Each change is first made durable in a local journal (a LogFile), then
+ * kept in a map by id: a later update replaces a queued one and a delete
+ * replaces whatever was queued, so only the last change per row is sent. The
+ * writer sends up to batchSize changes per transaction. When maxPending rows
+ * are queued, callers queuing another row wait for the writer to catch up.
+ *
+ * Reads by id and list queries return the queued version of a row (or leave
+ * out a queued delete); a page that loses rows that way is topped up from
+ * the database, so only the last page is ever short. Counts, exports,
+ * imports and change polling wait for the queue to drain first. Inserts go
+ * straight through, since they need the generated id.
+ *
+ * An update that turns out at flush time to have lost a race with another
+ * client is dropped: listeners are sent the row as stored, then
+ * updateDropped, so the window can put it back and tell the user. Failed
+ * flushes count against the writeBehind.flush operation in Metrics.
+ *
+ * Queued changes survive a crash: the journal is replayed on startup, and
+ * after every flushed batch it is rewritten to hold only the changes still
+ * queued (or emptied when none are). close() drains the queue before exit.
+ */
+public class WriteBehindRepository implements ApplicationRepository {
+
+    public static final String JOURNAL_FILE = "pending.journal";
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final long LINGER_MILLIS = 50;   // lets a burst of clicks share one transaction
+    private static final long RETRY_MILLIS = 2_000;
+
+    private static final Operation flushOp = Metrics.operation("writeBehind.flush");
+    private static final Operation queueOp = Metrics.operation("writeBehind.queue");
+
+    /** The latest queued change to one row; app is null for a delete. */
+    private static final class Queued {
+        final int id;
+        final Application app;
+
+        Queued(int id, Application app) {
+            this.id = id;
+            this.app = app;
+        }
+    }
+
+    private final ApplicationDAO delegate;
+    private final LogFile journal;
+    private final ChangeListeners listeners = new ChangeListeners();
+    private final int maxPending;
+    private final int batchSize;
+    private final LinkedHashMap<Integer, Queued> pending = new LinkedHashMap<>();
+    private final Thread writer;
+    private boolean closed;
+
+    private long queued, coalesced, flushes, flushed, skipped, failures;
+    private int lastBatchSize, maxBatchSize;
+    private long lastFlushNanos, maxFlushNanos, totalFlushNanos;
+
+    public WriteBehindRepository(ApplicationDAO delegate, Path journalFile) throws IOException {
+        this(delegate, journalFile, DEFAULT_MAX_PENDING, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param maxPending most distinct rows queued before callers wait
+     * @param batchSize  most changes sent per transaction
+     */
+    public WriteBehindRepository(ApplicationDAO delegate, Path journalFile, int maxPending, int batchSize) throws IOException {
+        if (maxPending < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("maxPending and batchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.journal = new LogFile(journalFile);
+        journal.replay(new LogFile.Replay() {
+            public void put(Application app) { pending.put(app.getId(), new Queued(app.getId(), app)); }
+            public void delete(int id) { pending.put(id, new Queued(id, null)); }
+        });
+        if (!pending.isEmpty()) {
+            System.out.println("Replaying " + pending.size() + " queued change(s) from " + journalFile);
+        }
+        this.writer = new Thread(this::runWriter, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+        delegate.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+        delegate.removeChangeListener(listener);
+    }
+
+    @Override
+    public List<Application> getAllApplications() {
+        return overlay(delegate.getAllApplications(), null);
+    }
+
+    /** Fetches again after the last row read while queued deletes and status changes leave the page short. */
+    @Override
+    public List<Application> getApplicationsPage(Status status, SortKey sort, Application after, int pageSize) {
+        List<Application> page = new ArrayList<>(pageSize);
+        while (true) {
+            int wanted = pageSize - page.size();
+            List<Application> fetched = delegate.getApplicationsPage(status, sort, after, wanted);
+            page.addAll(overlay(fetched, status));
+            if (fetched.size() < wanted || page.size() >= pageSize) {
+                return page;
+            }
+            after = fetched.get(fetched.size() - 1);
+        }
+    }
+
+    @Override
+    public int countApplications() {
+        flush();
+        return delegate.countApplications();
+    }
+
+    @Override
+    public Application getApplication(int id) {
+        synchronized (this) {
+            Queued change = pending.get(id);
+            if (change != null) {
+                return change.app;
+            }
+        }
+        return delegate.getApplication(id);
+    }
+
+    @Override
+    public List<Application> getApplications(int[] ids) {
+        return overlay(delegate.getApplications(ids), null);
+    }
+
+    @Override
+    public List<Application> searchApplications(String text, int limit) {
+        return overlay(delegate.searchApplications(text, limit), null);
+    }
+
+    @Override
+    public List<Change> getChangesAfter(long after, int limit) {
+        flush();
+        return delegate.getChangesAfter(after, limit);
+    }
+
+    @Override
+    public long getLatestChangeSeq() {
+        flush();
+        return delegate.getLatestChangeSeq();
+    }
+
+    @Override
+    public List<StatusEvent> getStatusHistory(int id) {
+        flush();
+        return delegate.getStatusHistory(id);
+    }
+
+    @Override
+    public StatusFunnel getStatusFunnel(Instant from, Instant to) {
+        flush();
+        return delegate.getStatusFunnel(from, to);
+    }
+
+    @Override
+    public Map<Integer, Instant> getInterviewTimes() {
+        flush();
+        return delegate.getInterviewTimes();
+    }
+
+    @Override
+    public int addApplication(Application app) {
+        return delegate.addApplication(app);
+    }
+
+    @Override
+    public void deleteApplication(int id) {
+        try {
+            enqueue(new Queued(id, null));
+        } catch (IOException e) {
+            failed(queueOp, "Error queuing delete: ", e);
+            return;
+        }
+        listeners.deleted(id);
+    }
+
+    /**
+     * Queues the update and returns the row as it will be stored, with its
+     * next version. The version is checked before queuing, against the
+     * queued change to the row if there is one and otherwise against the
+     * database (a read by primary key, no commit), so a conflict known by
+     * then is thrown as a StaleUpdateException as with ApplicationDAO. If the
+     * database can't be reached the update is queued unchecked. Either way
+     * it is checked again when the queue is flushed: an update to a row that
+     * someone else changed or deleted in between is then dropped and passed
+     * to listeners' updateDropped.
+     *
+     * @throws StaleUpdateException if the row is known to have changed since app was read
+     */
+    @Override
+    public Application updateApplication(Application app) {
+        if (app.getStatus() == null) {
+            // would fail every flush of its batch; refuse it now instead
+            System.out.println("Error queuing update: application " + app.getId() + " has no status");
+            return null;
+        }
+        boolean queuedAlready;
+        synchronized (this) {
+            queuedAlready = pending.containsKey(app.getId());
+        }
+        if (!queuedAlready) {
+            try {
+                Application current = delegate.findApplication(app.getId());
+                if (current == null) {
+                    return null;
+                }
+                if (current.getVersion() != app.getVersion()) {
+                    throw new StaleUpdateException(current);
+                }
+            } catch (SQLException e) {
+                // unreachable: queue it anyway, flush checks it when the database is back
+                queueOp.failed();
+            }
+        }
+        Application queuedApp = new Application(app.getId(), app.getCompany(), app.getPosition(),
+                app.getApplicationDate(), app.getStatus(), app.getNotes());
+        queuedApp.setUpdatedAt(Instant.now());
+        queuedApp.setVersion(app.getVersion() + 1);
+        try {
+            enqueue(new Queued(app.getId(), queuedApp));
+        } catch (IOException e) {
+            failed(queueOp, "Error queuing update: ", e);
+            return null;
+        }
+        listeners.saved(queuedApp);
+        return queuedApp;
+    }
+
+    @Override
+    public ApplicationImporter.ImportResult importFile(Path file) throws IOException {
+        flush();
+        return delegate.importFile(file);
+    }
+
+    @Override
+    public void forEach(SortKey sort, Consumer<Application> action) {
+        flush();
+        delegate.forEach(sort, action);
+    }
+
+    @Override
+    public void forEach(Criteria criteria, SortKey sort, Consumer<Application> action) {
+        flush();
+        delegate.forEach(criteria, sort, action);
+    }
+
+    /** Runs directly against the database once the queue has drained. */
+    @Override
+    public int updateStatus(Criteria criteria, Status status) {
+        flush();
+        return delegate.updateStatus(criteria, status);
+    }
+
+    @Override
+    public int deleteApplications(Criteria criteria) {
+        flush();
+        return delegate.deleteApplications(criteria);
+    }
+
+    /**
+     * Waits until every change queued so far has been written, or until a
+     * flush fails (the database is unreachable); the changes then stay queued.
+     */
+    public synchronized void flush() {
+        long failuresBefore = failures;
+        while (!pending.isEmpty() && failures == failuresBefore && writer.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** Writes out the queue and stops the writer. Changes that can't be written stay in the journal. */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failed(flushOp, "Error closing " + journal.path() + ": ", e);
+        }
+    }
+
+    public synchronized String getStats() {
+        return "WriteBehindStats{queueDepth=" + pending.size() + ", queued=" + queued + ", coalesced=" + coalesced
+                + ", flushes=" + flushes + ", lastBatch=" + lastBatchSize + ", maxBatch=" + maxBatchSize
+                + ", lastFlushMs=" + lastFlushNanos / 1_000_000 + ", maxFlushMs=" + maxFlushNanos / 1_000_000
+                + ", skipped=" + skipped + ", failures=" + failures + "}";
+    }
+
+    /** Rows with a change waiting to be written. */
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+    /** Changes that replaced an earlier queued change to the same row. */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+    public synchronized long getFlushes() {
+        return flushes;
+    }
+    public synchronized int getLastBatchSize() {
+        return lastBatchSize;
+    }
+    public synchronized double getAverageBatchSize() {
+        return flushes == 0 ? 0 : (double) flushed / flushes;
+    }
+    public synchronized double getLastFlushMillis() {
+        return lastFlushNanos / 1e6;
+    }
+    public synchronized double getMaxFlushMillis() {
+        return maxFlushNanos / 1e6;
+    }
+    public synchronized double getAverageFlushMillis() {
+        return flushes == 0 ? 0 : totalFlushNanos / 1e6 / flushes;
+    }
+    /** Queued updates dropped at flush time because the row had changed underneath them. */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    private void enqueue(Queued change) throws IOException {
+        long end;
+        synchronized (this) {
+            // a change to an already queued row doesn't grow the queue
+            while (!closed && pending.size() >= maxPending && !pending.containsKey(change.id)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted waiting for the write-behind queue");
+                }
+            }
+            if (closed) {
+                throw new IOException("write-behind queue is closed");
+            }
+            Queued earlier = pending.get(change.id);
+            if (earlier != null && earlier.app != null && change.app != null
+                    && earlier.app.getVersion() != change.app.getVersion() - 1) {
+                throw new StaleUpdateException(earlier.app);
+            }
+            end = change.app == null ? journal.delete(change.id) : journal.put(change.app);
+            if (pending.remove(change.id) != null) {
+                coalesced++;
+            }
+            pending.put(change.id, change);
+            queued++;
+            notifyAll();
+        }
+        journal.sync(end);
+    }
+
+    /** Replaces rows that have a queued change, and drops queued deletes and rows no longer matching status. */
+    private synchronized List<Application> overlay(List<Application> apps, Status status) {
+        if (pending.isEmpty()) {
+            return apps;
+        }
+        List<Application> out = new ArrayList<>(apps.size());
+        for (Application app : apps) {
+            Queued change = pending.get(app.getId());
+            if (change == null) {
+                out.add(app);
+            } else if (change.app != null && (status == null || change.app.getStatus() == status)) {
+                out.add(change.app);
+            }
+        }
+        return out;
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                long deadline = System.currentTimeMillis() + LINGER_MILLIS;
+                for (long left = LINGER_MILLIS; left > 0 && !closed; left = deadline - System.currentTimeMillis()) {
+                    try {
+                        wait(left);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            if (!flushBatch() && !sleepBeforeRetry()) {
+                return;
+            }
+        }
+    }
+
+    /** Sends the oldest queued changes in one transaction. Returns false if it failed. */
+    private boolean flushBatch() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        synchronized (this) {
+            Iterator<Queued> it = pending.values().iterator();
+            while (batch.size() < batchSize && it.hasNext()) {
+                batch.add(it.next());
+            }
+        }
+        List<Application> updates = new ArrayList<>();
+        int[] deletes = new int[batch.size()];
+        int d = 0;
+        for (Queued change : batch) {
+            if (change.app == null) {
+                deletes[d++] = change.id;
+            } else {
+                updates.add(change.app);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Integer> stale;
+        try {
+            stale = delegate.applyBatch(updates, Arrays.copyOf(deletes, d));
+        } catch (SQLException e) {
+            failed(flushOp, "Error writing queued changes: ", e);
+            flushOp.stop(start);
+            synchronized (this) {
+                failures++;
+                notifyAll();
+            }
+            return false;
+        }
+        long elapsed = flushOp.stop(start, batch.size());
+
+        List<Queued> dropped = new ArrayList<>(stale.size());
+        synchronized (this) {
+            Map<Integer, Queued> byId = new HashMap<>();
+            for (Queued change : batch) {
+                // unless it was replaced meanwhile; a replacement would fail in turn and be reported then
+                if (pending.remove(change.id, change)) {
+                    byId.put(change.id, change);
+                }
+            }
+            for (int id : stale) {
+                if (byId.containsKey(id)) {
+                    dropped.add(byId.get(id));
+                }
+            }
+            flushes++;
+            flushed += batch.size();
+            skipped += stale.size();
+            lastBatchSize = batch.size();
+            maxBatchSize = Math.max(maxBatchSize, lastBatchSize);
+            lastFlushNanos = elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+            totalFlushNanos += elapsed;
+            // Keep only what is still queued, so a crash never replays changes already written
+            try {
+                if (pending.isEmpty()) {
+                    journal.truncate();
+                } else {
+                    Map<Integer, Application> left = new LinkedHashMap<>();
+                    for (Queued change : pending.values()) {
+                        left.put(change.id, change.app);
+                    }
+                    journal.rewrite(left);
+                }
+            } catch (IOException e) {
+                failed(flushOp, "Error rewriting " + journal.path() + ": ", e);
+            }
+            notifyAll();
+        }
+        if (!dropped.isEmpty()) {
+            reportDropped(dropped);
+        }
+        return true;
+    }
+
+    /**
+     * Puts the stored version of each dropped update back in front of the
+     * listeners, who were told the update had been saved, then reports it.
+     */
+    private void reportDropped(List<Queued> dropped) {
+        int[] ids = new int[dropped.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = dropped.get(i).id;
+        }
+        Map<Integer, Application> current = new HashMap<>();
+        for (Application app : delegate.getApplications(ids)) {
+            current.put(app.getId(), app);
+        }
+        for (Queued change : dropped) {
+            Application stored = current.get(change.id);
+            if (stored != null) {
+                listeners.saved(stored);
+            } else {
+                listeners.deleted(change.id);
+            }
+            listeners.dropped(change.app, stored);
+        }
+    }
+
+    // Reports a failed journal or database write as the DAO reports a failed
+    // query, and counts it against op so it shows up in the diagnostics
+    private static void failed(Operation op, String message, Exception e) {
+        op.failed();
+        System.out.println(message + e.getMessage());
+    }
+
+    /** Waits before retrying a failed flush; returns false if the repository is closing. */
+    private boolean sleepBeforeRetry() {
+        synchronized (this) {
+            if (closed) {
+                System.out.println(pending.size() + " queued change(s) left in " + journal.path());
+                return false;
+            }
+            try {
+                wait(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package dedup;
+
+import model.Application;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Batch duplicate detection over a whole table:
+ *
+ * - company clusters: spellings that are the same company, either because
+ *   they normalise to the same key ("Acme, Inc." and "ACME") or because
+ *   their keys are within the company threshold of each other ("Acme
+ *   Robotics" and "Acme Robtics"), joined transitively;
+ * - duplicate applications: rows for the same company cluster and position
+ *   key dated at most SAME_ROLE_DAYS apart, one chain per group.
+ *
+ * Work is per distinct string rather than per row wherever it can be:
+ * spellings are normalised once each, keys are MinHashed once each, and only
+ * keys sharing a blocking key (see Similarity) are ever compared. Each step
+ * runs on parallel streams when asked to, in whatever ForkJoinPool the
+ * caller runs it in.
+ */
+public final class DuplicateClusters {
+
+    /** Applications for the same role further apart than this are a re-application, not a duplicate. */
+    public static final int SAME_ROLE_DAYS = 30;
+
+    // Keys sharing a blocking key with more than this many others are too generic to block on
+    private static final int MAX_BUCKET = 1_000;
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    /** Most distinct company keys one run can cluster. */
+    public static final int MAX_KEYS = 1 << INDEX_BITS;
+
+    private final List<CompanyCluster> companies;
+    private final List<List<Application>> duplicates;
+    private final int spellings;
+    private final int keys;
+    private final long comparisons;
+
+    private DuplicateClusters(List<CompanyCluster> companies, List<List<Application>> duplicates,
+                              int spellings, int keys, long comparisons) {
+        this.companies = companies;
+        this.duplicates = duplicates;
+        this.spellings = spellings;
+        this.keys = keys;
+        this.comparisons = comparisons;
+    }
+
+    /** Clusters the applications, on parallel streams when parallel is set. */
+    public static DuplicateClusters find(Collection<Application> apps, boolean parallel) {
+        Application[] all = apps.toArray(new Application[0]);
+
+        // 1. distinct spellings and their keys
+        Map<String, Long> spellingRows = stream(all, parallel)
+                .collect(counting(a -> nonNull(a.getCompany()), parallel));
+        Map<String, String> spellingKeys = stream(spellingRows.keySet(), parallel)
+                .collect(Collectors.toMap(s -> s, Names::company));
+        String[] keys = spellingKeys.values().stream().distinct().filter(k -> !k.isEmpty()).toArray(String[]::new);
+        Map<String, Integer> keyIndex = new HashMap<>(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            keyIndex.put(keys[i], i);
+        }
+
+        // 2. grams and blocking keys per key, then matched pairs per kind of blocking key
+        if (keys.length > MAX_KEYS) {
+            throw new IllegalArgumentException(keys.length + " company keys; at most " + MAX_KEYS + " can be clustered");
+        }
+        int[][] grams = new int[keys.length][];
+        long[][] blocks = new long[keys.length][];
+        range(keys.length, parallel).forEach(i -> {
+            grams[i] = Similarity.companyGrams(keys[i]);
+            blocks[i] = Similarity.blocks(keys[i], grams[i]);
+        });
+        LongAdder comparisons = new LongAdder();
+        List<long[]> pairs = range(Similarity.BANDS + 1, parallel)
+                .mapToObj(p -> matches(p, keys, grams, blocks, comparisons))
+                .collect(Collectors.toList());
+
+        // 3. union-find over matched keys
+        int[] parent = new int[keys.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (long[] band : pairs) {
+            for (long pair : band) {
+                union(parent, (int) (pair >>> 32), (int) pair);
+            }
+        }
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = find(parent, i);
+        }
+
+        // 4. company clusters: roots with more than one spelling
+        Map<Integer, List<String>> byRoot = new HashMap<>();
+        for (Map.Entry<String, String> e : spellingKeys.entrySet()) {
+            Integer k = keyIndex.get(e.getValue());
+            if (k != null) {
+                byRoot.computeIfAbsent(parent[k], r -> new ArrayList<>()).add(e.getKey());
+            }
+        }
+        List<CompanyCluster> companies = new ArrayList<>();
+        for (List<String> members : byRoot.values()) {
+            if (members.size() > 1) {
+                companies.add(new CompanyCluster(members, spellingRows, spellingKeys));
+            }
+        }
+        companies.sort(Comparator.comparingLong((CompanyCluster c) -> c.getRows()).reversed()
+                .thenComparing(CompanyCluster::getName));
+
+        // 5. duplicate applications: same cluster and position key, chained by date
+        Map<String, Integer> positionIndex = positionKeys(all, parallel);
+        Map<Long, List<Application>> roles = stream(all, parallel)
+                .filter(a -> a.getApplicationDate() != null)
+                .filter(a -> keyIndex.containsKey(spellingKeys.get(nonNull(a.getCompany()))))
+                .filter(a -> positionIndex.get(nonNull(a.getPosition())) >= 0)
+                .collect(grouping(a -> (long) parent[keyIndex.get(spellingKeys.get(nonNull(a.getCompany())))] << 32
+                        | positionIndex.get(nonNull(a.getPosition())), parallel));
+        List<List<Application>> duplicates = stream(roles.values(), parallel)
+                .filter(g -> g.size() > 1)
+                .flatMap(DuplicateClusters::chains)
+                .collect(Collectors.toList());
+        duplicates.sort(Comparator.comparingInt((List<Application> g) -> g.size()).reversed()
+                .thenComparingInt(g -> g.get(0).getId()));
+
+        return new DuplicateClusters(Collections.unmodifiableList(companies), Collections.unmodifiableList(duplicates),
+                spellingRows.size(), keys.length, comparisons.sum());
+    }
+
+    /** Spellings of one company, largest cluster first. Companies with a single spelling are left out. */
+    public List<CompanyCluster> getCompanyClusters() {
+        return companies;
+    }
+
+    /** Groups of two or more applications for the same role, each sorted by date; largest first. */
+    public List<List<Application>> getDuplicateApplications() {
+        return duplicates;
+    }
+
+    /** Distinct company spellings seen. */
+    public int getSpellingCount() {
+        return spellings;
+    }
+
+    /** Distinct company keys after normalisation. */
+    public int getCompanyKeyCount() {
+        return keys;
+    }
+
+    /** Key pairs compared for similarity: what blocking left of the n^2 / 2, counting repeats. */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Verified pairs (i << 32 | j) among keys sharing a blocking key of one
+     * kind: band number part, or the deletion neighbours for part == BANDS.
+     * Each blocking key and key index are packed into one long, hash above
+     * and index in the low INDEX_BITS, so a sort brings every bucket
+     * together without a map.
+     */
+    private static long[] matches(int part, String[] keys, int[][] grams, long[][] blocks, LongAdder comparisons) {
+        int size = 0;
+        for (long[] b : blocks) {
+            size += part < Similarity.BANDS ? 1 : b.length - Similarity.BANDS;
+        }
+        long[] entries = new long[size];
+        int e = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            int from = part < Similarity.BANDS ? part : Similarity.BANDS;
+            int to = part < Similarity.BANDS ? part + 1 : blocks[i].length;
+            for (int k = from; k < to; k++) {
+                entries[e++] = blocks[i][k] & ~INDEX_MASK | i;
+            }
+        }
+        Arrays.sort(entries);
+
+        long[] out = new long[16];
+        int n = 0;
+        long compared = 0;
+        for (int start = 0, end; start < entries.length; start = end) {
+            end = start + 1;
+            while (end < entries.length && (entries[end] & ~INDEX_MASK) == (entries[start] & ~INDEX_MASK)) {
+                end++;
+            }
+            if (end - start < 2 || end - start > MAX_BUCKET) {
+                continue;
+            }
+            for (int x = start; x < end; x++) {
+                for (int y = x + 1; y < end; y++) {
+                    int i = (int) (entries[x] & INDEX_MASK);
+                    int j = (int) (entries[y] & INDEX_MASK);
+                    if (i == j) {
+                        continue;
+                    }
+                    compared++;
+                    if (Similarity.company(keys[i], grams[i], keys[j], grams[j]) >= Similarity.COMPANY_THRESHOLD) {
+                        if (n == out.length) {
+                            out = Arrays.copyOf(out, n * 2);
+                        }
+                        out[n++] = (long) i << 32 | j;
+                    }
+                }
+            }
+        }
+        comparisons.add(compared);
+        return Arrays.copyOf(out, n);
+    }
+
+    // Splits a role's applications into runs whose consecutive dates are at most SAME_ROLE_DAYS apart
+    private static Stream<List<Application>> chains(List<Application> role) {
+        List<Application> sorted = new ArrayList<>(role);
+        sorted.sort(Comparator.comparing(Application::getApplicationDate).thenComparingInt(Application::getId));
+        List<List<Application>> out = new ArrayList<>();
+        List<Application> run = new ArrayList<>();
+        for (Application a : sorted) {
+            if (!run.isEmpty() && ChronoUnit.DAYS.between(run.get(run.size() - 1).getApplicationDate(),
+                    a.getApplicationDate()) > SAME_ROLE_DAYS) {
+                if (run.size() > 1) {
+                    out.add(run);
+                }
+                run = new ArrayList<>();
+            }
+            run.add(a);
+        }
+        if (run.size() > 1) {
+            out.add(run);
+        }
+        return out.stream();
+    }
+
+    // Position spelling -> index of its key, or -1 for a blank key
+    private static Map<String, Integer> positionKeys(Application[] all, boolean parallel) {
+        Map<String, String> spellingKeys = stream(all, parallel).map(a -> nonNull(a.getPosition())).distinct()
+                .collect(Collectors.toMap(s -> s, Names::position));
+        Map<String, Integer> keyIndex = new HashMap<>();
+        Map<String, Integer> out = new HashMap<>(spellingKeys.size() * 2);
+        for (Map.Entry<String, String> e : spellingKeys.entrySet()) {
+            String key = e.getValue();
+            out.put(e.getKey(), key.isEmpty() ? -1 : keyIndex.computeIfAbsent(key, k -> keyIndex.size()));
+        }
+        return out;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    private static String nonNull(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static <T> Stream<T> stream(T[] values, boolean parallel) {
+        Stream<T> s = Arrays.stream(values);
+        return parallel ? s.parallel() : s;
+    }
+
+    private static <T> Stream<T> stream(Collection<T> values, boolean parallel) {
+        return parallel ? values.parallelStream() : values.stream();
+    }
+
+    private static IntStream range(int n, boolean parallel) {
+        IntStream s = IntStream.range(0, n);
+        return parallel ? s.parallel() : s;
+    }
+
+    private static <K> Collector<Application, ?, Map<K, Long>> counting(Function<Application, K> key,
+                                                                        boolean parallel) {
+        return parallel ? Collectors.collectingAndThen(Collectors.groupingByConcurrent(key, Collectors.counting()), m -> m)
+                : Collectors.groupingBy(key, Collectors.counting());
+    }
+
+    private static <K> Collector<Application, ?, Map<K, List<Application>>> grouping(Function<Application, K> key,
+                                                                                     boolean parallel) {
+        return parallel ? Collectors.collectingAndThen(Collectors.groupingByConcurrent(key), m -> m)
+                : Collectors.groupingBy(key);
+    }
+
+    /** Spellings judged to be one company, with the rows using each. */
+    public static final class CompanyCluster {
+        private final List<String> spellings;
+        private final Map<String, Long> rowsBySpelling;
+        private final int keys;
+        private final long rows;
+
+        CompanyCluster(List<String> members, Map<String, Long> spellingRows, Map<String, String> spellingKeys) {
+            Map<String, Long> counts = new HashMap<>();
+            long total = 0;
+            for (String s : members) {
+                long n = spellingRows.get(s);
+                counts.put(s, n);
+                total += n;
+            }
+            List<String> sorted = new ArrayList<>(members);
+            sorted.sort(Comparator.comparingLong((String s) -> counts.get(s)).reversed()
+                    .thenComparing(Comparator.naturalOrder()));
+            this.spellings = Collections.unmodifiableList(sorted);
+            this.rowsBySpelling = Collections.unmodifiableMap(counts);
+            this.keys = (int) members.stream().map(spellingKeys::get).distinct().count();
+            this.rows = total;
+        }
+
+        /** The spelling used by the most rows: the one to keep when merging. */
+        public String getName() {
+            return spellings.get(0);
+        }
+
+        /** Every spelling in the cluster, most used first. */
+        public List<String> getSpellings() {
+            return spellings;
+        }
+
+        public long getRows(String spelling) {
+            Long n = rowsBySpelling.get(spelling);
+            return n == null ? 0 : n;
+        }
+
+        /** Distinct company keys in the cluster: 1 when it only differs in case, punctuation or legal form. */
+        public int getKeyCount() {
+            return keys;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package dedup;
+
+import db.ApplicationRepository;
+import model.Application;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the companies and roles already in the table, for
+ * catching duplicates while an application is being typed in.
+ *
+ * Every distinct company key (see Names) is one entry, holding the
+ * spellings seen for it and its applications grouped by position key. The
+ * entries are blocked by MinHash bands of their 3-grams and by their
+ * one-letter deletions (see Similarity), so a lookup compares the typed name
+ * with a handful of near neighbours rather than every company, and stays
+ * well under a millisecond at millions of rows. Registered as a repository
+ * change listener the index follows adds, updates and deletes without a
+ * rebuild.
+ */
+public class DuplicateIndex implements ApplicationRepository.ChangeListener {
+
+    /** How a suggested company relates to the name typed. */
+    public enum Kind {
+        /** Same company key, perhaps spelled differently. */
+        SAME,
+        /** A key within the company threshold, e.g. a typo. */
+        SIMILAR,
+        /** A key starting with what was typed so far. */
+        COMPLETION
+    }
+
+    // Companies looked at for completions; a short prefix can match most of the table
+    private static final int COMPLETION_SCAN = 2_000;
+
+    private final NavigableMap<String, Company> companies = new TreeMap<>();
+    private final Map<Long, List<Company>> buckets = new HashMap<>();
+    private final Map<Integer, Application> rows = new HashMap<>();
+    // spelling -> key, and position key -> grams, so each distinct string is worked out once
+    private final Map<String, String> companyKeys = new HashMap<>();
+    private final Map<String, String> positionKeys = new HashMap<>();
+    private final Map<String, int[]> positionGrams = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    /**
+     * Replaces the contents of the index with these applications. Names are
+     * normalised and signed on parallel threads before the lock is taken, so
+     * lookups carry on against the old contents meanwhile.
+     */
+    public void rebuild(Collection<Application> apps) {
+        Map<String, String> cKeys = keys(apps, Application::getCompany, Names::company);
+        Map<String, String> pKeys = keys(apps, Application::getPosition, Names::position);
+        Map<String, Company> built = new HashSet<>(cKeys.values()).parallelStream()
+                .collect(Collectors.toMap(k -> k, Company::new));
+        Map<String, int[]> pGrams = new HashSet<>(pKeys.values()).parallelStream()
+                .collect(Collectors.toMap(k -> k, Similarity::grams));
+
+        lock.writeLock().lock();
+        try {
+            companies.clear();
+            buckets.clear();
+            rows.clear();
+            companyKeys.clear();
+            companyKeys.putAll(cKeys);
+            positionKeys.clear();
+            positionKeys.putAll(pKeys);
+            positionGrams.clear();
+            positionGrams.putAll(pGrams);
+            for (Company c : built.values()) {
+                companies.put(c.key, c);
+                bucketLocked(c);
+            }
+            for (Application app : apps) {
+                addLocked(app);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Whether rebuild has run, i.e. the index covers the whole table. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Number of applications indexed. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of distinct company keys indexed. */
+    public int companyCount() {
+        lock.readLock().lock();
+        try {
+            return companies.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Application app) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(app.getId());
+            addLocked(app);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void applicationSaved(Application app) {
+        put(app);
+    }
+
+    @Override
+    public void applicationDeleted(int id) {
+        remove(id);
+    }
+
+    @Override
+    public void applicationsReplaced() {
+        ready = false; // a bulk change; the owner rebuilds
+    }
+
+    /**
+     * Companies in the table resembling a name being typed: the same
+     * company first, then near misses by similarity, then completions of
+     * the text so far by number of applications. Completions are picked from
+     * the first COMPLETION_SCAN companies with the prefix in key order, so
+     * for the first letter or two they are the busiest of those, not of all.
+     *
+     * @param limit maximum number of suggestions
+     */
+    public List<CompanyMatch> similarCompanies(String typed, int limit) {
+        String key = Names.company(typed);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int[] grams = Similarity.companyGrams(key);
+        lock.readLock().lock();
+        try {
+            List<CompanyMatch> out = new ArrayList<>();
+            Company same = companies.get(key);
+            if (same != null) {
+                out.add(new CompanyMatch(same, Kind.SAME, 1));
+            }
+            for (Match m : similarLocked(key, grams)) {
+                if (m.company != same) {
+                    out.add(new CompanyMatch(m.company, Kind.SIMILAR, m.similarity));
+                }
+            }
+            if (out.size() < limit) {
+                Set<Company> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (CompanyMatch m : out) {
+                    shown.add(m.company);
+                }
+                // The busiest wanted so far, least busy at the head to be pushed out
+                int wanted = limit - out.size();
+                Comparator<Company> busiest = Comparator.comparingInt((Company c) -> c.rows);
+                PriorityQueue<Company> top = new PriorityQueue<>(wanted + 1, busiest);
+                int scanned = 0;
+                for (Company c : companies.subMap(key, false, key + Character.MAX_VALUE, false).values()) {
+                    if (++scanned > COMPLETION_SCAN) {
+                        break;
+                    }
+                    if (!shown.contains(c)) {
+                        top.add(c);
+                        if (top.size() > wanted) {
+                            top.poll();
+                        }
+                    }
+                }
+                List<Company> completions = new ArrayList<>(top);
+                completions.sort(busiest.reversed());
+                for (Company c : completions) {
+                    out.add(new CompanyMatch(c, Kind.COMPLETION, Similarity.jaccard(grams, c.grams)));
+                }
+            }
+            return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Roles already applied for that look like the draft: the same or a
+     * similar company, and a position within the position threshold. The
+     * draft itself (by id, when editing) is left out. Most similar first.
+     *
+     * @param limit maximum number of roles
+     */
+    public List<RoleMatch> possibleDuplicates(Application draft, int limit) {
+        String companyKey = Names.company(draft.getCompany());
+        String positionKey = Names.position(draft.getPosition());
+        if (companyKey.isEmpty() || positionKey.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int[] positionGrams = Similarity.grams(positionKey);
+        lock.readLock().lock();
+        try {
+            List<Match> candidates = similarLocked(companyKey, Similarity.companyGrams(companyKey));
+            Company same = companies.get(companyKey);
+            if (same != null) {
+                candidates.removeIf(m -> m.company == same);
+                candidates.add(0, new Match(same, 1));
+            }
+            Application stored = draft.getId() > 0 ? rows.get(draft.getId()) : null;
+            List<RoleMatch> out = new ArrayList<>();
+            for (Match m : candidates) {
+                for (Map.Entry<String, Role> e : m.company.roles.entrySet()) {
+                    double p = e.getKey().equals(positionKey) ? 1
+                            : Similarity.jaccard(positionGrams, e.getValue().grams);
+                    if (p >= Similarity.POSITION_THRESHOLD) {
+                        RoleMatch role = RoleMatch.of(e.getValue(), draft, stored, m.similarity * p);
+                        if (role != null) {
+                            out.add(role);
+                        }
+                    }
+                }
+            }
+            out.sort(Comparator.comparingDouble(RoleMatch::getSimilarity).reversed()
+                    .thenComparing(Comparator.comparingInt(RoleMatch::getCount).reversed()));
+            return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Companies sharing a blocking key with the key and within the company threshold, most similar first
+    private List<Match> similarLocked(String key, int[] grams) {
+        Set<Company> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Match> out = new ArrayList<>();
+        for (long block : Similarity.blocks(key, grams)) {
+            List<Company> bucket = buckets.get(block);
+            if (bucket == null) {
+                continue;
+            }
+            for (Company c : bucket) {
+                if (seen.add(c)) {
+                    double j = c.key.equals(key) ? 1 : Similarity.company(key, grams, c.key, c.grams);
+                    if (j >= Similarity.COMPANY_THRESHOLD) {
+                        out.add(new Match(c, j));
+                    }
+                }
+            }
+        }
+        out.sort(Comparator.comparingDouble((Match m) -> m.similarity).reversed()
+                .thenComparing(Comparator.comparingInt((Match m) -> m.company.rows).reversed()));
+        return out;
+    }
+
+    private void addLocked(Application app) {
+        String companyKey = companyKeys.computeIfAbsent(app.getCompany(), Names::company);
+        String positionKey = positionKeys.computeIfAbsent(app.getPosition(), Names::position);
+        Company c = companies.get(companyKey);
+        if (c == null) {
+            c = new Company(companyKey);
+            companies.put(companyKey, c);
+            bucketLocked(c);
+        }
+        c.rows++;
+        c.spellings.merge(app.getCompany(), 1, Integer::sum);
+        Role role = c.roles.get(positionKey);
+        if (role == null) {
+            role = new Role(positionGrams.computeIfAbsent(positionKey, Similarity::grams));
+            c.roles.put(positionKey, role);
+        }
+        role.add(app);
+        rows.put(app.getId(), app);
+    }
+
+    private void removeLocked(int id) {
+        Application app = rows.remove(id);
+        if (app == null) {
+            return;
+        }
+        Company c = companies.get(companyKeys.get(app.getCompany()));
+        if (c == null) {
+            return;
+        }
+        String positionKey = positionKeys.get(app.getPosition());
+        Role role = c.roles.get(positionKey);
+        if (role != null) {
+            role.remove(app);
+            if (role.apps.isEmpty()) {
+                c.roles.remove(positionKey);
+            }
+        }
+        c.spellings.computeIfPresent(app.getCompany(), (s, n) -> n > 1 ? n - 1 : null);
+        if (--c.rows == 0) {
+            companies.remove(c.key);
+            for (long block : c.blocks) {
+                List<Company> bucket = buckets.get(block);
+                if (bucket != null && bucket.remove(c) && bucket.isEmpty()) {
+                    buckets.remove(block);
+                }
+            }
+        }
+    }
+
+    private void bucketLocked(Company c) {
+        for (long block : c.blocks) {
+            buckets.computeIfAbsent(block, b -> new ArrayList<>(1)).add(c);
+        }
+    }
+
+    // Distinct values of one field, mapped to their keys on parallel threads
+    private static Map<String, String> keys(Collection<Application> apps, Function<Application, String> field,
+                                            Function<String, String> key) {
+        Set<String> distinct = new HashSet<>();
+        for (Application app : apps) {
+            distinct.add(field.apply(app));
+        }
+        distinct.remove(null); // addLocked works these out itself
+        return distinct.parallelStream().collect(Collectors.toMap(s -> s, key));
+    }
+
+    /** A company suggestion: the spelling used most often for it and how many applications it has. */
+    public static final class CompanyMatch {
+        private final Company company;
+        private final String name;
+        private final int applications;
+        private final Kind kind;
+        private final double similarity;
+
+        CompanyMatch(Company company, Kind kind, double similarity) {
+            this.company = company;
+            this.name = company.mostUsedSpelling();
+            this.applications = company.rows;
+            this.kind = kind;
+            this.similarity = similarity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getApplications() {
+            return applications;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /** How close the two company keys are, by Similarity.company(); 1 for the same key. */
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    /**
+     * A role already applied for: how many applications it has and the one
+     * dated closest to the draft (the latest when the draft has no date).
+     */
+    public static final class RoleMatch {
+        private final Application closest;
+        private final int count;
+        private final double similarity;
+
+        private RoleMatch(Application closest, int count, double similarity) {
+            this.closest = closest;
+            this.count = count;
+            this.similarity = similarity;
+        }
+
+        // stored is the draft's row as indexed, when it is being edited
+        static RoleMatch of(Role role, Application draft, Application stored, double similarity) {
+            List<Application> apps = role.apps;
+            int count = apps.size();
+            int self = stored == null ? -1 : role.indexOf(stored);
+            if (self >= 0) {
+                count--;
+            }
+            if (count == 0) {
+                return null;
+            }
+            LocalDate date = draft.getApplicationDate();
+            int at = date == null ? apps.size() : role.insertionPoint(date, Integer.MIN_VALUE);
+            // nearest on either side of where the draft's date would go, skipping the draft itself
+            int before = at - 1 == self ? at - 2 : at - 1;
+            int after = at == self ? at + 1 : at;
+            Application closest;
+            if (after >= apps.size()) {
+                closest = apps.get(before);
+            } else if (before < 0) {
+                closest = apps.get(after);
+            } else {
+                closest = distance(apps.get(before), date) <= distance(apps.get(after), date)
+                        ? apps.get(before) : apps.get(after);
+            }
+            return new RoleMatch(closest, count, similarity);
+        }
+
+        private static long distance(Application a, LocalDate date) {
+            LocalDate d = a.getApplicationDate();
+            return d == null ? Long.MAX_VALUE : Math.abs(ChronoUnit.DAYS.between(date, d));
+        }
+
+        public Application getApplication() {
+            return closest;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /** Company similarity times position similarity; 1 for the same keys. */
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private static final class Company {
+        final String key;
+        final int[] grams;
+        final long[] blocks;
+        final Map<String, Integer> spellings = new HashMap<>(4);
+        final Map<String, Role> roles = new HashMap<>(4);
+        int rows;
+
+        Company(String key) {
+            this.key = key;
+            this.grams = Similarity.companyGrams(key);
+            this.blocks = Similarity.blocks(key, grams);
+        }
+
+        String mostUsedSpelling() {
+            String best = key;
+            int most = 0;
+            for (Map.Entry<String, Integer> e : spellings.entrySet()) {
+                if (e.getKey() != null && e.getValue() > most) {
+                    best = e.getKey();
+                    most = e.getValue();
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * The applications for one company and position key, in date then id
+     * order, so the one closest to a date is a binary search away. Null
+     * dates sort first.
+     */
+    private static final class Role {
+        final int[] grams;
+        final List<Application> apps = new ArrayList<>(2);
+
+        Role(int[] grams) {
+            this.grams = grams;
+        }
+
+        void add(Application app) {
+            apps.add(insertionPoint(app.getApplicationDate(), app.getId()), app);
+        }
+
+        void remove(Application app) {
+            int i = indexOf(app);
+            if (i >= 0) {
+                apps.remove(i);
+            }
+        }
+
+        int indexOf(Application app) {
+            int i = insertionPoint(app.getApplicationDate(), app.getId());
+            return i < apps.size() && apps.get(i).getId() == app.getId() ? i : -1;
+        }
+
+        // First position whose (date, id) is not below the given one
+        int insertionPoint(LocalDate date, int id) {
+            int lo = 0;
+            int hi = apps.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                Application a = apps.get(mid);
+                int c = compareDates(a.getApplicationDate(), date);
+                if (c < 0 || c == 0 && a.getId() < id) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static int compareDates(LocalDate a, LocalDate b) {
+            return a == null ? (b == null ? 0 : -1) : b == null ? 1 : a.compareTo(b);
+        }
+    }
+
+    private static final class Match {
+        final Company company;
+        final double similarity;
+
+        Match(Company company, double similarity) {
+            this.company = company;
+            this.similarity = similarity;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dedup;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reduces company names and job titles to a comparison key, so spellings
+ * of the same thing compare equal before any fuzzy matching:
+ *
+ *   "Google", "google inc." and "Google, LLC"      -> "google"
+ *   "The Home Depot, Inc."                         -> "home depot"
+ *   "Sr. Software Eng." and "Senior Software Engineer" -> "senior software engineer"
+ *
+ * Keys are lower case without accents or punctuation, words separated by
+ * single spaces. Companies lose a leading "the", "&" becomes "and", and
+ * trailing legal forms (Inc, LLC, GmbH, ...) are dropped. Positions have
+ * common abbreviations spelled out and "front end" / "back end" / "full
+ * stack" written as one word.
+ */
+public final class Names {
+
+    private static final Set<String> LEGAL_FORMS = Set.of(
+        "inc", "incorporated", "llc", "ltd", "limited", "corp", "corporation", "co", "company", "plc",
+        "gmbh", "ag", "sa", "sas", "bv", "nv", "llp", "lp", "pty", "srl", "spa", "oy", "ab", "as", "kk");
+
+    private static final Map<String, String> TITLE_WORDS = Map.ofEntries(
+        Map.entry("sr", "senior"), Map.entry("snr", "senior"), Map.entry("jr", "junior"),
+        Map.entry("eng", "engineer"), Map.entry("engr", "engineer"), Map.entry("dev", "developer"),
+        Map.entry("mgr", "manager"), Map.entry("mngr", "manager"), Map.entry("assoc", "associate"),
+        Map.entry("swe", "software engineer"), Map.entry("sde", "software engineer"),
+        Map.entry("sre", "site reliability engineer"), Map.entry("pm", "product manager"),
+        Map.entry("ml", "machine learning"), Map.entry("ai", "artificial intelligence"),
+        Map.entry("qa", "quality assurance"), Map.entry("ux", "user experience"),
+        Map.entry("fullstack", "fullstack"), Map.entry("frontend", "frontend"), Map.entry("backend", "backend"));
+
+    private static final Map<String, String> TITLE_PAIRS = Map.of(
+        "front end", "frontend", "back end", "backend", "full stack", "fullstack");
+
+    private Names() {
+    }
+
+    /** The comparison key of a company name; "" for null or blank. */
+    public static String company(String name) {
+        List<String> words = words(name);
+        words.replaceAll(w -> w.equals("&") ? "and" : w);
+        if (words.size() > 1 && words.get(0).equals("the")) {
+            words.remove(0);
+        }
+        int end = words.size();
+        while (end > 1 && LEGAL_FORMS.contains(words.get(end - 1))) {
+            end--;
+        }
+        return String.join(" ", words.subList(0, end));
+    }
+
+    /** The comparison key of a job title; "" for null or blank. */
+    public static String position(String title) {
+        List<String> out = new ArrayList<>();
+        for (String w : words(title)) {
+            if (w.equals("&")) {
+                w = "and";
+            }
+            String expanded = TITLE_WORDS.get(w);
+            if (expanded != null) {
+                out.addAll(Arrays.asList(expanded.split(" ")));
+            } else {
+                out.add(w);
+            }
+        }
+        for (int i = 0; i + 1 < out.size(); i++) {
+            String joined = TITLE_PAIRS.get(out.get(i) + " " + out.get(i + 1));
+            if (joined != null) {
+                out.set(i, joined);
+                out.remove(i + 1);
+            }
+        }
+        return String.join(" ", out);
+    }
+
+    // Lower-cased, accent-free words; "&" survives as a word of its own
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replace("&", " & ");
+        // dots inside abbreviations ("L.L.C.") join letters; other punctuation separates words
+        plain = plain.replaceAll("(?<=\\p{L})\\.(?=\\p{L}\\b)", "");
+        for (String w : plain.split("[^\\p{L}\\p{N}&]+")) {
+            if (!w.isEmpty()) {
+                words.add(w);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,279 @@
+package dedup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Character 3-gram sets, their Jaccard similarity, and the blocking keys
+ * that decide which company keys are compared at all.
+ *
+ * Grams are taken over the key with spaces removed and padded at both ends,
+ * so "blue field" and "bluefield" are the same set and first and last
+ * letters count as much as the middle ones. A gram is packed into an int,
+ * exactly for characters below U+0400 (Latin, Greek, Cyrillic after
+ * Names has stripped accents); others may share a gram.
+ *
+ * Company grams leave out GENERIC_WORDS, the industry words many unrelated
+ * companies share: otherwise "Novaleaf Technologies" and "Novaspring
+ * Technologies" would be nearer each other than "Novaleaf" is to a typo of
+ * itself. Whether those words agree is checked separately, in company().
+ *
+ * A company key has two kinds of blocking key, and two keys are compared
+ * when they share any one:
+ *
+ * - MinHash bands. Two gram sets with Jaccard similarity J agree on any one
+ *   MinHash value with probability J. The signature is cut into BANDS bands
+ *   of ROWS values, so a pair shares a band with probability
+ *   1 - (1 - J^ROWS)^BANDS: with 10 bands of 4 that is 75% at J = 0.6 and
+ *   98% at J = 0.75, against 1.6% at J = 0.2, a typical pair of names with a
+ *   syllable in common.
+ * - Deletion neighbours. Typos hit short names hardest in gram terms (one
+ *   swapped pair in "bluefield" leaves J = 0.38), so the key without spaces
+ *   and each copy of it with one letter deleted are hashed too. Keys one
+ *   insertion, deletion, substitution or transposition apart always share
+ *   one of those.
+ */
+final class Similarity {
+
+    static final int BANDS = 10;
+    static final int ROWS = 4;
+    static final int HASHES = BANDS * ROWS;
+
+    /**
+     * Least similarity at which two company keys are taken for the same
+     * company, unless they are one typo apart; see company().
+     */
+    static final double COMPANY_THRESHOLD = 0.6;
+    /** Least similarity at which two position keys are taken for the same role. */
+    static final double POSITION_THRESHOLD = 0.7;
+    /** Shortest key (without spaces) for which one edit still means a typo rather than another name. */
+    static final int MIN_TYPO_LENGTH = 6;
+
+    private static final Set<String> GENERIC_WORDS = Set.of(
+        "lab", "labs", "system", "systems", "technology", "technologies", "tech", "software", "solutions",
+        "services", "group", "holdings", "international", "global", "consulting", "partners", "network",
+        "networks", "analytics", "digital", "media", "health", "healthcare", "financial", "finance", "capital",
+        "bank", "energy", "security", "cloud", "games", "gaming", "logistics", "retail", "robotics", "bio",
+        "pharma", "ventures", "industries", "enterprises", "studio", "studios", "interactive", "data", "and");
+
+    private static final int[] SEEDS = new int[HASHES];
+
+    static {
+        int s = 0x9E3779B9;
+        for (int i = 0; i < HASHES; i++) {
+            s = mix(s + 0x9E3779B9);
+            SEEDS[i] = s;
+        }
+    }
+
+    private Similarity() {
+    }
+
+    /** The sorted, distinct 3-grams of a key; empty for an empty key. */
+    static int[] grams(String key) {
+        if (key.isEmpty()) {
+            return new int[0];
+        }
+        String padded = '\u0001' + compact(key) + '\u0002';
+        int n = padded.length() - 2;
+        int[] grams = new int[n];
+        for (int i = 0; i < n; i++) {
+            grams[i] = (padded.charAt(i) & 0x3FF) << 20 | (padded.charAt(i + 1) & 0x3FF) << 10
+                    | (padded.charAt(i + 2) & 0x3FF);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == n ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    /** The grams of a company key's distinctive words, or of the whole key if it has none. */
+    static int[] companyGrams(String key) {
+        StringBuilder distinctive = new StringBuilder(key.length());
+        for (String w : key.split(" ")) {
+            if (!GENERIC_WORDS.contains(w)) {
+                distinctive.append(w);
+            }
+        }
+        return grams(distinctive.length() == 0 ? key : distinctive.toString());
+    }
+
+    /** |a & b| / |a | b| of two sorted gram sets; 1 when both are empty. */
+    static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 && b.length == 0) {
+            return 1;
+        }
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /**
+     * Similarity of two company keys with their companyGrams: the Jaccard
+     * similarity, raised to COMPANY_THRESHOLD when the keys (without spaces,
+     * at least MIN_TYPO_LENGTH letters) are one insertion, deletion,
+     * substitution or transposition apart. Two kinds of key are different
+     * companies however many grams they share, and score 0: where one only
+     * adds whole words to the other ("bluefield" and "bluefield bio"), and,
+     * short of a typo, where their generic words differ ("bluefield labs"
+     * and "bluefield health").
+     */
+    static double company(String a, int[] gramsA, String b, int[] gramsB) {
+        double j = jaccard(gramsA, gramsB);
+        boolean typo = oneEditApart(compact(a), compact(b));
+        if (j < COMPANY_THRESHOLD && !typo) {
+            return j;
+        }
+        if (addsWords(a, b) || !typo && !genericWords(a).equals(genericWords(b))) {
+            return 0;
+        }
+        return typo ? Math.max(j, COMPANY_THRESHOLD) : j;
+    }
+
+    /** The MinHash signature of a gram set: HASHES minimums, one per seed. */
+    static int[] signature(int[] grams) {
+        int[] sig = new int[HASHES];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        for (int g : grams) {
+            for (int k = 0; k < HASHES; k++) {
+                int h = mix(g ^ SEEDS[k]);
+                if (h < sig[k]) {
+                    sig[k] = h;
+                }
+            }
+        }
+        return sig;
+    }
+
+    /**
+     * The blocking keys of a company key with its companyGrams: BANDS band
+     * hashes of the signature, in band order, then the deletion neighbours
+     * if the key is long enough for typos to count.
+     */
+    static long[] blocks(String key, int[] grams) {
+        int[] sig = signature(grams);
+        String compact = compact(key);
+        int typos = compact.length() >= MIN_TYPO_LENGTH ? compact.length() + 1 : 0;
+        long[] blocks = new long[BANDS + typos];
+        for (int b = 0; b < BANDS; b++) {
+            long h = b;
+            for (int r = b * ROWS; r < (b + 1) * ROWS; r++) {
+                h = h * 0x100000001B3L ^ (sig[r] & 0xFFFFFFFFL);
+            }
+            blocks[b] = finish(h);
+        }
+        // skip -1 deletes nothing: the key itself, for neighbours one letter longer
+        for (int skip = -1; skip < typos - 1; skip++) {
+            long h = 0x6A09E667F3BCC909L;
+            for (int i = 0; i < compact.length(); i++) {
+                if (i != skip) {
+                    h = (h ^ compact.charAt(i)) * 0x100000001B3L;
+                }
+            }
+            blocks[BANDS + skip + 1] = finish(h);
+        }
+        // a doubled letter gives the same deletion twice
+        Arrays.sort(blocks, BANDS, blocks.length);
+        int n = BANDS;
+        for (int i = BANDS; i < blocks.length; i++) {
+            if (i == BANDS || blocks[i] != blocks[n - 1]) {
+                blocks[n++] = blocks[i];
+            }
+        }
+        return n == blocks.length ? blocks : Arrays.copyOf(blocks, n);
+    }
+
+    // Whether the strings differ by at most one edit, transpositions included
+    private static boolean oneEditApart(String a, String b) {
+        if (a.length() > b.length()) {
+            String t = a;
+            a = b;
+            b = t;
+        }
+        if (a.length() < MIN_TYPO_LENGTH || b.length() - a.length() > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == a.length()) {
+            return true;
+        }
+        if (a.length() < b.length()) {
+            return a.regionMatches(i, b, i + 1, a.length() - i);
+        }
+        return a.regionMatches(i + 1, b, i + 1, a.length() - i - 1)
+                || i + 1 < a.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                   && a.regionMatches(i + 2, b, i + 2, a.length() - i - 2);
+    }
+
+    // Whether every word of one key is a word of the other, which has more ("and" aside)
+    private static boolean addsWords(String a, String b) {
+        List<String> wordsA = words(a);
+        List<String> wordsB = words(b);
+        if (wordsA.size() == wordsB.size()) {
+            return false;
+        }
+        return wordsA.size() < wordsB.size() ? wordsB.containsAll(wordsA) : wordsA.containsAll(wordsB);
+    }
+
+    private static Set<String> genericWords(String key) {
+        Set<String> generic = new HashSet<>();
+        for (String w : key.split(" ")) {
+            if (GENERIC_WORDS.contains(w)) {
+                generic.add(w);
+            }
+        }
+        return generic;
+    }
+
+    private static List<String> words(String key) {
+        List<String> words = new ArrayList<>(Arrays.asList(key.split(" ")));
+        words.remove("and");
+        return words;
+    }
+
+    private static String compact(String key) {
+        return key.indexOf(' ') < 0 ? key : key.replace(" ", "");
+    }
+
+    // MurmurHash3's 64-bit finaliser
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // MurmurHash3's 32-bit finaliser
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
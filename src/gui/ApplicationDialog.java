@@ -0,0 +1,345 @@
+package gui;
+
+import dedup.DuplicateClusters;
+import dedup.DuplicateIndex;
+import model.Application;
+import model.Status;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * The add / edit application form. MainWindow builds each one the first time
+ * it is needed and keeps it: open() refills the fields and shows it again,
+ * close() hides it without throwing the components away.
+ *
+ * Once the duplicate index covers the table, the form looks up what is being
+ * typed a moment after each keystroke: an existing spelling of the company
+ * (with a button to use it) and roles already applied for that look the
+ * same. Adding an application for a role applied for in the last few weeks
+ * asks for confirmation. The lookups run on a background thread, so a
+ * rebuild holding the index's write lock never stalls the EDT, and their
+ * results come back to it.
+ */
+class ApplicationDialog extends JDialog {
+
+    private final JTextField companyField  = new JTextField(24);
+    private final JTextField positionField = new JTextField(24);
+    private final JFormattedTextField dateField;
+    private final JComboBox<Status> statusBox = new JComboBox<>(Status.values());
+    private final JTextArea notesArea = new JTextArea(4, 24);
+    private final JButton submitBtn;
+
+    private static final Executor EDT = SwingUtilities::invokeLater;
+
+    // Suggestions under the form, filled in HINT_DELAY_MS after typing stops
+    private static final int HINT_DELAY_MS = 150;
+    private static final int MAX_DUPLICATE_HINTS = 3;
+    private final DuplicateIndex duplicates;
+    private final JLabel companyHint = new JLabel(" ");
+    private final JButton useNameBtn = new JButton("Use");
+    private final JLabel[] duplicateHints = new JLabel[MAX_DUPLICATE_HINTS];
+    private final Timer hintDelay;
+    private String suggestedName;
+    private int hintRequest;                  // bumped per lookup, so a slow one can't overwrite a newer one
+
+    private Application editing;              // row being edited, or null when adding
+    private Consumer<Application> onSubmit;
+
+    ApplicationDialog(Frame owner, String title, String submitLabel, DuplicateIndex duplicates) {
+        super(owner, title, true);
+        this.duplicates = duplicates;
+        setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+        setResizable(false);
+
+        // Root with padding
+        JPanel root = new JPanel(new BorderLayout(0, 12));
+        root.setBorder(BorderFactory.createEmptyBorder(16, 16, 16, 16));
+        setContentPane(root);
+
+        // ---- FORM (labels right, fields aligned) ----
+        JPanel form = new JPanel(new GridBagLayout());
+        GridBagConstraints g = new GridBagConstraints();
+        g.insets = new Insets(8, 8, 8, 8);
+        g.fill = GridBagConstraints.HORIZONTAL;
+
+        // yyyy-MM-dd field
+        JFormattedTextField dfTmp;
+        try {
+            javax.swing.text.MaskFormatter mf = new javax.swing.text.MaskFormatter("####-##-##");
+            mf.setPlaceholderCharacter('_');
+            dfTmp = new JFormattedTextField(mf);
+        } catch (java.text.ParseException ex) {
+            dfTmp = new JFormattedTextField();
+        }
+        dfTmp.setColumns(24);
+        dateField = dfTmp;
+
+        notesArea.setLineWrap(true);
+        notesArea.setWrapStyleWord(true);
+
+        // helper to add a row
+        java.util.function.BiConsumer<String, JComponent> row = (label, comp) -> {
+            int y = form.getComponentCount() / 2;
+            g.gridx = 0; g.gridy = y; g.weightx = 0;
+            form.add(new JLabel(label, SwingConstants.RIGHT), g);
+            g.gridx = 1; g.weightx = 1.0;
+            form.add(comp instanceof JTextArea ? new JScrollPane(comp) : comp, g);
+        };
+
+        row.accept("Company:",  companyField);
+        row.accept("Position:", positionField);
+        row.accept("Date (YYYY-MM-DD):", dateField);
+        row.accept("Status:",   statusBox);
+        row.accept("Notes:",    notesArea);
+
+        // ---- HINTS (fixed height, so the dialog doesn't jump as they change) ----
+        JPanel hints = new JPanel();
+        hints.setLayout(new BoxLayout(hints, BoxLayout.Y_AXIS));
+        hints.setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 8));
+        int width = form.getPreferredSize().width - 16;
+        useNameBtn.setMargin(new Insets(0, 6, 0, 6));
+        useNameBtn.setVisible(false);
+        useNameBtn.addActionListener(e -> companyField.setText(suggestedName));
+        JPanel companyRow = new JPanel(new BorderLayout(8, 0));
+        companyRow.add(companyHint, BorderLayout.CENTER);
+        companyRow.add(useNameBtn, BorderLayout.EAST);
+        companyRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        companyRow.setPreferredSize(new Dimension(width, useNameBtn.getPreferredSize().height));
+        companyRow.setMaximumSize(companyRow.getPreferredSize());
+        hints.add(companyRow);
+        for (int i = 0; i < duplicateHints.length; i++) {
+            duplicateHints[i] = new JLabel(" ");
+            duplicateHints[i].setForeground(new Color(0xB0_5A_00));
+            duplicateHints[i].setAlignmentX(Component.LEFT_ALIGNMENT);
+            Dimension d = new Dimension(width, duplicateHints[i].getPreferredSize().height);
+            duplicateHints[i].setPreferredSize(d);
+            duplicateHints[i].setMaximumSize(d);
+            hints.add(duplicateHints[i]);
+        }
+        hints.setVisible(duplicates != null);
+
+        JPanel center = new JPanel(new BorderLayout(0, 4));
+        center.add(form, BorderLayout.CENTER);
+        center.add(hints, BorderLayout.SOUTH);
+        root.add(center, BorderLayout.CENTER);
+
+        // ---- BUTTON BAR ----
+        submitBtn = new JButton(submitLabel);
+        JButton cancelBtn = new JButton("Cancel");
+
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        actions.add(cancelBtn);
+        actions.add(submitBtn);
+        root.add(actions, BorderLayout.SOUTH);
+
+        // Default button (Enter) & ESC to close
+        getRootPane().setDefaultButton(submitBtn);
+        KeyStroke esc = KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_ESCAPE, 0);
+        getRootPane().registerKeyboardAction(e -> close(), esc, JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        // Enable/disable submit based on required fields, and look the entry up once typing pauses
+        hintDelay = new Timer(HINT_DELAY_MS, e -> updateHints());
+        hintDelay.setRepeats(false);
+        javax.swing.event.DocumentListener dl = new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { changed(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { changed(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { changed(); }
+        };
+        companyField.getDocument().addDocumentListener(dl);
+        positionField.getDocument().addDocumentListener(dl);
+        dateField.getDocument().addDocumentListener(dl);
+
+        submitBtn.addActionListener(e -> submit());
+        cancelBtn.addActionListener(e -> close());
+
+        pack();
+    }
+
+    /**
+     * Fills the form from the application, or with defaults when app is null,
+     * and shows it. onSubmit gets the row as entered (with app's id and
+     * version) and must close() the dialog or call enableSubmit() again.
+     */
+    void open(Application app, Consumer<Application> onSubmit) {
+        this.editing = app;
+        this.onSubmit = onSubmit;
+        companyField.setText(app == null ? "" : app.getCompany());
+        positionField.setText(app == null ? "" : app.getPosition());
+        dateField.setText(app == null ? LocalDate.now().toString() : app.getApplicationDate().toString());
+        statusBox.setSelectedItem(app == null ? Status.APPLIED : app.getStatus());
+        notesArea.setText(app == null ? "" : app.getNotes());
+        enableSubmit();
+        hintDelay.stop();
+        showHints("", List.of(), List.of()); // not the last entry's while this one is looked up
+        updateHints();
+        companyField.requestFocusInWindow();
+        setLocationRelativeTo(getOwner());  // center on parent
+        setVisible(true);
+    }
+
+    void close() {
+        hintDelay.stop();
+        hintRequest++;
+        setVisible(false);
+    }
+
+    private void changed() {
+        enableSubmit();
+        hintDelay.restart();
+    }
+
+    /** Enables submit if the required fields are filled in. */
+    void enableSubmit() {
+        submitBtn.setEnabled(!companyField.getText().trim().isEmpty()
+                          && !positionField.getText().trim().isEmpty()
+                          && dateField.getText().matches("\\d{4}-\\d{2}-\\d{2}"));
+    }
+
+    private void submit() {
+        // final validation
+        LocalDate date = parseDate(dateField.getText().trim());
+        if (date == null) {
+            JOptionPane.showMessageDialog(this, "Please enter date as YYYY-MM-DD.");
+            return;
+        }
+        Application app = new Application(
+            editing == null ? 0 : editing.getId(),
+            companyField.getText().trim(),
+            positionField.getText().trim(),
+            date,
+            (Status) statusBox.getSelectedItem(),
+            notesArea.getText().trim()
+        );
+        submitBtn.setEnabled(false);
+        if (editing != null) {
+            app.setVersion(editing.getVersion());
+            onSubmit.accept(app);
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> recentSameRole(app)).whenCompleteAsync((earlier, err) -> {
+            if (!isVisible()) {
+                return; // cancelled while it looked
+            }
+            if (err != null) {
+                System.out.println("Error looking up duplicates: " + err.getMessage());
+            }
+            if (earlier != null && !confirmDuplicate(earlier)) {
+                enableSubmit();
+                return;
+            }
+            onSubmit.accept(app);
+        }, EDT);
+    }
+
+    /**
+     * Looks up the closest existing spelling of the company and up to
+     * MAX_DUPLICATE_HINTS roles that look like this entry off the EDT, then
+     * shows them; until the index covers the table the hints stay empty.
+     */
+    private void updateHints() {
+        int request = ++hintRequest;
+        if (duplicates == null || !duplicates.isReady()) {
+            showHints("", List.of(), List.of());
+            return;
+        }
+        String company = companyField.getText().trim();
+        Application draft = draft();
+        CompletableFuture<List<DuplicateIndex.CompanyMatch>> names =
+                CompletableFuture.supplyAsync(() -> duplicates.similarCompanies(company, 1));
+        CompletableFuture<List<DuplicateIndex.RoleMatch>> roles =
+                CompletableFuture.supplyAsync(() -> duplicates.possibleDuplicates(draft, duplicateHints.length));
+        names.thenAcceptBothAsync(roles, (n, r) -> {
+            if (request == hintRequest) {
+                showHints(company, n, r);
+            }
+        }, EDT).exceptionally(err -> {
+            System.out.println("Error looking up duplicates: " + err.getMessage());
+            return null;
+        });
+    }
+
+    // Replaces the hints with the results of a lookup for company
+    private void showHints(String company, List<DuplicateIndex.CompanyMatch> names,
+                           List<DuplicateIndex.RoleMatch> roles) {
+        suggestedName = null;
+        companyHint.setText(" ");
+        for (JLabel hint : duplicateHints) {
+            hint.setText(" ");
+            hint.setToolTipText(null);
+        }
+        if (!names.isEmpty()) {
+            DuplicateIndex.CompanyMatch best = names.get(0);
+            String count = best.getApplications() + (best.getApplications() == 1 ? " application" : " applications");
+            if (best.getName().equals(company)) {
+                companyHint.setText(count + " to " + best.getName() + " so far");
+            } else {
+                suggestedName = best.getName();
+                companyHint.setText("Did you mean \"" + best.getName() + "\"? (" + count + ")");
+            }
+        }
+        useNameBtn.setVisible(suggestedName != null);
+
+        for (int i = 0; i < roles.size(); i++) {
+            DuplicateIndex.RoleMatch role = roles.get(i);
+            Application a = role.getApplication();
+            duplicateHints[i].setText("Already applied: " + a.getCompany() + " - " + a.getPosition() + ", "
+                    + a.getApplicationDate() + " (" + a.getStatus() + ")"
+                    + (role.getCount() > 1 ? " and " + (role.getCount() - 1) + " more" : ""));
+            duplicateHints[i].setToolTipText(duplicateHints[i].getText());
+        }
+    }
+
+    // The form as an application, for lookups; fields may be incomplete
+    private Application draft() {
+        return new Application(editing == null ? 0 : editing.getId(), companyField.getText().trim(),
+                positionField.getText().trim(), parseDate(dateField.getText().trim()),
+                (Status) statusBox.getSelectedItem(), null);
+    }
+
+    // The same role applied for within SAME_ROLE_DAYS of this one, or null; runs off the EDT
+    private Application recentSameRole(Application app) {
+        if (duplicates == null || !duplicates.isReady()) {
+            return null;
+        }
+        List<DuplicateIndex.RoleMatch> same = duplicates.possibleDuplicates(app, 1);
+        if (same.isEmpty() || same.get(0).getSimilarity() < 1) {
+            return null;
+        }
+        Application earlier = same.get(0).getApplication();
+        if (earlier.getApplicationDate() == null || Math.abs(ChronoUnit.DAYS.between(earlier.getApplicationDate(),
+                app.getApplicationDate())) > DuplicateClusters.SAME_ROLE_DAYS) {
+            return null;
+        }
+        return earlier;
+    }
+
+    // Asks before adding a role already applied for recently
+    private boolean confirmDuplicate(Application earlier) {
+        return JOptionPane.showConfirmDialog(this,
+                "You applied for " + earlier.getPosition() + " at " + earlier.getCompany()
+                        + " on " + earlier.getApplicationDate() + " (" + earlier.getStatus() + ").\n"
+                        + "Add this application anyway?",
+                "Possible Duplicate", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE)
+                == JOptionPane.YES_OPTION;
+    }
+
+    // The date typed into the form, or null unless it is a real YYYY-MM-DD date
+    private static LocalDate parseDate(String text) {
+        if (!text.matches("\\d{4}-\\d{2}-\\d{2}")) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package gui;
+
+import model.Application;
+import model.Status;
+import snapshot.ApplicationSnapshot;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only table model backed directly by a list of Applications. Cells are
+ * read from the objects when the table paints them, so loading rows is a
+ * list append plus one table event instead of a copy per cell.
+ *
+ * The list can also be a snapshot view (setView), in which case rows are
+ * built from the columnar snapshot only as they are painted.
+ */
+public class ApplicationTableModel extends AbstractTableModel {
+
+    public static final int ID = 0, COMPANY = 1, POSITION = 2, DATE = 3, STATUS = 4, NOTES = 5;
+
+    private static final String[] COLUMNS = {"ID", "Company", "Position", "Date", "Status", "Notes"};
+
+    private List<Application> rows = new ArrayList<>();
+
+    public Application getApplicationAt(int row) {
+        return rows.get(row);
+    }
+
+    /** Row index of the application with this id, or -1 if it isn't loaded. */
+    public int indexOfId(int id) {
+        if (rows instanceof ApplicationSnapshot.View) {
+            return ((ApplicationSnapshot.View) rows).indexOfId(id);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Replaces the whole contents with a single change event. */
+    public void setApplications(Collection<Application> apps) {
+        rows = new ArrayList<>(apps);
+        fireTableDataChanged();
+    }
+
+    /** Shows a snapshot view directly, without copying or building its rows. */
+    public void setView(ApplicationSnapshot.View view) {
+        rows = view;
+        fireTableDataChanged();
+    }
+
+    /** Appends rows (e.g. the next page) with a single insert event. */
+    public void addAll(Collection<Application> apps) {
+        if (apps.isEmpty()) {
+            return;
+        }
+        int first = rows.size();
+        rows.addAll(apps);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    public void insert(int row, Application app) {
+        rows.add(row, app);
+        fireTableRowsInserted(row, row);
+    }
+
+    public void update(int row, Application app) {
+        rows.set(row, app);
+        fireTableRowsUpdated(row, row);
+    }
+
+    public void remove(int row) {
+        rows.remove(row);
+        fireTableRowsDeleted(row, row);
+    }
+
+    public void clear() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int last = rows.size() - 1;
+        rows.clear();
+        fireTableRowsDeleted(0, last);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case ID:     return Integer.class;
+            case DATE:   return LocalDate.class;
+            case STATUS: return Status.class;
+            default:     return String.class;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // edits go through the edit dialog
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Application app = rows.get(row);
+        switch (column) {
+            case ID:       return app.getId();
+            case COMPANY:  return app.getCompany();
+            case POSITION: return app.getPosition();
+            case DATE:     return app.getApplicationDate();
+            case STATUS:   return app.getStatus();
+            case NOTES:    return app.getNotes();
+            default:       throw new IndexOutOfBoundsException("column " + column);
+        }
+    }
+}
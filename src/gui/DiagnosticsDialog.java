@@ -0,0 +1,139 @@
+package gui;
+
+import metrics.Metrics;
+import metrics.Operation;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live view of Metrics: one row per operation (calls, errors, rows and
+ * latency percentiles), the gauges, and the most recent slow calls.
+ * Refreshes every second while it is open; opening it also starts the EDT
+ * stall probe, so UI freezes show up as ui.edtStall.
+ */
+class DiagnosticsDialog extends JDialog {
+
+    private static final int REFRESH_MS = 1_000;
+
+    private final OperationsModel operations = new OperationsModel();
+    private final JLabel gauges = new JLabel();
+    private final DefaultListModel<String> slow = new DefaultListModel<>();
+    private final Timer timer;
+
+    DiagnosticsDialog(Frame owner) {
+        super(owner, "Diagnostics", false);
+        setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+
+        JPanel root = new JPanel(new BorderLayout(0, 8));
+        root.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        setContentPane(root);
+
+        JTable table = new JTable(operations);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(760, 300));
+        root.add(tableScroll, BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel(new BorderLayout(8, 0));
+        gauges.setVerticalAlignment(SwingConstants.TOP);
+        gauges.setBorder(BorderFactory.createTitledBorder("Gauges"));
+        bottom.add(gauges, BorderLayout.WEST);
+        JScrollPane slowScroll = new JScrollPane(new JList<>(slow));
+        slowScroll.setBorder(BorderFactory.createTitledBorder(
+                "Slow calls (over " + Metrics.SLOW_NANOS / 1_000_000 + " ms), newest first"));
+        slowScroll.setPreferredSize(new Dimension(0, 140));
+        bottom.add(slowScroll, BorderLayout.CENTER);
+        root.add(bottom, BorderLayout.SOUTH);
+
+        timer = new Timer(REFRESH_MS, e -> refresh());
+        pack();
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            EdtStallProbe.start();
+            refresh();
+            timer.start();
+        } else {
+            timer.stop();
+        }
+        super.setVisible(visible);
+    }
+
+    private void refresh() {
+        operations.refresh();
+
+        StringBuilder html = new StringBuilder("<html>");
+        for (Map.Entry<String, Double> e : Metrics.gaugeValues().entrySet()) {
+            double v = e.getValue();
+            html.append(e.getKey()).append(": ")
+                .append(v == Math.rint(v) ? String.valueOf((long) v) : String.format("%.2f", v)).append("<br>");
+        }
+        gauges.setText(html.append("</html>").toString());
+
+        List<String> lines = Metrics.slowLog();
+        slow.clear();
+        for (String line : lines) {
+            slow.addElement(line);
+        }
+    }
+
+    /** Operations as rows; values are read once per refresh. */
+    private static final class OperationsModel extends AbstractTableModel {
+        private static final String[] COLUMNS =
+            {"Operation", "Calls", "Errors", "Rows", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"};
+
+        private List<Object[]> rows = new ArrayList<>();
+
+        void refresh() {
+            List<Object[]> next = new ArrayList<>();
+            for (Operation op : Metrics.operations()) {
+                if (op.getCount() == 0) {
+                    continue;
+                }
+                next.add(new Object[] {op.getName(), op.getCount(), op.getErrors(), op.getRows(),
+                    op.getMeanMillis(), op.getP50Millis(), op.getP90Millis(), op.getP99Millis(), op.getMaxMillis()});
+            }
+            boolean sameRows = next.size() == rows.size();
+            rows = next;
+            if (sameRows && !rows.isEmpty()) {
+                fireTableRowsUpdated(0, rows.size() - 1); // keeps the user's sort and selection
+            } else {
+                fireTableDataChanged();
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : column <= 3 ? Long.class : Double.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Object v = rows.get(row)[column];
+            return v instanceof Double ? Math.round((Double) v * 100) / 100.0 : v;
+        }
+    }
+}
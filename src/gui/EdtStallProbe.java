@@ -0,0 +1,76 @@
+package gui;
+
+import metrics.Metrics;
+import metrics.Operation;
+
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Measures how long the event dispatch thread stays busy. A daemon thread
+ * posts an empty task every PERIOD_MS and times how long it takes to run;
+ * the longest wait is the worst UI freeze the user saw.
+ *
+ * Every wait is also recorded in Metrics as ui.edtStall, so its percentiles
+ * show up in JMX and the diagnostics window.
+ *
+ * Enabled with -Dtracker.edtProbe=true, in which case the result is also
+ * printed on exit, or started by the diagnostics window when it first opens.
+ */
+public class EdtStallProbe {
+
+    private static final long PERIOD_MS = 20;
+
+    private static final Operation stalls = Metrics.operation("ui.edtStall");
+
+    private static volatile long maxStallNanos;
+    private static volatile long samples;
+    private static boolean started;
+
+    public static void startIfEnabled() {
+        if (!Boolean.getBoolean("tracker.edtProbe")) {
+            return;
+        }
+        start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            System.out.printf("Longest EDT stall: %.1f ms over %d samples%n", getMaxStallMillis(), samples)));
+    }
+
+    /** Starts probing unless it already is. */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Thread t = new Thread(EdtStallProbe::run, "edt-stall-probe");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public static double getMaxStallMillis() {
+        return maxStallNanos / 1_000_000.0;
+    }
+
+    private static void run() {
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                SwingUtilities.invokeAndWait(() -> { });
+            } catch (InterruptedException e) {
+                return;
+            } catch (InvocationTargetException ignored) {
+                // the task is empty, nothing to report
+            }
+            long stall = stalls.stop(start);
+            if (stall > maxStallNanos) {
+                maxStallNanos = stall;
+            }
+            samples++;
+            try {
+                Thread.sleep(PERIOD_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -1,21 +1,102 @@
 package gui;
 
-import db.ApplicationDAO;
+import db.ApplicationRepository;
+import db.AsyncApplicationDAO;
+import db.Backends;
+import db.ChangeCursor;
+import db.PageCache;
+import db.StaleUpdateException;
+import dedup.DuplicateIndex;
+import metrics.Metrics;
+import metrics.Operation;
 import model.Application;
+import model.Status;
+import search.SearchIndex;
+import snapshot.ApplicationSnapshot;
+import stats.ApplicationStats;
+import table.TableIndex;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class MainWindow extends JFrame {
 
     private JTable table;
-    private DefaultTableModel tableModel;
+    private ApplicationTableModel tableModel;
     private JComboBox<String> filterBox;
-    private ApplicationDAO dao = new ApplicationDAO();
+    private JTextField searchField;
+    private AsyncApplicationDAO dao;
+
+    // Keystroke search: in memory when the table fits, the backend's own search otherwise
+    private static final int SEARCH_LIMIT = 1_000;
+    private static final int MAX_INDEXED_ROWS = 2_000_000;
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    // Company suggestions and duplicate warnings in the add / edit dialogs, from the same load
+    private final DuplicateIndex duplicateIndex = new DuplicateIndex();
+
+    // Dashboard figures, kept current from the same change events as the index
+    private final ApplicationStats stats = new ApplicationStats();
+    private StatsPanel statsPanel;
+
+    // Once the whole table is in memory: sorting by any column (header clicks)
+    // and the company / date filters, without the backend. Until then the
+    // table pages newest first.
+    private final TableIndex tableIndex = new TableIndex();
+    private TableIndex.Column sortColumn = TableIndex.Column.DATE;
+    private boolean sortDescending = true;
+    private JTextField companyField, fromField, toField;
+
+    // Optional (-Dtracker.snapshot=true): hold the table as a columnar snapshot
+    // and filter it in memory instead of paging from the database
+    private static final boolean SNAPSHOT_MODE = Boolean.getBoolean("tracker.snapshot");
+    private ApplicationSnapshot snapshot;
+    private volatile boolean snapshotStale = true;
+
+    // Runs completion stages back on the event dispatch thread
+    private static final Executor EDT = SwingUtilities::invokeLater;
+    private CompletableFuture<?> pendingLoad;
+
+    // Paging state: rows are fetched PAGE_SIZE at a time as the user scrolls
+    private static final int PAGE_SIZE = 200;
+    private Application lastLoaded;
+    private boolean hasMore;
+
+    // Periodic refresh tails the shared change feed, so other clients' edits
+    // and deletes show up without reloading. A full batch means more is
+    // waiting and is read on at once; a backlog of RELOAD_BATCHES full
+    // batches in a row (a bulk change elsewhere) is cheaper to reload.
+    private static final int REFRESH_INTERVAL_MS = 2_000;
+    private static final int REFRESH_LIMIT = 1_000;
+    private static final int RELOAD_BATCHES = 10;
+    private ChangeCursor changes;
+    private boolean refreshing;
+    private int fullBatches;
+
+    // Built on first use and reused
+    private ApplicationDialog addDialog, editDialog;
+    private DiagnosticsDialog diagnostics;
+
+    // UI timings in Metrics: from asking for rows to showing them, and painting the table
+    private static final Operation loadOp = Metrics.operation("ui.load");
+    private static final Operation pageOp = Metrics.operation("ui.nextPage");
+    private static final Operation paintOp = Metrics.operation("ui.paintTable");
+    private long loadStarted, pageStarted;  // System.nanoTime(), 0 when nothing is pending
+
+    // The default view's first page, saved on exit and shown at the next start
+    // until the backend answers
+    private final PageCache pageCache = new PageCache(Backends.dataDir());
+    private boolean showingCached;
 
     public MainWindow() {
         setTitle("Job Application Tracker");
@@ -23,73 +104,548 @@ public class MainWindow extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
+        // Open the backend in the background while the window is built;
+        // requests made meanwhile wait for it
+        dao = new AsyncApplicationDAO(this::openBackend);
+        dao.opened().whenCompleteAsync((ok, err) -> {
+            if (err != null) {
+                JOptionPane.showMessageDialog(this, "Could not open the application store: "
+                        + (err.getCause() != null ? err.getCause().getMessage() : err.getMessage()));
+            }
+        }, EDT);
+
         // Filter Dropdown
         String[] filterOptions = {"All", "Applied", "Interviewed", "Rejected", "Accepted"};
         filterBox = new JComboBox<>(filterOptions);
         filterBox.addActionListener(e -> loadApplications());
-        add(filterBox, BorderLayout.NORTH);
+
+        // Search box, re-run shortly after the user stops typing
+        searchField = new JTextField();
+        searchField.setToolTipText("Search company, position and notes");
+        Timer searchDelay = new Timer(120, e -> loadApplications());
+        searchDelay.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+        });
+
+        // Company prefix and date range, applied as the search box is
+        companyField = new JTextField(10);
+        fromField = new JTextField(8);
+        toField = new JTextField(8);
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        filterPanel.add(new JLabel("Company starts with:"));
+        filterPanel.add(companyField);
+        filterPanel.add(new JLabel("From:"));
+        filterPanel.add(fromField);
+        filterPanel.add(new JLabel("To:"));
+        filterPanel.add(toField);
+        for (JTextField field : new JTextField[] {companyField, fromField, toField}) {
+            field.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+                public void insertUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+                public void removeUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+                public void changedUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+            });
+        }
+
+        JPanel searchPanel = new JPanel(new BorderLayout(4, 0));
+        searchPanel.add(new JLabel("Search:"), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        JPanel topPanel = new JPanel(new BorderLayout(8, 4));
+        topPanel.add(filterBox, BorderLayout.WEST);
+        topPanel.add(searchPanel, BorderLayout.CENTER);
+        topPanel.add(filterPanel, BorderLayout.SOUTH);
+        setRowFiltersEnabled(false); // until the table is in memory
+        add(topPanel, BorderLayout.NORTH);
 
         // Table Setup with Non-Editable Model
-        String[] columns = {"ID", "Company", "Position", "Date", "Status", "Notes"};
-        tableModel = new DefaultTableModel(columns, 0) {
+        tableModel = new ApplicationTableModel();
+        table = new JTable(tableModel) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Disable cell editing
+            protected void paintComponent(Graphics g) {
+                long start = System.nanoTime();
+                super.paintComponent(g);
+                paintOp.stop(start);
             }
         };
-        table = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(table);
         table.removeColumn(table.getColumnModel().getColumn(0)); // remove id view
         add(scrollPane, BorderLayout.CENTER);
 
+        // Fetch the next page when the user scrolls near the bottom
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = (JScrollBar) e.getAdjustable();
+            if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - table.getRowHeight() * 20) {
+                loadNextPage();
+            }
+        });
+
         // Button Panel
         JPanel buttonPanel = new JPanel();
         JButton addBtn = new JButton("Add Application");
         JButton deleteBtn = new JButton("Delete Selected");
+        JButton importBtn = new JButton("Import...");
+        JButton exportBtn = new JButton("Export...");
+        JToggleButton statsBtn = new JToggleButton("Statistics");
+        JButton diagnosticsBtn = new JButton("Diagnostics");
         buttonPanel.add(addBtn);
         buttonPanel.add(deleteBtn);
+        buttonPanel.add(importBtn);
+        buttonPanel.add(exportBtn);
+        buttonPanel.add(statsBtn);
+        buttonPanel.add(diagnosticsBtn);
         add(buttonPanel, BorderLayout.SOUTH);
 
+        // Statistics side panel, hidden until asked for
+        statsPanel = new StatsPanel(stats);
+        statsPanel.setVisible(false);
+        add(statsPanel, BorderLayout.EAST);
+
         // Button Actions
         addBtn.addActionListener(e -> openAddDialog());
         deleteBtn.addActionListener(e -> deleteSelected());
+        importBtn.addActionListener(e -> importFile());
+        exportBtn.addActionListener(e -> exportFile());
+        statsBtn.addActionListener(e -> {
+            statsPanel.setVisible(statsBtn.isSelected());
+            revalidate();
+        });
+        diagnosticsBtn.addActionListener(e -> {
+            if (diagnostics == null) {
+                diagnostics = new DiagnosticsDialog(this);
+                diagnostics.setLocationRelativeTo(this);
+            }
+            diagnostics.setVisible(true);
+        });
+
+        // Header clicks sort by that column, again to reverse it
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                TableIndex.Column column = sortColumnAt(table.convertColumnIndexToModel(
+                        table.columnAtPoint(e.getPoint())));
+                if (column == null || !useIndex()) {
+                    return;
+                }
+                sortDescending = column == sortColumn && !sortDescending;
+                sortColumn = column;
+                showSortArrow();
+                loadApplications();
+            }
+        });
 
         // Double-Click Listener for Editing
         table.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
-                if (e.getClickCount() == 2 && table.getSelectedRow() != -1) {
+                // rows from the page cache carry no version to edit against
+                if (e.getClickCount() == 2 && table.getSelectedRow() != -1 && !showingCached) {
                     openEditDialog(table.getSelectedRow());
                 }
             }
         });
 
+        new Timer(REFRESH_INTERVAL_MS, e -> refreshChanges()).start();
+
+        addWindowListener(new WindowAdapter() {
+            public void windowOpened(WindowEvent e) { StartupTimes.firstFrame(); }
+            public void windowClosing(WindowEvent e) { savePageCache(); }
+        });
+
         pack();
         setMinimumSize(new Dimension(850, 350));
-        loadApplications(); 
+        loadApplications();
+        showPageCache();
+        buildSearchIndex();
         setLocationRelativeTo(null);
         setVisible(true);
     }
 
+    // Runs on a background thread from AsyncApplicationDAO
+    private ApplicationRepository openBackend() {
+        ApplicationRepository backing = Backends.open();
+        backing.addChangeListener(searchIndex);
+        backing.addChangeListener(stats);
+        backing.addChangeListener(tableIndex);
+        backing.addChangeListener(duplicateIndex);
+        backing.addChangeListener(new ApplicationRepository.ChangeListener() {
+            public void applicationSaved(Application app) { snapshotStale = true; }
+            public void applicationDeleted(int id) { snapshotStale = true; }
+            public void applicationsReplaced() { snapshotStale = true; }
+            public void updateDropped(Application queued, Application current) {
+                SwingUtilities.invokeLater(() -> showDroppedUpdate(queued, current));
+            }
+        });
+        Backends.warmUp();
+        StartupTimes.backendOpen();
+        return backing;
+    }
+
+    // Shows the rows saved at the last exit, unless the real first page got here first
+    private void showPageCache() {
+        CompletableFuture.supplyAsync(pageCache::load).thenAcceptAsync(rows -> {
+            if (rows.isEmpty() || pendingLoad == null || pendingLoad.isDone() || !isDefaultView()) {
+                return;
+            }
+            tableModel.setApplications(rows);
+            showingCached = true;
+            StartupTimes.cachedRows();
+        }, EDT);
+    }
+
+    private void savePageCache() {
+        if (isDefaultView() && !showingCached && tableModel.getRowCount() > 0) {
+            int n = Math.min(PAGE_SIZE, tableModel.getRowCount());
+            List<Application> rows = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                rows.add(tableModel.getApplicationAt(i));
+            }
+            pageCache.save(rows);
+        }
+    }
+
+    // All statuses, no search text, newest first: what the window starts with
+    private boolean isDefaultView() {
+        return selectedStatus() == null && searchText().isEmpty() && !SNAPSHOT_MODE
+            && sortColumn == TableIndex.Column.DATE && sortDescending && rowFilter() == TableIndex.Filter.ALL;
+    }
+
     private void loadApplications() {
-        tableModel.setRowCount(0); // Clear table
-        List<Application> apps = dao.getAllApplications();
-        String selectedFilter = (String) filterBox.getSelectedItem();
+        // A newer load supersedes any that is still in flight
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+        }
+        loadStarted = System.nanoTime();
+        tableModel.clear();
+        showingCached = false;
+        lastLoaded = null;
+        hasMore = true;
+        pendingLoad = null;
+        setRowFiltersEnabled(useIndex());
+        showSortArrow();
+        dao.getLatestChangeSeq().thenAcceptAsync(seq -> changes = new ChangeCursor(seq), EDT);
+        if (!searchText().isEmpty()) {
+            search();
+            return;
+        }
+        if (useIndex()) {
+            showIndexed();
+            return;
+        }
+        if (SNAPSHOT_MODE) {
+            showSnapshot();
+            return;
+        }
+        loadNextPage();
+    }
 
-        for (Application app : apps) {
-            if (!"All".equals(selectedFilter) && !app.getStatus().equalsIgnoreCase(selectedFilter)) {
-                continue;
+    // Records the load started by loadApplications, once its rows are on screen
+    private void loaded(int rows) {
+        if (loadStarted != 0) {
+            loadOp.stop(loadStarted, rows);
+            loadStarted = 0;
+        }
+    }
+
+    private boolean useIndex() {
+        return tableIndex.isReady() && !SNAPSHOT_MODE;
+    }
+
+    /**
+     * Shows the in-memory table, filtered and in the chosen order. The work
+     * (a walk over a presorted order) runs off the EDT; the selected row stays
+     * selected if it is still shown.
+     */
+    private void showIndexed() {
+        hasMore = false;
+        TableIndex.Column column = sortColumn;
+        boolean descending = sortDescending;
+        TableIndex.Filter filter = rowFilter();
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+        }
+        pendingLoad = CompletableFuture.supplyAsync(() -> tableIndex.select(column, descending, filter))
+            .thenAcceptAsync(rows -> {
+                int selected = table.getSelectedRow();
+                int selectedId = selected == -1 ? -1 : tableModel.getApplicationAt(selected).getId();
+                showingCached = false;
+                StartupTimes.firstData();
+                tableModel.setApplications(rows);
+                loaded(rows.size());
+                int row = selectedId == -1 ? -1 : tableModel.indexOfId(selectedId);
+                if (row != -1) {
+                    table.setRowSelectionInterval(row, row);
+                }
+            }, EDT);
+    }
+
+    // The status, company and date filters; ALL when none is set
+    private TableIndex.Filter rowFilter() {
+        Status status = selectedStatus();
+        boolean inMemory = companyField.isEnabled();
+        String company = inMemory ? companyField.getText().trim() : "";
+        LocalDate from = inMemory ? parseDate(fromField.getText()) : null;
+        LocalDate to = inMemory ? parseDate(toField.getText()) : null;
+        if (status == null && company.isEmpty() && from == null && to == null) {
+            return TableIndex.Filter.ALL;
+        }
+        return new TableIndex.Filter(status == null ? null : EnumSet.of(status), from, to, company);
+    }
+
+    // A date typed into a filter field, or null (no bound) unless it is YYYY-MM-DD
+    private static LocalDate parseDate(String text) {
+        try {
+            return text.isBlank() ? null : LocalDate.parse(text.trim());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static TableIndex.Column sortColumnAt(int modelColumn) {
+        switch (modelColumn) {
+            case ApplicationTableModel.ID:       return TableIndex.Column.ID;
+            case ApplicationTableModel.COMPANY:  return TableIndex.Column.COMPANY;
+            case ApplicationTableModel.POSITION: return TableIndex.Column.POSITION;
+            case ApplicationTableModel.DATE:     return TableIndex.Column.DATE;
+            case ApplicationTableModel.STATUS:   return TableIndex.Column.STATUS;
+            default:                             return null;
+        }
+    }
+
+    // Marks the sorted column's header with an arrow
+    private void showSortArrow() {
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            int model = table.convertColumnIndexToModel(i);
+            String name = tableModel.getColumnName(model);
+            if (useIndex() && sortColumnAt(model) == sortColumn) {
+                name += sortDescending ? " \u25BC" : " \u25B2";
             }
-            tableModel.addRow(new Object[]{
-                app.getId(),
-                app.getCompany(),
-                app.getPosition(),
-                app.getApplicationDate(),
-                app.getStatus(),
-                app.getNotes()
+            table.getColumnModel().getColumn(i).setHeaderValue(name);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    // Filters the snapshot by scanning its status column; reloads it first if a write made it stale
+    private void showSnapshot() {
+        hasMore = false;
+        CompletableFuture<ApplicationSnapshot> ready;
+        if (snapshot == null || snapshotStale) {
+            snapshotStale = false;
+            ready = dao.loadSnapshot();
+        } else {
+            ready = CompletableFuture.completedFuture(snapshot);
+        }
+        pendingLoad = ready.thenAcceptAsync(s -> {
+            snapshot = s;
+            tableModel.setView(s.view(s.select(selectedStatus(), null, null)));
+            loaded(tableModel.getRowCount());
+        }, EDT);
+    }
+
+    private void search() {
+        hasMore = false; // search results come in one batch
+        String text = searchText();
+        CompletableFuture<List<Application>> hits = searchIndex.isReady()
+            ? dao.getApplications(searchIndex.search(text, SEARCH_LIMIT))
+            : dao.searchApplications(text, SEARCH_LIMIT);
+        pendingLoad = hits.thenAcceptAsync(apps -> {
+            apps.removeIf(app -> !matchesFilter(app));
+            apps.sort(ApplicationRepository.SortKey.NEWEST.comparator());
+            tableModel.setApplications(apps);
+            loaded(apps.size());
+        }, EDT);
+    }
+
+    private String searchText() {
+        return searchField.getText().trim();
+    }
+
+    // Indexes and counts the whole table in the background; until then search goes to the backend.
+    // A failed read comes back as a short list, and leaves the indexes unready rather than empty.
+    private void buildSearchIndex() {
+        dao.countApplications().thenCompose(count -> count >= 0 && count <= MAX_INDEXED_ROWS
+                ? dao.getInterviewTimes().thenCombine(dao.getAllApplications(), (times, apps) -> {
+                    stats.setInterviewTimes(times);
+                    return apps;
+                }).thenCompose(apps -> apps.size() == count
+                    ? CompletableFuture.completedFuture(apps)
+                    : dao.countApplications().thenApply(now -> apps.size() == now ? apps : null))
+                : CompletableFuture.completedFuture(null))
+            .thenAccept(apps -> {
+                if (apps != null) {
+                    searchIndex.rebuild(apps);
+                    stats.rebuild(apps);
+                    tableIndex.rebuild(apps);
+                    duplicateIndex.rebuild(apps);
+                    SwingUtilities.invokeLater(this::tableIndexReady);
+                }
             });
+    }
+
+    // Switches the plain (unsearched) table over to the in-memory index
+    private void tableIndexReady() {
+        if (!useIndex()) {
+            return;
+        }
+        setRowFiltersEnabled(true);
+        showSortArrow();
+        if (searchText().isEmpty()) {
+            loadApplications();
         }
     }
 
+    private void setRowFiltersEnabled(boolean enabled) {
+        for (JTextField field : new JTextField[] {companyField, fromField, toField}) {
+            field.setEnabled(enabled);
+            field.setToolTipText(!enabled ? "Available once the whole table has been loaded"
+                : field == companyField ? "Ignores case" : "YYYY-MM-DD, inclusive");
+        }
+    }
+
+    private void refreshChanges() {
+        if (changes == null || refreshing) {
+            return;
+        }
+        refreshing = true;
+        ChangeCursor cursor = changes;
+        long before = cursor.getPosition();
+        dao.pollChanges(cursor, REFRESH_LIMIT).whenCompleteAsync((feed, err) -> {
+            refreshing = false;
+            if (err != null || cursor != changes) {
+                fullBatches = 0;
+                return; // failed, or the table was reloaded meanwhile
+            }
+            // Full and moving: not stuck waiting at a gap in the feed
+            boolean more = feed.size() >= REFRESH_LIMIT && cursor.getPosition() > before;
+            if (!more) {
+                fullBatches = 0;
+            } else if (++fullBatches >= RELOAD_BATCHES) {
+                fullBatches = 0;
+                loadApplications();
+                buildSearchIndex();
+                return;
+            }
+            boolean indexed = useIndex() && searchText().isEmpty();
+            for (ApplicationRepository.Change change : feed) {
+                snapshotStale = true;
+                if (change.isDeleted()) {
+                    searchIndex.remove(change.getId());
+                    stats.remove(change.getId());
+                    tableIndex.remove(change.getId());
+                    duplicateIndex.remove(change.getId());
+                    int row = indexed ? -1 : tableModel.indexOfId(change.getId());
+                    if (row != -1) {
+                        tableModel.remove(row);
+                    }
+                    continue;
+                }
+                if (searchIndex.isReady()) {
+                    searchIndex.put(change.getApplication());
+                }
+                stats.put(change.getApplication());
+                if (tableIndex.isReady()) {
+                    tableIndex.put(change.getApplication());
+                }
+                if (duplicateIndex.isReady()) {
+                    duplicateIndex.put(change.getApplication());
+                }
+                if (!indexed) {
+                    applyChange(change.getApplication());
+                }
+            }
+            if (indexed && !feed.isEmpty()) {
+                showIndexed();
+            }
+            if (more) {
+                refreshChanges();
+            }
+        }, EDT);
+    }
+
+    /**
+     * Patches one new or changed row into the table where the current filter
+     * and sort order (newest first) put it, without reloading anything. Rows
+     * that would land past the last loaded page are left for paging to fetch.
+     * The in-memory index is already up to date, so it is simply shown again.
+     */
+    private void applyChange(Application app) {
+        if (useIndex() && searchText().isEmpty()) {
+            showIndexed();
+            return;
+        }
+        int row = tableModel.indexOfId(app.getId());
+        if (!matchesFilter(app)) {
+            if (row != -1) {
+                tableModel.remove(row);
+            }
+            return;
+        }
+        if (row != -1) {
+            Application old = tableModel.getApplicationAt(row);
+            if (old.getApplicationDate().equals(app.getApplicationDate())) {
+                tableModel.update(row, app);
+                return;
+            }
+            tableModel.remove(row);
+        }
+        int pos = insertionPoint(app);
+        if (pos < tableModel.getRowCount() || !hasMore) {
+            tableModel.insert(pos, app);
+        }
+    }
+
+    private boolean matchesFilter(Application app) {
+        return rowFilter().matches(app) && SearchIndex.matches(app, searchText());
+    }
+
+    // Status chosen in filterBox, or null for "All"
+    private Status selectedStatus() {
+        return Status.fromLabel((String) filterBox.getSelectedItem());
+    }
+
+    // Binary search over the loaded rows, ordered by date then id, both descending
+    private int insertionPoint(Application app) {
+        int lo = 0, hi = tableModel.getRowCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            Application other = tableModel.getApplicationAt(mid);
+            int cmp = other.getApplicationDate().compareTo(app.getApplicationDate());
+            if (cmp > 0 || (cmp == 0 && other.getId() > app.getId())) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void loadNextPage() {
+        if (!hasMore || (pendingLoad != null && !pendingLoad.isDone())) {
+            return;
+        }
+        pageStarted = System.nanoTime();
+        pendingLoad = dao.getApplicationsPage(selectedStatus(), ApplicationRepository.SortKey.NEWEST, lastLoaded, PAGE_SIZE)
+            .thenAcceptAsync(this::appendPage, EDT);
+    }
+
+    private void appendPage(List<Application> apps) {
+        if (showingCached) {
+            tableModel.clear();
+            showingCached = false;
+        }
+        StartupTimes.firstData();
+        if (loadStarted != 0) {
+            loaded(apps.size());
+        } else if (pageStarted != 0) {
+            pageOp.stop(pageStarted, apps.size());
+        }
+        pageStarted = 0;
+        hasMore = apps.size() == PAGE_SIZE;
+        if (!apps.isEmpty()) {
+            lastLoaded = apps.get(apps.size() - 1);
+        }
+        tableModel.addAll(apps);
+    }
+
     private void deleteSelected() {
         int row = table.getSelectedRow();
         if (row == -1) {
@@ -97,263 +653,149 @@ public class MainWindow extends JFrame {
             return;
         }
 
-        int id = (int) tableModel.getValueAt(row, 0);
-        dao.deleteApplication(id);
-        tableModel.removeRow(row);
-        JOptionPane.showMessageDialog(this, "Application deleted.");
+        int id = tableModel.getApplicationAt(row).getId();
+        dao.deleteApplication(id).whenCompleteAsync((done, err) -> {
+            if (err != null) {
+                JOptionPane.showMessageDialog(this, "Could not delete the application: " + causeOf(err).getMessage());
+                return;
+            }
+            // the table may have been reloaded meanwhile, so find the row again
+            int current = tableModel.indexOfId(id);
+            if (current != -1) {
+                tableModel.remove(current);
+            }
+            JOptionPane.showMessageDialog(this, "Application deleted.");
+        }, EDT);
     }
 
-    private void openAddDialog() {
-        // Dialog basics
-        JDialog dialog = new JDialog(this, "Add Application", true);
-        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
-        dialog.setResizable(false);
-    
-        // Root with padding
-        JPanel root = new JPanel(new BorderLayout(0, 12));
-        root.setBorder(BorderFactory.createEmptyBorder(16, 16, 16, 16));
-        dialog.setContentPane(root);
-    
-        // ---- FORM (labels right, fields aligned) ----
-        JPanel form = new JPanel(new GridBagLayout());
-        GridBagConstraints g = new GridBagConstraints();
-        g.insets = new Insets(8, 8, 8, 8);
-        g.fill = GridBagConstraints.HORIZONTAL;
-    
-        JTextField companyField  = new JTextField(24);
-        JTextField positionField = new JTextField(24);
-    
-        // yyyy-MM-dd field
-        final JFormattedTextField dateField;
-        JFormattedTextField dfTmp;
-        try {
-            javax.swing.text.MaskFormatter mf = new javax.swing.text.MaskFormatter("####-##-##");
-            mf.setPlaceholderCharacter('_');
-            dfTmp = new JFormattedTextField(mf);
-        } catch (java.text.ParseException ex) {
-            dfTmp = new JFormattedTextField();
-        }
-        dfTmp.setColumns(24);
-        dfTmp.setText(java.time.LocalDate.now().toString());
-        dateField = dfTmp; // cast to final
-    
-        JComboBox<String> statusBox = new JComboBox<>(new String[]{"Applied", "Interviewed", "Rejected", "Accepted"});
-        JTextArea notesArea = new JTextArea(4, 24);
-        notesArea.setLineWrap(true);
-        notesArea.setWrapStyleWord(true);
-    
-        // helper to add a row
-        java.util.function.BiConsumer<String, JComponent> row = (label, comp) -> {
-            int y = form.getComponentCount() / 2;
-            g.gridx = 0; g.gridy = y; g.weightx = 0;
-            form.add(new JLabel(label, SwingConstants.RIGHT), g);
-            g.gridx = 1; g.weightx = 1.0;
-            form.add(comp instanceof JTextArea ? new JScrollPane(comp) : comp, g);
-        };
-    
-        row.accept("Company:",  companyField);
-        row.accept("Position:", positionField);
-        row.accept("Date (YYYY-MM-DD):", dateField);
-        row.accept("Status:",   statusBox);
-        row.accept("Notes:",    notesArea);
-    
-        root.add(form, BorderLayout.CENTER);
-    
-        // ---- BUTTON BAR ----
-        JButton submitBtn = new JButton("Submit");
-        JButton cancelBtn = new JButton("Cancel");
-    
-        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
-        actions.add(cancelBtn);
-        actions.add(submitBtn);
-        root.add(actions, BorderLayout.SOUTH);
-    
-        // Default button (Enter) & ESC to close
-        dialog.getRootPane().setDefaultButton(submitBtn);
-        KeyStroke esc = KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_ESCAPE, 0);
-        dialog.getRootPane().registerKeyboardAction(e -> dialog.dispose(), esc, JComponent.WHEN_IN_FOCUSED_WINDOW);
-    
-        // Enable/disable submit based on required fields
-        submitBtn.setEnabled(false);
-        javax.swing.event.DocumentListener dl = new javax.swing.event.DocumentListener() {
-            void toggle() {
-                boolean ok = !companyField.getText().trim().isEmpty()
-                          && !positionField.getText().trim().isEmpty()
-                          && dateField.getText().matches("\\d{4}-\\d{2}-\\d{2}");
-                submitBtn.setEnabled(ok);
-            }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { toggle(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { toggle(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { toggle(); }
-        };
-        companyField.getDocument().addDocumentListener(dl);
-        positionField.getDocument().addDocumentListener(dl);
-        dateField.getDocument().addDocumentListener(dl);
-    
-        // Submit action (your existing DAO flow kept)
-        submitBtn.addActionListener(e -> {
-            // final validation
-            String date = dateField.getText().trim();
-            if (!date.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                JOptionPane.showMessageDialog(dialog, "Please enter date as YYYY-MM-DD.");
+    private void importFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import applications (CSV or JSON Lines)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        dao.importFile(chooser.getSelectedFile().toPath()).whenCompleteAsync((result, err) -> {
+            if (err != null) {
+                JOptionPane.showMessageDialog(this, "Import failed: " + err.getCause().getMessage());
                 return;
             }
-            Application app = new Application(
-                0,
-                companyField.getText().trim(),
-                positionField.getText().trim(),
-                date,
-                (String) statusBox.getSelectedItem(),
-                notesArea.getText().trim()
-            );
-            dao.addApplication(app);
-            JOptionPane.showMessageDialog(dialog, "Application added!");
-            dialog.dispose();
+            StringBuilder msg = new StringBuilder(result.toString());
+            for (String error : result.getErrors()) {
+                msg.append('\n').append(error);
+            }
+            JOptionPane.showMessageDialog(this, msg.toString());
             loadApplications();
-        });
-    
-        cancelBtn.addActionListener(e -> dialog.dispose());
-    
-        // Final polish
-        dialog.pack();                       // use natural sizes
-        dialog.setLocationRelativeTo(this);  // center on parent
-        dialog.setVisible(true);
+            buildSearchIndex();
+        }, EDT);
+    }
+
+    private void exportFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export applications (.csv or .jsonl)");
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        dao.exportFile(chooser.getSelectedFile().toPath()).whenCompleteAsync((rows, err) -> {
+            if (err != null) {
+                JOptionPane.showMessageDialog(this, "Export failed: " + err.getCause().getMessage());
+                return;
+            }
+            JOptionPane.showMessageDialog(this, "Exported " + rows + " application(s).");
+        }, EDT);
+    }
+
+    private void openAddDialog() {
+        if (addDialog == null) {
+            addDialog = new ApplicationDialog(this, "Add Application", "Submit", duplicateIndex);
+        }
+        addDialog.open(null, app -> dao.addApplication(app).whenCompleteAsync((id, err) -> {
+            if (err != null || id < 0) {
+                JOptionPane.showMessageDialog(addDialog, "Could not add the application"
+                        + (err != null ? ": " + causeOf(err).getMessage() : "."));
+                addDialog.enableSubmit();
+                return;
+            }
+            JOptionPane.showMessageDialog(addDialog, "Application added!");
+            addDialog.close();
+            // the row as stored, with the version an edit must carry; if that read
+            // fails, the change feed brings the row in on the next refresh
+            dao.getApplications(new int[] {id}).whenCompleteAsync((stored, e) -> {
+                if (stored != null) {
+                    stored.forEach(this::applyChange);
+                }
+            }, EDT);
+        }, EDT));
+    }
+
+    /**
+     * An edit reported as saved was dropped by the write-behind queue because
+     * someone else got to the row first: shows their version (or removes the
+     * row) and tells the user.
+     */
+    private void showDroppedUpdate(Application queued, Application current) {
+        if (current != null) {
+            applyChange(current);
+        } else {
+            int row = tableModel.indexOfId(queued.getId());
+            if (row != -1) {
+                tableModel.remove(row);
+            }
+            if (useIndex() && searchText().isEmpty()) {
+                showIndexed();
+            }
+        }
+        JOptionPane.showMessageDialog(this,
+                "Your change to " + queued.getCompany() + " / " + queued.getPosition() + " could not be saved:\n"
+                    + (current == null ? "someone else deleted the application first."
+                        : "someone else changed it first. Their version is shown now."),
+                "Change not saved", JOptionPane.WARNING_MESSAGE);
     }
-    
 
     private void openEditDialog(int rowIndex) {
-        // Pull current values from the table/model
-        int id          = (int)    tableModel.getValueAt(rowIndex, 0);
-        String company  = (String) tableModel.getValueAt(rowIndex, 1);
-        String position = (String) tableModel.getValueAt(rowIndex, 2);
-        String date     = (String) tableModel.getValueAt(rowIndex, 3);
-        String status   = (String) tableModel.getValueAt(rowIndex, 4);
-        String notes    = (String) tableModel.getValueAt(rowIndex, 5);
-    
-        // --- Dialog shell ---
-        JDialog dialog = new JDialog(this, "Edit Application", true);
-        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
-        dialog.setResizable(false);
-    
-        JPanel root = new JPanel(new BorderLayout(0, 12));
-        root.setBorder(BorderFactory.createEmptyBorder(16, 16, 16, 16));
-        dialog.setContentPane(root);
-    
-        // --- Form with alignment ---
-        JPanel form = new JPanel(new GridBagLayout());
-        GridBagConstraints g = new GridBagConstraints();
-        g.insets = new Insets(8, 8, 8, 8);
-        g.fill = GridBagConstraints.HORIZONTAL;
-    
-        final JTextField companyField  = new JTextField(company, 24);
-        final JTextField positionField = new JTextField(position, 24);
-    
-        // yyyy-MM-dd with mask
-        final JFormattedTextField dateField;
-        JFormattedTextField dfTmp;
-        try {
-            javax.swing.text.MaskFormatter mf = new javax.swing.text.MaskFormatter("####-##-##");
-            mf.setPlaceholderCharacter('_');
-            dfTmp = new JFormattedTextField(mf);
-        } catch (java.text.ParseException ex) {
-            dfTmp = new JFormattedTextField();
-        }
-        dfTmp.setColumns(24);
-        dfTmp.setText(date);
-        dateField = dfTmp;
-    
-        final JComboBox<String> statusBox =
-            new JComboBox<>(new String[]{"Applied", "Interviewed", "Rejected", "Accepted"});
-        statusBox.setSelectedItem(status);
-    
-        final JTextArea notesArea = new JTextArea(4, 24);
-        notesArea.setLineWrap(true);
-        notesArea.setWrapStyleWord(true);
-        notesArea.setText(notes);
-    
-        // helper to add rows
-        java.util.function.BiConsumer<String, JComponent> row = (label, comp) -> {
-            int y = form.getComponentCount() / 2;
-            g.gridx = 0; g.gridy = y; g.weightx = 0;
-            form.add(new JLabel(label, SwingConstants.RIGHT), g);
-            g.gridx = 1; g.weightx = 1.0;
-            form.add(comp instanceof JTextArea ? new JScrollPane(comp) : comp, g);
-        };
-    
-        row.accept("Company:",  companyField);
-        row.accept("Position:", positionField);
-        row.accept("Date (YYYY-MM-DD):", dateField);
-        row.accept("Status:",   statusBox);
-        row.accept("Notes:",    notesArea);
-    
-        root.add(form, BorderLayout.CENTER);
-    
-        // --- Buttons ---
-        JButton saveBtn   = new JButton("Save Changes");
-        JButton cancelBtn = new JButton("Cancel");
-        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
-        actions.add(cancelBtn);
-        actions.add(saveBtn);
-        root.add(actions, BorderLayout.SOUTH);
-    
-        // Default button & ESC to close
-        dialog.getRootPane().setDefaultButton(saveBtn);
-        KeyStroke esc = KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_ESCAPE, 0);
-        dialog.getRootPane().registerKeyboardAction(e -> dialog.dispose(),
-                esc, JComponent.WHEN_IN_FOCUSED_WINDOW);
-    
-        // Enable only when required fields valid
-        saveBtn.setEnabled(false);
-        javax.swing.event.DocumentListener dl = new javax.swing.event.DocumentListener() {
-            void toggle() {
-                boolean ok = !companyField.getText().trim().isEmpty()
-                          && !positionField.getText().trim().isEmpty()
-                          && dateField.getText().matches("\\d{4}-\\d{2}-\\d{2}");
-                saveBtn.setEnabled(ok);
+        if (editDialog == null) {
+            editDialog = new ApplicationDialog(this, "Edit Application", "Save Changes", duplicateIndex);
+        }
+        editDialog.open(tableModel.getApplicationAt(rowIndex), this::saveEdit);
+    }
+
+    /**
+     * Saves an edit. If someone else changed the row since the dialog was
+     * opened, shows their version and lets the user overwrite it or keep it.
+     */
+    private void saveEdit(Application updated) {
+        dao.updateApplication(updated).whenCompleteAsync((saved, err) -> {
+            Throwable cause = err == null ? null : causeOf(err);
+            if (cause instanceof StaleUpdateException) {
+                Application theirs = ((StaleUpdateException) cause).getCurrent();
+                applyChange(theirs);
+                int choice = JOptionPane.showConfirmDialog(editDialog,
+                        "Someone else changed this application while you were editing it:\n\n"
+                            + theirs.getCompany() + " / " + theirs.getPosition() + " / "
+                            + theirs.getApplicationDate() + " / " + theirs.getStatus() + "\n\n"
+                            + "Overwrite it with your changes?",
+                        "Edit conflict", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                if (choice == JOptionPane.YES_OPTION) {
+                    updated.setVersion(theirs.getVersion());
+                    saveEdit(updated);
+                } else {
+                    editDialog.close();
+                }
+                return;
             }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { toggle(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { toggle(); }
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { toggle(); }
-        };
-        companyField.getDocument().addDocumentListener(dl);
-        positionField.getDocument().addDocumentListener(dl);
-        dateField.getDocument().addDocumentListener(dl);
-        // initialize state
-        SwingUtilities.invokeLater(() -> {
-            // ensures button state is correct if fields were already valid
-            saveBtn.setEnabled(!companyField.getText().trim().isEmpty()
-                            && !positionField.getText().trim().isEmpty()
-                            && dateField.getText().matches("\\d{4}-\\d{2}-\\d{2}"));
-        });
-    
-        // Save action
-        saveBtn.addActionListener(e -> {
-            String d = dateField.getText().trim();
-            if (!d.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                JOptionPane.showMessageDialog(dialog, "Please enter date as YYYY-MM-DD.");
+            if (cause != null || saved == null) {
+                JOptionPane.showMessageDialog(editDialog, "Could not update the application"
+                        + (cause != null ? ": " + cause.getMessage() : "."));
+                editDialog.enableSubmit();
                 return;
             }
-    
-            Application updated = new Application(
-                id,
-                companyField.getText().trim(),
-                positionField.getText().trim(),
-                d,
-                (String) statusBox.getSelectedItem(),
-                notesArea.getText().trim()
-            );
-    
-            dao.updateApplication(updated);
-            JOptionPane.showMessageDialog(dialog, "Application updated!");
-            dialog.dispose();
-            loadApplications();
-        });
-    
-        cancelBtn.addActionListener(e -> dialog.dispose());
-    
-        dialog.pack();
-        dialog.setLocationRelativeTo(this);  // center on parent
-        dialog.setVisible(true);
-    }
-    
+            JOptionPane.showMessageDialog(editDialog, "Application updated!");
+            editDialog.close();
+            applyChange(saved);
+        }, EDT);
+    }
+
+    // What a dao future failed with, unwrapped from the CompletionException around it
+    private static Throwable causeOf(Throwable err) {
+        return err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+    }
 }
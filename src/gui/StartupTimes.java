@@ -0,0 +1,56 @@
+package gui;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Startup milestones in milliseconds since the JVM started: the backend
+ * opened, the window first shown, rows from the page cache painted, and the
+ * first page of real data in the table. Enabled with
+ * -Dtracker.startupTimes=true; printed once the first page is in.
+ */
+final class StartupTimes {
+
+    private static final boolean ENABLED = Boolean.getBoolean("tracker.startupTimes");
+
+    // 0 until reached; backendOpen is set off the EDT, the rest on it
+    private static volatile long backendOpen;
+    private static long firstFrame, cachedRows, firstData;
+
+    private StartupTimes() {
+    }
+
+    static void backendOpen() {
+        if (backendOpen == 0) {
+            backendOpen = sinceStart();
+        }
+    }
+
+    static void firstFrame() {
+        if (firstFrame == 0) {
+            firstFrame = sinceStart();
+        }
+    }
+
+    static void cachedRows() {
+        if (cachedRows == 0) {
+            cachedRows = sinceStart();
+        }
+    }
+
+    static void firstData() {
+        if (firstData != 0) {
+            return;
+        }
+        firstData = sinceStart();
+        if (ENABLED) {
+            System.out.println("Startup (ms since JVM start): backend open " + backendOpen
+                    + ", first frame " + firstFrame
+                    + ", cached rows " + (cachedRows == 0 ? "-" : String.valueOf(cachedRows))
+                    + ", first data " + firstData);
+        }
+    }
+
+    private static long sinceStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
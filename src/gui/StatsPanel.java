@@ -0,0 +1,132 @@
+package gui;
+
+import model.Status;
+import stats.ApplicationStats;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Side panel showing an ApplicationStats summary. A timer checks the stats'
+ * change count and redraws only when it has moved, so an idle dashboard
+ * costs nothing and a busy one costs one summary per tick however large the
+ * table is.
+ */
+class StatsPanel extends JPanel {
+
+    private static final int REFRESH_MS = 1_000;
+    private static final DateTimeFormatter WEEK_LABEL = DateTimeFormatter.ofPattern("MMM d");
+
+    private final ApplicationStats stats;
+    private final JLabel totals = new JLabel();
+    private final JLabel interview = new JLabel();
+    private final WeekChart chart = new WeekChart();
+    private final DefaultListModel<String> companies = new DefaultListModel<>();
+    private final Timer timer;
+    private long shown = -1;
+
+    StatsPanel(ApplicationStats stats) {
+        super(new BorderLayout(0, 8));
+        this.stats = stats;
+        setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        setPreferredSize(new Dimension(260, 0));
+
+        JPanel top = new JPanel(new BorderLayout(0, 8));
+        top.add(totals, BorderLayout.NORTH);
+        top.add(interview, BorderLayout.CENTER);
+        top.add(chart, BorderLayout.SOUTH);
+        add(top, BorderLayout.NORTH);
+
+        JList<String> list = new JList<>(companies);
+        list.setFocusable(false);
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setBorder(BorderFactory.createTitledBorder("Top companies"));
+        add(scroll, BorderLayout.CENTER);
+
+        timer = new Timer(REFRESH_MS, e -> refresh());
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if (visible) {
+            refresh();
+            timer.start();
+        } else {
+            timer.stop();
+        }
+    }
+
+    private void refresh() {
+        long count = stats.getChangeCount();
+        if (count == shown) {
+            return;
+        }
+        shown = count;
+        ApplicationStats.Summary s = stats.summary();
+
+        StringBuilder html = new StringBuilder("<html><b>Total: ").append(s.getTotal()).append("</b>");
+        for (Status status : Status.values()) {
+            html.append("<br>").append(status.getLabel()).append(": ").append(s.getCount(status));
+        }
+        html.append(String.format("<br>Response rate: %.1f%%", 100 * s.getResponseRate()));
+        if (!stats.isReady()) {
+            html.append("<br><i>Counting...</i>");
+        }
+        totals.setText(html.append("</html>").toString());
+
+        interview.setText(s.getInterviewed() == 0
+            ? "<html>Time to interview: -</html>"
+            : String.format("<html>Time to interview:<br>median %d days, average %.1f days</html>",
+                s.getMedianDaysToInterview(), s.getAverageDaysToInterview()));
+
+        chart.setWeeks(s.getWeekly());
+
+        companies.clear();
+        for (Map.Entry<String, Integer> e : s.getTopCompanies().entrySet()) {
+            companies.addElement(e.getValue() + "  " + e.getKey());
+        }
+    }
+
+    /** Bars for applications per week, oldest on the left. */
+    private static final class WeekChart extends JComponent {
+        private Map<LocalDate, Integer> weeks = Map.of();
+
+        WeekChart() {
+            setPreferredSize(new Dimension(240, 110));
+            setBorder(BorderFactory.createTitledBorder("Applications per week"));
+        }
+
+        void setWeeks(Map<LocalDate, Integer> weeks) {
+            this.weeks = weeks;
+            if (!weeks.isEmpty()) {
+                LocalDate first = weeks.keySet().iterator().next();
+                setToolTipText("Weeks from " + WEEK_LABEL.format(first));
+            }
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Insets in = getInsets();
+            int w = getWidth() - in.left - in.right, h = getHeight() - in.top - in.bottom;
+            if (weeks.isEmpty() || w <= 0 || h <= 0) {
+                return;
+            }
+            int max = 1;
+            for (int n : weeks.values()) {
+                max = Math.max(max, n);
+            }
+            int slot = w / weeks.size(), i = 0;
+            g.setColor(UIManager.getColor("List.selectionBackground"));
+            for (int n : weeks.values()) {
+                int bar = (int) ((long) (h - 2) * n / max);
+                g.fillRect(in.left + i * slot + 1, in.top + h - bar, Math.max(1, slot - 2), bar);
+                i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package history;
+
+import model.Status;
+import model.StatusEvent;
+import model.StatusFunnel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only history of status changes, kept in a file of fixed 16-byte
+ * records and in memory as columns in time order.
+ *
+ * A record is [int application id][long epoch millis][byte from][byte to]
+ * [short check], where from is -1 for the status a row was created with and
+ * check is the low half of a CRC32 over the rest. Loading maps the file a
+ * segment at a time and cuts off a torn or corrupt tail.
+ *
+ * In memory each event also points at the previous event of the same
+ * application, so a timeline is a walk down one chain, and times never go
+ * backwards, so a period is found by binary search. That costs 18 bytes per
+ * event plus 4 bytes per application id.
+ */
+public class StatusEventStore {
+
+    private static final int RECORD = 16;
+    private static final long MAP_SEGMENT = 256L * 1024 * 1024;  // a multiple of RECORD
+    private static final byte NONE = -1;
+    private static final int NO_EVENT = -1;
+    private static final Status[] STATUSES = Status.values();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD);
+    private final CRC32 crc = new CRC32();
+
+    private int size;
+    private int[] appIds = new int[1024];
+    private long[] times = new long[1024];
+    private byte[] froms = new byte[1024];
+    private byte[] tos = new byte[1024];
+    private int[] previous = new int[1024];  // same application's previous event
+    private int[] latest = new int[1024];    // newest event by application id; ids are small and dense
+
+    /** Opens (or creates) the file and loads every intact record. */
+    public StatusEventStore(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Arrays.fill(latest, NO_EVENT);
+        load();
+    }
+
+    /** Number of events stored. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Appends one status change. Only writes; force() makes it durable. An
+     * event stamped earlier than the last one is recorded at the last one's
+     * time, so the history stays in time order even if the clock steps back.
+     */
+    public synchronized void append(int applicationId, Status from, Status to, Instant at) throws IOException {
+        if (applicationId <= 0) {
+            throw new IllegalArgumentException("Not an application id: " + applicationId);
+        }
+        if (to == null) {
+            throw new IllegalArgumentException("No status to record for application " + applicationId);
+        }
+        long millis = size == 0 ? at.toEpochMilli() : Math.max(at.toEpochMilli(), times[size - 1]);
+        byte f = from == null ? NONE : (byte) from.ordinal();
+        byte t = (byte) to.ordinal();
+
+        record.clear();
+        record.putInt(applicationId).putLong(millis).put(f).put(t);
+        record.putShort(check(record.array()));
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        add(applicationId, millis, f, t);
+    }
+
+    /** The status of the application's newest event, or null if it has none. */
+    public synchronized Status current(int applicationId) {
+        int last = newest(applicationId);
+        return last == NO_EVENT ? null : STATUSES[tos[last]];
+    }
+
+    /** Every status change of one application, oldest first. */
+    public synchronized List<StatusEvent> timeline(int applicationId) {
+        List<StatusEvent> out = new ArrayList<>();
+        for (int e = newest(applicationId); e != NO_EVENT; e = previous[e]) {
+            out.add(event(e));
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    /**
+     * Funnel for the applications created in [from, to): finds the period's
+     * events by binary search, then walks the chain of each application
+     * created in it. Costs the events in the period plus the cohort's
+     * histories, not the whole store.
+     */
+    public synchronized StatusFunnel funnel(Instant from, Instant to) {
+        int lo = firstAtOrAfter(from.toEpochMilli());
+        int hi = firstAtOrAfter(to.toEpochMilli());
+        int cohort = 0;
+        int[] reached = new int[STATUSES.length];
+        for (int e = lo; e < hi; e++) {
+            if (froms[e] != NONE || previous[e] != NO_EVENT) {
+                continue; // only an application's first event starts it
+            }
+            cohort++;
+            int seen = 0;
+            for (int c = latest[appIds[e]]; c != NO_EVENT; c = previous[c]) {
+                seen |= 1 << tos[c];
+            }
+            for (int s = 0; s < reached.length; s++) {
+                if ((seen & (1 << s)) != 0) {
+                    reached[s]++;
+                }
+            }
+        }
+        return new StatusFunnel(cohort, reached);
+    }
+
+    /**
+     * When each application first moved to one of these statuses, by
+     * application id; applications that never did are absent. One pass over
+     * the events in time order.
+     */
+    public synchronized Map<Integer, Instant> firstReached(Set<Status> statuses) {
+        int wanted = 0;
+        for (Status s : statuses) {
+            wanted |= 1 << s.ordinal();
+        }
+        Map<Integer, Instant> first = new HashMap<>();
+        for (int e = 0; e < size; e++) {
+            if ((wanted & (1 << tos[e])) != 0 && !first.containsKey(appIds[e])) {
+                first.put(appIds[e], Instant.ofEpochMilli(times[e]));
+            }
+        }
+        return first;
+    }
+
+    /** Forces appended events to disk. */
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    public synchronized void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        long pos = 0;
+        byte[] buf = new byte[RECORD];
+        loading:
+        while (pos + RECORD <= fileSize) {
+            long length = Math.min(MAP_SEGMENT, fileSize - pos) / RECORD * RECORD;
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+            for (int p = 0; p < length; p += RECORD) {
+                segment.get(p, buf);
+                int app = segment.getInt(p);
+                long millis = segment.getLong(p + 4);
+                byte f = buf[12], t = buf[13];
+                if (segment.getShort(p + 14) != check(buf) || app <= 0
+                        || t < 0 || t >= STATUSES.length || f < NONE || f >= STATUSES.length) {
+                    break loading;
+                }
+                add(app, size == 0 ? millis : Math.max(millis, times[size - 1]), f, t);
+                pos += RECORD;
+            }
+        }
+        if (pos < fileSize) {
+            System.out.println("Discarding " + (fileSize - pos) + " unreadable byte(s) at the end of " + file);
+            channel.truncate(pos);
+        }
+        channel.position(pos);
+    }
+
+    private void add(int app, long millis, byte from, byte to) {
+        if (size == appIds.length) {
+            int capacity = size * 2;
+            appIds = Arrays.copyOf(appIds, capacity);
+            times = Arrays.copyOf(times, capacity);
+            froms = Arrays.copyOf(froms, capacity);
+            tos = Arrays.copyOf(tos, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        if (app >= latest.length) {
+            int old = latest.length;
+            latest = Arrays.copyOf(latest, Math.max(app + 1, old * 2));
+            Arrays.fill(latest, old, latest.length, NO_EVENT);
+        }
+        appIds[size] = app;
+        times[size] = millis;
+        froms[size] = from;
+        tos[size] = to;
+        previous[size] = latest[app];
+        latest[app] = size;
+        size++;
+    }
+
+    private int newest(int applicationId) {
+        return applicationId > 0 && applicationId < latest.length ? latest[applicationId] : NO_EVENT;
+    }
+
+    private StatusEvent event(int e) {
+        return new StatusEvent(appIds[e], froms[e] == NONE ? null : STATUSES[froms[e]],
+                STATUSES[tos[e]], Instant.ofEpochMilli(times[e]));
+    }
+
+    private int firstAtOrAfter(long millis) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Low 16 bits of a CRC32 over the record's first 14 bytes
+    private short check(byte[] buf) {
+        crc.reset();
+        crc.update(buf, 0, RECORD - 2);
+        return (short) crc.getValue();
+    }
+}
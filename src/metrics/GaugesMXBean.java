@@ -0,0 +1,9 @@
+package metrics;
+
+import java.util.Map;
+
+/** JMX view of every registered gauge, as tracker:type=Gauges. */
+public interface GaugesMXBean {
+
+    Map<String, Double> getValues();
+}
@@ -0,0 +1,97 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in the style of HdrHistogram: nanosecond values below 32
+ * get a bucket each, and every power of two above is split into 32
+ * sub-buckets, so a recorded value is known to within about 3% over the whole
+ * range (up to 2^40 ns, about 18 minutes; longer values count as that).
+ *
+ * record() is two atomic adds on preallocated counters plus a read of the
+ * max: it takes no lock and never allocates, so it can sit on any hot path
+ * and be called from any thread. The count is summed from the buckets when
+ * read. Readers see a live, slightly racy view, which is fine for
+ * percentiles.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long v = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        sum.add(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // another thread raised the max; try again against the new one
+        }
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * The value below which the fraction q (0..1) of recordings fall, as the
+     * top of its bucket (never above the max recorded), or 0 when empty.
+     */
+    public long percentile(double q) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int index(long v) {
+        if (v < SUB) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        return (exponent - SUB_BITS + 1) * SUB + (int) ((v >>> (exponent - SUB_BITS)) & (SUB - 1));
+    }
+
+    // Largest value that lands in bucket i
+    static long highestIn(int i) {
+        if (i < SUB) {
+            return i;
+        }
+        int shift = i / SUB - 1;
+        long lowest = (long) (SUB + i % SUB) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
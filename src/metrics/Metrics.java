@@ -0,0 +1,161 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of Operations and gauges. Each operation is also
+ * registered as a JMX MXBean (tracker:type=Operation,name=...) and the
+ * gauges as one (tracker:type=Gauges), so jconsole or any JMX agent can read
+ * them; prometheus() renders everything in the Prometheus text format for
+ * MetricsExporter.
+ *
+ * Calls slower than -Dtracker.slowMs (default 250) are printed and kept in a
+ * short log for the diagnostics panel.
+ *
+ * -Dtracker.jmx=false skips the JMX registration, which costs a short-lived
+ * process such as the command line a fifth of a second to start.
+ */
+public final class Metrics {
+
+    public static final long SLOW_NANOS = Long.getLong("tracker.slowMs", 250) * 1_000_000;
+
+    private static final boolean JMX = Boolean.parseBoolean(System.getProperty("tracker.jmx", "true"));
+    private static final int SLOW_LOG_SIZE = 100;
+
+    private static final Map<String, Operation> operations = new ConcurrentSkipListMap<>();
+    private static final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+    private static final Deque<String> slowLog = new ArrayDeque<>();
+
+    static {
+        register("tracker:type=Gauges", (GaugesMXBean) Metrics::gaugeValues);
+    }
+
+    private Metrics() {
+    }
+
+    /** The operation with this name, created and registered on first use. */
+    public static Operation operation(String name) {
+        Operation op = operations.get(name);
+        if (op != null) {
+            return op;
+        }
+        synchronized (operations) {
+            op = operations.get(name);
+            if (op == null) {
+                op = new Operation(name);
+                register("tracker:type=Operation,name=" + name, op);
+                operations.put(name, op);
+            }
+            return op;
+        }
+    }
+
+    /** Registers (or replaces) a value read whenever metrics are shown or exported. */
+    public static void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /** Every operation, by name. */
+    public static Collection<Operation> operations() {
+        return operations.values();
+    }
+
+    /** Current value of every gauge, by name. */
+    public static Map<String, Double> gaugeValues() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Map.Entry<String, DoubleSupplier> e : gauges.entrySet()) {
+            try {
+                values.put(e.getKey(), e.getValue().getAsDouble());
+            } catch (RuntimeException ex) {
+                values.put(e.getKey(), Double.NaN);
+            }
+        }
+        return values;
+    }
+
+    /** The most recent slow calls, newest first. */
+    public static List<String> slowLog() {
+        synchronized (slowLog) {
+            return new ArrayList<>(slowLog);
+        }
+    }
+
+    static void slow(String name, long nanos, long rows) {
+        String line = String.format("Slow %s: %.1f ms%s", name, nanos / 1e6, rows > 0 ? ", " + rows + " row(s)" : "");
+        System.out.println(line);
+        synchronized (slowLog) {
+            if (slowLog.size() == SLOW_LOG_SIZE) {
+                slowLog.removeLast();
+            }
+            slowLog.addFirst(line);
+        }
+    }
+
+    /** Everything in the Prometheus text exposition format (version 0.0.4). */
+    public static String prometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP tracker_operation_seconds Latency of repository calls and UI loads.\n");
+        out.append("# TYPE tracker_operation_seconds summary\n");
+        for (Operation op : operations.values()) {
+            LatencyHistogram h = op.getLatency();
+            String label = "op=\"" + op.getName() + "\"";
+            for (double q : new double[] {0.5, 0.9, 0.99, 1.0}) {
+                out.append("tracker_operation_seconds{").append(label).append(",quantile=\"").append(q).append("\"} ")
+                   .append(seconds(q == 1.0 ? h.getMaxNanos() : h.percentile(q))).append('\n');
+            }
+            out.append("tracker_operation_seconds_sum{").append(label).append("} ")
+               .append(seconds(h.getSumNanos())).append('\n');
+            out.append("tracker_operation_seconds_count{").append(label).append("} ").append(h.getCount()).append('\n');
+        }
+        out.append("# HELP tracker_operation_errors_total Failed calls.\n");
+        out.append("# TYPE tracker_operation_errors_total counter\n");
+        for (Operation op : operations.values()) {
+            out.append("tracker_operation_errors_total{op=\"").append(op.getName()).append("\"} ")
+               .append(op.getErrors()).append('\n');
+        }
+        out.append("# HELP tracker_operation_rows_total Rows read or written.\n");
+        out.append("# TYPE tracker_operation_rows_total counter\n");
+        for (Operation op : operations.values()) {
+            out.append("tracker_operation_rows_total{op=\"").append(op.getName()).append("\"} ")
+               .append(op.getRows()).append('\n');
+        }
+        for (Map.Entry<String, Double> e : gaugeValues().entrySet()) {
+            String name = "tracker_" + e.getKey().replaceAll("[^A-Za-z0-9_]", "_");
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(e.getValue()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static void register(String objectName, Object bean) {
+        if (!JMX) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(bean, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Error registering " + objectName + " with JMX: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional Prometheus text exposition of Metrics:
+ *
+ *   -Dtracker.metricsFile=path  rewrites the file every 10 s and on exit
+ *                               (for node_exporter's textfile collector)
+ *   -Dtracker.metricsPort=n     serves http://localhost:n/metrics
+ *
+ * Neither is on by default; JMX needs no setting.
+ */
+public final class MetricsExporter {
+
+    private static final long FILE_INTERVAL_S = 10;
+
+    private MetricsExporter() {
+    }
+
+    public static void startIfEnabled() {
+        String file = System.getProperty("tracker.metricsFile");
+        if (file != null) {
+            startFile(Paths.get(file));
+        }
+        Integer port = Integer.getInteger("tracker.metricsPort");
+        if (port != null) {
+            startServer(port);
+        }
+    }
+
+    private static void startFile(Path file) {
+        ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-file");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(() -> write(file), FILE_INTERVAL_S, FILE_INTERVAL_S, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> write(file), "metrics-file-final"));
+    }
+
+    // Written beside the target and moved over it, so readers never see half a file
+    private static void write(Path file) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(file.getFileName() + ".tmp");
+            Files.writeString(tmp, Metrics.prometheus());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error writing metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void startServer(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = Metrics.prometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+            System.out.println("Serving metrics at http://localhost:" + port + "/metrics");
+        } catch (IOException e) {
+            System.out.println("Error starting the metrics endpoint on port " + port + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings for one kind of call, such as a repository method or a table
+ * load: a latency histogram plus error and row counters. Get one from
+ * Metrics.operation() once and keep it in a field; then
+ *
+ *   long start = System.nanoTime();
+ *   ... the call ...
+ *   op.stop(start, rows);
+ *
+ * which records without allocating. Calls slower than Metrics.SLOW_NANOS are
+ * also logged (that path does allocate, but only when something was slow).
+ */
+public class Operation implements OperationMXBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    /** Records a call that started at start (System.nanoTime()); returns its duration. */
+    public long stop(long start) {
+        return stop(start, 0);
+    }
+
+    /** As stop(start), also counting the rows the call read or wrote. */
+    public long stop(long start, long rowCount) {
+        long elapsed = System.nanoTime() - start;
+        latency.record(elapsed);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (elapsed >= Metrics.SLOW_NANOS) {
+            Metrics.slow(name, elapsed, rowCount);
+        }
+        return elapsed;
+    }
+
+    /** Counts a failed call; stop() is still called for its time. */
+    public void failed() {
+        errors.increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentile(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.percentile(0.90) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / 1e6;
+    }
+}
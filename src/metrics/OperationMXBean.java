@@ -0,0 +1,26 @@
+package metrics;
+
+/**
+ * JMX view of one Operation, registered as tracker:type=Operation,name=...
+ * Times are in milliseconds.
+ */
+public interface OperationMXBean {
+
+    String getName();
+
+    long getCount();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+}
@@ -1,17 +1,22 @@
 package model;
 
+import java.time.Instant;
+import java.time.LocalDate;
+
 public class Application {
     private int id;
     private String company;
     private String position;
-    private String applicationDate;
-    private String status;
+    private LocalDate applicationDate;
+    private Status status;
     private String notes;
+    private Instant updatedAt; // set for rows read from the database
+    private int version;       // bumped on every update; 0 for rows not yet saved
 
-    public Application(int id, String company, String position, String applicationDate, String status, String notes) {
+    public Application(int id, String company, String position, LocalDate applicationDate, Status status, String notes) {
         this.id = id;
-        this.company = company;
-        this.position = position;
+        this.company = intern(company);
+        this.position = intern(position);
         this.applicationDate = applicationDate;
         this.status = status;
         this.notes = notes;
@@ -26,30 +31,47 @@ public class Application {
     public String getPosition() {
         return position;
     }
-    public String getApplicationDate() {
+    public LocalDate getApplicationDate() {
         return applicationDate;
     }
-    public String getStatus() {
+    public Status getStatus() {
         return status;
     }
     public String getNotes() {
         return notes;
     }
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+    public int getVersion() {
+        return version;
+    }
     public void setCompany(String company) {
-        this.company = company;
+        this.company = intern(company);
     }
     public void setPosition(String position) {
-        this.position = position;
+        this.position = intern(position);
     }
-    public void setApplicationDate(String applicationDate) {
+    public void setApplicationDate(LocalDate applicationDate) {
         this.applicationDate = applicationDate;
     }
-    public void setStatus(String status) {
+    public void setStatus(Status status) {
         this.status = status;
     }
     public void setNotes(String notes) {
         this.notes = notes;
     }
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    // The same employers and job titles repeat across many rows; share one copy
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,42 @@
+package model;
+
+/**
+ * Where an application stands. Stored in MySQL as an ENUM of the labels.
+ */
+public enum Status {
+    APPLIED("Applied"),
+    INTERVIEWED("Interviewed"),
+    REJECTED("Rejected"),
+    ACCEPTED("Accepted");
+
+    private static final Status[] VALUES = values();
+
+    private final String label;
+
+    Status(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /** Looks a status up by its label, ignoring case. Returns null for anything unknown. */
+    public static Status fromLabel(String label) {
+        if (label == null) {
+            return null;
+        }
+        String trimmed = label.trim();
+        for (Status s : VALUES) {
+            if (s.label.equalsIgnoreCase(trimmed)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,39 @@
+package model;
+
+import java.time.Instant;
+
+/**
+ * One status change of an application: from is null for the status it was
+ * created with.
+ */
+public final class StatusEvent {
+    private final int applicationId;
+    private final Status from;
+    private final Status to;
+    private final Instant at;
+
+    public StatusEvent(int applicationId, Status from, Status to, Instant at) {
+        this.applicationId = applicationId;
+        this.from = from;
+        this.to = to;
+        this.at = at;
+    }
+
+    public int getApplicationId() {
+        return applicationId;
+    }
+    public Status getFrom() {
+        return from;
+    }
+    public Status getTo() {
+        return to;
+    }
+    public Instant getAt() {
+        return at;
+    }
+
+    @Override
+    public String toString() {
+        return at + " " + (from == null ? "created" : from.getLabel()) + " -> " + to.getLabel();
+    }
+}
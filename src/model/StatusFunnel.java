@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * How far a cohort of applications got: of the applications created in some
+ * period, how many were ever in each status. A row created as Interviewed
+ * counts as having reached Interviewed but not Applied.
+ */
+public final class StatusFunnel {
+    private static final Status[] STATUSES = Status.values();
+
+    private final int cohort;
+    private final int[] reached;
+
+    public StatusFunnel(int cohort, int[] reached) {
+        if (reached.length != STATUSES.length) {
+            throw new IllegalArgumentException("Expected one count per status, got " + reached.length);
+        }
+        this.cohort = cohort;
+        this.reached = reached.clone();
+    }
+
+    /** Applications created in the period. */
+    public int getCohort() {
+        return cohort;
+    }
+
+    /** Applications in the cohort that were in this status at some point. */
+    public int getReached(Status status) {
+        return reached[status.ordinal()];
+    }
+
+    /** getReached(status) as a share of the cohort, 0 for an empty cohort. */
+    public double getConversion(Status status) {
+        return cohort == 0 ? 0 : (double) getReached(status) / cohort;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StatusFunnel{cohort=").append(cohort);
+        for (Status s : STATUSES) {
+            sb.append(", ").append(s.getLabel()).append('=').append(getReached(s));
+        }
+        return sb.append('}').toString();
+    }
+}
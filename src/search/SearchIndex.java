@@ -0,0 +1,293 @@
+package search;
+
+import db.ApplicationRepository;
+import model.Application;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over company, position and notes.
+ *
+ * Text is split on anything that isn't a letter or digit, lower-cased and
+ * stripped of accents. A query matches applications containing every query
+ * term; the last term also matches as a prefix so results follow the user
+ * while they type. Registered as a repository change listener the index follows
+ * adds, updates and deletes without a rebuild.
+ */
+public class SearchIndex implements ApplicationRepository.ChangeListener {
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Integer, String[]> docTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    /** Replaces the contents of the index with these applications. */
+    public void rebuild(Collection<Application> apps) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docTerms.clear();
+            for (Application app : apps) {
+                addLocked(app);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Whether rebuild has run, i.e. the index covers the whole table. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Application app) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(app.getId());
+            addLocked(app);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void applicationSaved(Application app) {
+        put(app);
+    }
+
+    @Override
+    public void applicationDeleted(int id) {
+        remove(id);
+    }
+
+    @Override
+    public void applicationsReplaced() {
+        ready = false; // a bulk change; the owner rebuilds
+    }
+
+    /**
+     * Ids of applications matching the query, highest (newest) id first.
+     *
+     * @param limit maximum number of ids returned
+     */
+    public int[] search(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            String last = tokens[tokens.length - 1];
+            if (tokens.length == 1) {
+                return newestWithPrefix(last, limit);
+            }
+            // intersect the exact terms, shortest list first, then check the prefix term per hit
+            Postings[] lists = new Postings[tokens.length - 1];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = terms.get(tokens[i]);
+                if (lists[i] == null) {
+                    return new int[0];
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            Postings shortest = lists[0];
+            int[] out = new int[Math.min(limit, shortest.size)];
+            int n = 0;
+            for (int i = shortest.size - 1; i >= 0 && n < out.length; i--) {
+                int id = shortest.ids[i];
+                boolean all = true;
+                for (int j = 1; j < lists.length && all; j++) {
+                    all = lists[j].contains(id);
+                }
+                if (all && hasTermWithPrefix(docTerms.get(id), last)) {
+                    out[n++] = id;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether this application's text matches the query, without consulting the index. */
+    public static boolean matches(Application app, String query) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            return true;
+        }
+        Set<String> own = new LinkedHashSet<>(Arrays.asList(documentTerms(app)));
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (!own.contains(tokens[i])) {
+                return false;
+            }
+        }
+        return hasTermWithPrefix(own.toArray(new String[0]), tokens[tokens.length - 1]);
+    }
+
+    /** Splits text into lower-case, accent-free terms. */
+    public static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+
+    private static String[] documentTerms(Application app) {
+        Set<String> distinct = new LinkedHashSet<>();
+        distinct.addAll(Arrays.asList(tokenize(app.getCompany())));
+        distinct.addAll(Arrays.asList(tokenize(app.getPosition())));
+        distinct.addAll(Arrays.asList(tokenize(app.getNotes())));
+        return distinct.toArray(new String[0]);
+    }
+
+    private void addLocked(Application app) {
+        String[] own = documentTerms(app);
+        for (int i = 0; i < own.length; i++) {
+            Postings p = terms.get(own[i]);
+            if (p == null) {
+                p = new Postings();
+                terms.put(own[i], p);
+            } else {
+                own[i] = terms.ceilingKey(own[i]); // share the key instance held by the map
+            }
+            p.add(app.getId());
+        }
+        docTerms.put(app.getId(), own);
+    }
+
+    private void removeLocked(int id) {
+        String[] own = docTerms.remove(id);
+        if (own == null) {
+            return;
+        }
+        for (String t : own) {
+            Postings p = terms.get(t);
+            if (p != null && p.remove(id) && p.size == 0) {
+                terms.remove(t);
+            }
+        }
+    }
+
+    /**
+     * Newest ids across every term starting with the prefix: a k-way merge
+     * from the high end of each postings list that stops after limit ids.
+     */
+    private int[] newestWithPrefix(String prefix, int limit) {
+        Collection<Postings> range = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> Integer.compare(b[0], a[0]));
+        Postings[] lists = range.toArray(new Postings[0]);
+        for (int i = 0; i < lists.length; i++) {
+            if (lists[i].size > 0) {
+                heap.add(new int[]{lists[i].ids[lists[i].size - 1], i, lists[i].size - 1});
+            }
+        }
+        int[] out = new int[Math.min(limit, docTerms.size())];
+        int n = 0;
+        while (n < out.length && !heap.isEmpty()) {
+            int[] top = heap.poll();
+            if (n == 0 || out[n - 1] != top[0]) {
+                out[n++] = top[0];
+            }
+            if (top[2] > 0) {
+                top[2]--;
+                top[0] = lists[top[1]].ids[top[2]];
+                heap.add(top);
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static boolean hasTermWithPrefix(String[] own, String prefix) {
+        if (own != null) {
+            for (String t : own) {
+                if (t.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sorted, growable array of ids. Ids are assigned in increasing order so
+     * adds are almost always appends.
+     */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
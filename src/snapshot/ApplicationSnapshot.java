@@ -0,0 +1,316 @@
+package snapshot;
+
+import model.Application;
+import model.Status;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, column-oriented copy of the applications table for very large
+ * histories.
+ *
+ * Each field is a primitive column: ids and epoch-day dates as int arrays,
+ * statuses as one byte per row, company and position as int codes into a
+ * dictionary of distinct names. Notes are UTF-8 bytes in fixed-size off-heap
+ * chunks, written there directly as rows are added and addressed by long
+ * offsets, so neither the heap nor a 2 GB buffer limit bounds them. Filters and counts scan the columns; an Application object is
+ * only built when a row is actually shown (see view()).
+ *
+ * Rows keep the order they were added in. Build one with a Builder.
+ */
+public class ApplicationSnapshot {
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int CHUNK_BITS = 20;  // 1 MB note chunks
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final Status[] STATUSES = Status.values();
+
+    private final int size;
+    private final int[] ids;
+    private final int[] epochDays;
+    private final byte[] statuses;
+    private final int[] companies;
+    private final int[] positions;
+    private final String[] dictionary;
+    private final long[] noteOffsets;     // size + 1 entries; row i's note spans [noteOffsets[i], noteOffsets[i + 1])
+    private final ByteBuffer[] noteChunks; // direct, so the bulk of the text stays out of the GC heap
+
+    private ApplicationSnapshot(Builder b) {
+        size = b.size;
+        ids = Arrays.copyOf(b.ids, size);
+        epochDays = Arrays.copyOf(b.epochDays, size);
+        statuses = Arrays.copyOf(b.statuses, size);
+        companies = Arrays.copyOf(b.companies, size);
+        positions = Arrays.copyOf(b.positions, size);
+        dictionary = b.dictionary.toArray(new String[0]);
+        noteOffsets = Arrays.copyOf(b.noteOffsets, size + 1);
+        // shared with the builder, which only ever writes past noteOffsets[size]
+        noteChunks = b.noteChunks.toArray(new ByteBuffer[0]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int row) {
+        return ids[row];
+    }
+
+    public LocalDate date(int row) {
+        return epochDays[row] == NO_DATE ? null : LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    public Status status(int row) {
+        return statuses[row] < 0 ? null : STATUSES[statuses[row]];
+    }
+
+    public String company(int row) {
+        return dictionary[companies[row]];
+    }
+
+    public String position(int row) {
+        return dictionary[positions[row]];
+    }
+
+    public String notes(int row) {
+        long start = noteOffsets[row];
+        byte[] bytes = new byte[(int) (noteOffsets[row + 1] - start)];
+        // a note may run on into the next chunk
+        for (int done = 0; done < bytes.length; ) {
+            long pos = start + done;
+            int offset = (int) (pos & (CHUNK_SIZE - 1));
+            int n = Math.min(bytes.length - done, CHUNK_SIZE - offset);
+            noteChunks[(int) (pos >>> CHUNK_BITS)].get(offset, bytes, done, n);
+            done += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Builds the Application for one row. */
+    public Application get(int row) {
+        return new Application(id(row), company(row), position(row), date(row), status(row), notes(row));
+    }
+
+    /**
+     * Rows matching every given condition, in snapshot order. Null
+     * conditions match everything; the date bounds are inclusive.
+     */
+    public int[] select(Status status, LocalDate from, LocalDate to) {
+        int code = status == null ? -1 : status.ordinal();
+        int lo = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int hi = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        boolean anyDate = from == null && to == null;
+
+        int[] out = new int[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (code >= 0 && statuses[i] != code) {
+                continue;
+            }
+            if (!anyDate && (epochDays[i] == NO_DATE || epochDays[i] < lo || epochDays[i] > hi)) {
+                continue;
+            }
+            out[n++] = i;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Number of rows per status, indexed by Status.ordinal(). */
+    public int[] countByStatus() {
+        int[] counts = new int[STATUSES.length];
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] >= 0) {
+                counts[statuses[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    /** The whole snapshot as a list; see view(int[]). */
+    public View view() {
+        int[] all = new int[size];
+        for (int i = 0; i < size; i++) {
+            all[i] = i;
+        }
+        return new View(all);
+    }
+
+    /**
+     * A list of the given rows that builds Applications only as they are read,
+     * suitable as the backing list of the table model.
+     */
+    public View view(int[] rows) {
+        return new View(rows.clone());
+    }
+
+    /**
+     * List over snapshot rows. It can also be edited in place so the table can
+     * patch a single row: slots holding a snapshot row index are read from the
+     * columns, slots holding an added or replaced Application (stored as
+     * -(k + 1) into extras) are returned as is.
+     */
+    public final class View extends AbstractList<Application> {
+        private int[] slots;
+        private int count;
+        private final List<Application> extras = new ArrayList<>();
+
+        // JTable reads every column of a row in turn; keep the last row built
+        private int cachedIndex = -1;
+        private Application cached;
+
+        private View(int[] rows) {
+            this.slots = rows;
+            this.count = rows.length;
+        }
+
+        @Override
+        public Application get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+            }
+            int slot = slots[index];
+            if (slot < 0) {
+                return extras.get(-slot - 1);
+            }
+            if (index != cachedIndex) {
+                cached = ApplicationSnapshot.this.get(slot);
+                cachedIndex = index;
+            }
+            return cached;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        /** Position of the application with this id, found without building any rows. */
+        public int indexOfId(int id) {
+            for (int i = 0; i < count; i++) {
+                int slot = slots[i];
+                if (slot >= 0 ? ids[slot] == id : extras.get(-slot - 1).getId() == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Application set(int index, Application app) {
+            Application old = get(index);
+            slots[index] = extra(app);
+            cachedIndex = -1;
+            return old;
+        }
+
+        @Override
+        public void add(int index, Application app) {
+            if (index < 0 || index > count) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+            }
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(16, count * 2));
+            }
+            System.arraycopy(slots, index, slots, index + 1, count - index);
+            slots[index] = extra(app);
+            count++;
+            cachedIndex = -1;
+            modCount++;
+        }
+
+        @Override
+        public Application remove(int index) {
+            Application old = get(index);
+            System.arraycopy(slots, index + 1, slots, index, count - index - 1);
+            count--;
+            cachedIndex = -1;
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            count = 0;
+            extras.clear();
+            cachedIndex = -1;
+            modCount++;
+        }
+
+        private int extra(Application app) {
+            extras.add(app);
+            return -extras.size();
+        }
+    }
+
+    /** Accumulates rows, then freezes them into a snapshot. */
+    public static class Builder {
+        private int size;
+        private int[] ids = new int[1024];
+        private int[] epochDays = new int[1024];
+        private byte[] statuses = new byte[1024];
+        private int[] companies = new int[1024];
+        private int[] positions = new int[1024];
+        private long[] noteOffsets = new long[1025];
+        private final List<ByteBuffer> noteChunks = new ArrayList<>();
+        private long noteBytes;
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        public Builder add(Application app) {
+            if (size == ids.length) {
+                int cap = size * 2;
+                ids = Arrays.copyOf(ids, cap);
+                epochDays = Arrays.copyOf(epochDays, cap);
+                statuses = Arrays.copyOf(statuses, cap);
+                companies = Arrays.copyOf(companies, cap);
+                positions = Arrays.copyOf(positions, cap);
+                noteOffsets = Arrays.copyOf(noteOffsets, cap + 1);
+            }
+            ids[size] = app.getId();
+            epochDays[size] = app.getApplicationDate() == null ? NO_DATE : (int) app.getApplicationDate().toEpochDay();
+            statuses[size] = app.getStatus() == null ? -1 : (byte) app.getStatus().ordinal();
+            companies[size] = code(app.getCompany());
+            positions[size] = code(app.getPosition());
+
+            if (app.getNotes() != null) {
+                byte[] note = app.getNotes().getBytes(StandardCharsets.UTF_8);
+                for (int done = 0; done < note.length; ) {
+                    int offset = (int) (noteBytes & (CHUNK_SIZE - 1));
+                    if (offset == 0) {
+                        noteChunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+                    }
+                    int n = Math.min(note.length - done, CHUNK_SIZE - offset);
+                    noteChunks.get(noteChunks.size() - 1).put(offset, note, done, n);
+                    done += n;
+                    noteBytes += n;
+                }
+            }
+            noteOffsets[size + 1] = noteBytes;
+            size++;
+            return this;
+        }
+
+        public ApplicationSnapshot build() {
+            return new ApplicationSnapshot(this);
+        }
+
+        private int code(String s) {
+            String key = s == null ? "" : s;
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(key);
+                codes.put(key, code);
+            }
+            return code;
+        }
+    }
+}
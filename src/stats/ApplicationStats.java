@@ -0,0 +1,424 @@
+package stats;
+
+import db.ApplicationRepository;
+import model.Application;
+import model.Status;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Running aggregates over the applications table for the statistics panel:
+ * counts by status, applications per week, response rate, time to interview
+ * and the companies applied to most.
+ *
+ * Registered as a repository change listener it follows adds, updates and
+ * deletes one row at a time. It remembers what it last counted for each id,
+ * so an update moves that row out of its old buckets and into the new ones
+ * (a status change from Applied to Interviewed moves one count, nothing is
+ * rescanned). rebuild() recounts a whole table, in parallel when it is large.
+ * summary() costs the same however many rows there are.
+ *
+ * Time to interview is the number of days from the application date to the
+ * application's first Interviewed or Accepted event in the status history,
+ * as handed to setInterviewTimes() before rebuilding. A row that moves there
+ * while counted takes the time of that change, its updated_at, and so does a
+ * row the history has no such event for. Later edits keep the first figure.
+ */
+public class ApplicationStats implements ApplicationRepository.ChangeListener {
+
+    /** Weeks shown in Summary.getWeekly(), ending with the current week. */
+    public static final int WEEKS = 12;
+    /** Companies in Summary.getTopCompanies(). */
+    public static final int TOP_COMPANIES = 10;
+    /** Tables at least this large are recounted in parallel. */
+    public static final int PARALLEL_THRESHOLD = 50_000;
+
+    private static final int MAX_DAYS = 365; // time-to-interview histogram, last bucket is "a year or more"
+    private static final Status[] STATUSES = Status.values();
+
+    private final Map<Integer, Row> rows = new HashMap<>();
+    private final int[] byStatus = new int[STATUSES.length];
+    private final TreeMap<Long, int[]> byWeek = new TreeMap<>();
+    private final Map<String, CompanyCount> byCompany = new HashMap<>();
+    private final NavigableSet<CompanyCount> companyRanking = new TreeSet<>(CompanyCount.RANKING);
+    private final int[] daysToInterview = new int[MAX_DAYS + 1];
+    private long interviewed, interviewDaySum;
+    private Map<Integer, Instant> interviewTimes = Map.of();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long changeCount;
+    private volatile boolean ready;
+
+    /** Replaces the aggregates with counts over these applications. */
+    public void rebuild(Collection<Application> apps) {
+        rebuild(apps, apps.size() >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * When each application first reached Interviewed or Accepted, as
+     * ApplicationRepository.getInterviewTimes() returns it. Used for the rows
+     * counted from then on, so call it before rebuild, or before putting a
+     * table through row by row.
+     */
+    public void setInterviewTimes(Map<Integer, Instant> times) {
+        lock.writeLock().lock();
+        try {
+            interviewTimes = times;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the aggregates with counts over these applications. In
+     * parallel, each worker counts a slice of the list into its own partial
+     * aggregates and the partials are merged; only the per-id map is filled
+     * on the calling thread.
+     */
+    public void rebuild(Collection<Application> apps, boolean parallel) {
+        Map<Integer, Instant> times;
+        lock.readLock().lock();
+        try {
+            times = interviewTimes;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Partial total = parallel
+            ? apps.parallelStream().collect(() -> new Partial(times), Partial::add, Partial::merge)
+            : apps.stream().collect(() -> new Partial(times), Partial::add, Partial::merge);
+
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            byWeek.clear();
+            byCompany.clear();
+            companyRanking.clear();
+            System.arraycopy(total.byStatus, 0, byStatus, 0, byStatus.length);
+            System.arraycopy(total.daysToInterview, 0, daysToInterview, 0, daysToInterview.length);
+            interviewed = total.interviewed;
+            interviewDaySum = total.interviewDaySum;
+            for (Map.Entry<Long, int[]> e : total.byWeek.entrySet()) {
+                byWeek.put(e.getKey(), e.getValue());
+            }
+            for (Map.Entry<String, int[]> e : total.byCompany.entrySet()) {
+                CompanyCount c = new CompanyCount(e.getKey(), e.getValue()[0]);
+                byCompany.put(c.name, c);
+                companyRanking.add(c);
+            }
+            for (Application app : apps) {
+                rows.put(app.getId(), Row.of(app, null, times));
+            }
+            ready = true;
+            changeCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Whether rebuild has run, i.e. the aggregates cover the whole table. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Goes up on every change, so a caller can tell whether a new summary is worth taking. */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    /** Counts a new or changed row, moving it out of whatever it was counted under before. */
+    public void put(Application app) {
+        lock.writeLock().lock();
+        try {
+            Row old = rows.get(app.getId());
+            Row row = Row.of(app, old, interviewTimes);
+            if (old != null) {
+                count(old, -1);
+            }
+            count(row, 1);
+            rows.put(app.getId(), row);
+            changeCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            Row old = rows.remove(id);
+            if (old != null) {
+                count(old, -1);
+                changeCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void applicationSaved(Application app) {
+        put(app);
+    }
+
+    @Override
+    public void applicationDeleted(int id) {
+        remove(id);
+    }
+
+    @Override
+    public void applicationsReplaced() {
+        ready = false; // a bulk change; the owner rebuilds
+    }
+
+    /** A consistent copy of the current figures. */
+    public Summary summary() {
+        lock.readLock().lock();
+        try {
+            long thisWeek = week(LocalDate.now());
+            Map<LocalDate, Integer> weekly = new LinkedHashMap<>();
+            for (long w = thisWeek - WEEKS + 1; w <= thisWeek; w++) {
+                int[] n = byWeek.get(w);
+                weekly.put(weekStart(w), n == null ? 0 : n[0]);
+            }
+            Map<String, Integer> top = new LinkedHashMap<>();
+            Iterator<CompanyCount> it = companyRanking.iterator();
+            while (it.hasNext() && top.size() < TOP_COMPANIES) {
+                CompanyCount c = it.next();
+                top.put(c.name, c.count);
+            }
+            return new Summary(byStatus.clone(), weekly, top, interviewed,
+                    interviewed == 0 ? 0 : (double) interviewDaySum / interviewed, medianDaysToInterview());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void count(Row row, int delta) {
+        if (row.status != null) {
+            byStatus[row.status.ordinal()] += delta;
+        }
+        if (row.week != Row.NONE) {
+            int[] n = byWeek.computeIfAbsent(row.week, k -> new int[1]);
+            if ((n[0] += delta) == 0) {
+                byWeek.remove(row.week);
+            }
+        }
+        if (row.company != null) {
+            CompanyCount c = byCompany.get(row.company);
+            if (c == null) {
+                c = new CompanyCount(row.company, 0);
+                byCompany.put(c.name, c);
+            } else {
+                companyRanking.remove(c);
+            }
+            c.count += delta;
+            if (c.count > 0) {
+                companyRanking.add(c);
+            } else {
+                byCompany.remove(c.name);
+            }
+        }
+        if (row.days >= 0) {
+            daysToInterview[Math.min(row.days, MAX_DAYS)] += delta;
+            interviewed += delta;
+            interviewDaySum += (long) delta * row.days;
+        }
+    }
+
+    private int medianDaysToInterview() {
+        long half = (interviewed + 1) / 2, seen = 0;
+        for (int d = 0; d < daysToInterview.length && interviewed > 0; d++) {
+            seen += daysToInterview[d];
+            if (seen >= half) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    // Weeks start on Monday; 1970-01-01 (epoch day 0) was a Thursday
+    private static long week(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay() + 3, 7);
+    }
+
+    private static LocalDate weekStart(long week) {
+        return LocalDate.ofEpochDay(week * 7 - 3);
+    }
+
+    /** What one application was counted under. */
+    private static final class Row {
+        static final long NONE = Long.MIN_VALUE;
+
+        final Status status;
+        final long week;
+        final String company;
+        final int days;  // days to interview, or -1
+
+        private Row(Status status, long week, String company, int days) {
+            this.status = status;
+            this.week = week;
+            this.company = company;
+            this.days = days;
+        }
+
+        static Row of(Application app, Row previous, Map<Integer, Instant> interviewTimes) {
+            LocalDate applied = app.getApplicationDate();
+            return new Row(app.getStatus(), applied == null ? NONE : week(applied),
+                    app.getCompany(), daysToInterview(app, previous, interviewTimes));
+        }
+
+        private static int daysToInterview(Application app, Row previous, Map<Integer, Instant> interviewTimes) {
+            if (!reachedInterview(app.getStatus()) || app.getApplicationDate() == null) {
+                return -1;
+            }
+            if (previous != null && previous.days >= 0) {
+                return previous.days;
+            }
+            // Just moved there if it was counted before; otherwise the history knows when
+            Instant at = previous != null ? null : interviewTimes.get(app.getId());
+            if (at == null) {
+                at = app.getUpdatedAt();
+            }
+            LocalDate changed = at == null ? LocalDate.now() : at.atZone(ZoneId.systemDefault()).toLocalDate();
+            return (int) Math.max(0, changed.toEpochDay() - app.getApplicationDate().toEpochDay());
+        }
+
+        private static boolean reachedInterview(Status status) {
+            return status == Status.INTERVIEWED || status == Status.ACCEPTED;
+        }
+    }
+
+    private static final class CompanyCount {
+        static final Comparator<CompanyCount> RANKING = (a, b) -> a.count != b.count
+            ? Integer.compare(b.count, a.count)
+            : a.name.compareTo(b.name);
+
+        final String name;
+        int count;  // only changed while out of the ranking set
+
+        CompanyCount(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    /** One worker's counts during rebuild. */
+    private static final class Partial {
+        final int[] byStatus = new int[STATUSES.length];
+        final Map<Long, int[]> byWeek = new HashMap<>();
+        final Map<String, int[]> byCompany = new HashMap<>();
+        final int[] daysToInterview = new int[MAX_DAYS + 1];
+        final Map<Integer, Instant> interviewTimes;
+        long interviewed, interviewDaySum;
+
+        Partial(Map<Integer, Instant> interviewTimes) {
+            this.interviewTimes = interviewTimes;
+        }
+
+        void add(Application app) {
+            Row row = Row.of(app, null, interviewTimes);
+            if (row.status != null) {
+                byStatus[row.status.ordinal()]++;
+            }
+            if (row.week != Row.NONE) {
+                byWeek.computeIfAbsent(row.week, k -> new int[1])[0]++;
+            }
+            if (row.company != null) {
+                byCompany.computeIfAbsent(row.company, k -> new int[1])[0]++;
+            }
+            if (row.days >= 0) {
+                daysToInterview[Math.min(row.days, MAX_DAYS)]++;
+                interviewed++;
+                interviewDaySum += row.days;
+            }
+        }
+
+        void merge(Partial other) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] += other.byStatus[i];
+            }
+            for (int i = 0; i < daysToInterview.length; i++) {
+                daysToInterview[i] += other.daysToInterview[i];
+            }
+            other.byWeek.forEach((k, v) -> byWeek.computeIfAbsent(k, x -> new int[1])[0] += v[0]);
+            other.byCompany.forEach((k, v) -> byCompany.computeIfAbsent(k, x -> new int[1])[0] += v[0]);
+            interviewed += other.interviewed;
+            interviewDaySum += other.interviewDaySum;
+        }
+    }
+
+    /** Figures at one point in time. */
+    public static final class Summary {
+        private final int[] byStatus;
+        private final Map<LocalDate, Integer> weekly;
+        private final Map<String, Integer> topCompanies;
+        private final long interviewed;
+        private final double averageDaysToInterview;
+        private final int medianDaysToInterview;
+
+        private Summary(int[] byStatus, Map<LocalDate, Integer> weekly, Map<String, Integer> topCompanies,
+                        long interviewed, double averageDaysToInterview, int medianDaysToInterview) {
+            this.byStatus = byStatus;
+            this.weekly = Collections.unmodifiableMap(weekly);
+            this.topCompanies = Collections.unmodifiableMap(topCompanies);
+            this.interviewed = interviewed;
+            this.averageDaysToInterview = averageDaysToInterview;
+            this.medianDaysToInterview = medianDaysToInterview;
+        }
+
+        public int getTotal() {
+            int total = 0;
+            for (int n : byStatus) {
+                total += n;
+            }
+            return total;
+        }
+
+        public int getCount(Status status) {
+            return byStatus[status.ordinal()];
+        }
+
+        /** Share of applications that got any answer, i.e. are no longer Applied. */
+        public double getResponseRate() {
+            int total = getTotal();
+            return total == 0 ? 0 : 1.0 - (double) getCount(Status.APPLIED) / total;
+        }
+
+        /** Applications per week, oldest week first, keyed by the Monday starting it. */
+        public Map<LocalDate, Integer> getWeekly() {
+            return weekly;
+        }
+
+        /** Companies with the most applications, most first. */
+        public Map<String, Integer> getTopCompanies() {
+            return topCompanies;
+        }
+
+        /** Applications that reached an interview and so have a time to interview. */
+        public long getInterviewed() {
+            return interviewed;
+        }
+
+        public double getAverageDaysToInterview() {
+            return averageDaysToInterview;
+        }
+
+        /** Median days to interview, or -1 when nothing has reached one. */
+        public int getMedianDaysToInterview() {
+            return medianDaysToInterview;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package table;
+
+import db.ApplicationRepository;
+import model.Application;
+import model.Status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The whole applications table in memory, kept sorted by every sortable
+ * column at once, so the main window can sort and filter without going back
+ * to the database or re-sorting.
+ *
+ * Each row gets a slot, assigned in id order by rebuild(); a deleted row's
+ * slot goes on a free list and is reused by the next add. Per column there
+ * is a permutation of the live slots ordered by that column, ties by id;
+ * sorting is picking a permutation (walked backwards for descending).
+ * rebuild() builds them with Arrays.parallelSort over packed (key, slot)
+ * longs, strings keyed by their rank among the distinct values. After that a
+ * change moves its slot within each permutation, found by binary search, and
+ * nothing is re-sorted.
+ *
+ * select() walks one permutation and keeps the slots passing a Filter, tested
+ * against per-slot columns (epoch day, status, company code); large tables
+ * are walked in parallel chunks. Registered as a repository change listener
+ * the index follows adds, updates and deletes.
+ */
+public class TableIndex implements ApplicationRepository.ChangeListener {
+
+    /** Columns the table can be sorted by. */
+    public enum Column { ID, COMPANY, POSITION, DATE, STATUS }
+
+    private static final Column[] COLUMNS = Column.values();
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int PARALLEL_THRESHOLD = 100_000;
+    private static final int CHUNK = 64 * 1024;
+    private static final Comparator<String> TEXT_ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    // Per slot; a deleted slot leaves every permutation and waits in free until reused
+    private int slots;
+    private int[] free = new int[16];
+    private int freeSlots;
+    private Application[] apps = new Application[16];
+    private int[] ids = new int[16];
+    private int[] days = new int[16];
+    private byte[] statuses = new byte[16];
+    private int[] companyCodes = new int[16];
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+
+    // Distinct companies, lower-cased, by code; a prefix filter tests each once
+    private final Map<String, Integer> companyCode = new HashMap<>();
+    private final List<String> companyKeys = new ArrayList<>();
+
+    private int live;
+    private final int[][] orders = new int[COLUMNS.length][16];
+
+    /** Replaces the contents with these applications and sorts every column. */
+    public void rebuild(Collection<Application> rows) {
+        Application[] byId = inIdOrder(rows);
+        lock.writeLock().lock();
+        try {
+            slots = 0;
+            freeSlots = 0;
+            live = 0;
+            slotOf.clear();
+            companyCode.clear();
+            companyKeys.clear();
+            ensureCapacity(byId.length);
+            for (Application app : byId) {
+                if (slotOf.containsKey(app.getId())) {
+                    continue;
+                }
+                int slot = slots++;
+                write(slot, app);
+                slotOf.put(app.getId(), slot);
+            }
+            live = slots;
+            for (Column c : COLUMNS) {
+                orders[c.ordinal()] = sortedSlots(c);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Whether rebuild has run, i.e. the index covers the whole table. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Adds or replaces one row, moving it within each column's order. */
+    public void put(Application app) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotOf.get(app.getId());
+            if (existing == null) {
+                int slot;
+                if (freeSlots > 0) {
+                    slot = free[--freeSlots];
+                } else {
+                    ensureCapacity(slots + 1);
+                    slot = slots++;
+                }
+                write(slot, app);
+                slotOf.put(app.getId(), slot);
+                for (Column c : COLUMNS) {
+                    int[] order = orders[c.ordinal()];
+                    int pos = insertionPoint(c, order, live, -1, slot);
+                    System.arraycopy(order, pos, order, pos + 1, live - pos);
+                    order[pos] = slot;
+                }
+                live++;
+                return;
+            }
+            int slot = existing;
+            int[] oldPos = new int[COLUMNS.length];
+            for (Column c : COLUMNS) {
+                oldPos[c.ordinal()] = position(c, slot);  // while the old values are in place
+            }
+            write(slot, app);
+            for (Column c : COLUMNS) {
+                int[] order = orders[c.ordinal()];
+                int from = oldPos[c.ordinal()];
+                int to = insertionPoint(c, order, live, from, slot);
+                if (to < from) {
+                    System.arraycopy(order, to, order, to + 1, from - to);
+                } else if (to > from) {
+                    System.arraycopy(order, from + 1, order, from, to - from);
+                }
+                order[to] = slot;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOf.get(id);
+            if (slot == null) {
+                return;
+            }
+            for (Column c : COLUMNS) {
+                int[] order = orders[c.ordinal()];
+                int pos = position(c, slot);
+                System.arraycopy(order, pos + 1, order, pos, live - pos - 1);
+            }
+            live--;
+            slotOf.remove(id);
+            apps[slot] = null;
+            if (freeSlots == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeSlots++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void applicationSaved(Application app) {
+        put(app);
+    }
+
+    @Override
+    public void applicationDeleted(int id) {
+        remove(id);
+    }
+
+    @Override
+    public void applicationsReplaced() {
+        ready = false; // a bulk change; the owner rebuilds
+    }
+
+    /**
+     * The rows passing the filter, sorted by the column. The result is a
+     * copy and does not follow later changes. Costs one pass over the column's
+     * order, split across cores for large tables.
+     */
+    public List<Application> select(Column column, boolean descending, Filter filter) {
+        lock.readLock().lock();
+        try {
+            int[] order = orders[column.ordinal()];
+            int n = live;
+            boolean[] companyOk = filter.companyPrefix == null ? null : companiesWithPrefix(filter.companyPrefix);
+            int statusMask = filter.statusMask;
+            int lo = filter.from == null ? Integer.MIN_VALUE : (int) filter.from.toEpochDay();
+            int hi = filter.to == null ? Integer.MAX_VALUE : (int) filter.to.toEpochDay();
+            boolean anyDate = filter.from == null && filter.to == null;
+
+            IntFunction<Application[]> chunk = c -> {
+                int start = c * CHUNK, end = Math.min(n, start + CHUNK);
+                Application[] out = new Application[end - start];
+                int k = 0;
+                for (int i = start; i < end; i++) {
+                    int slot = order[descending ? n - 1 - i : i];
+                    if (statusMask != 0 && (statuses[slot] < 0 || (statusMask & (1 << statuses[slot])) == 0)) {
+                        continue;
+                    }
+                    if (!anyDate && (days[slot] == NO_DATE || days[slot] < lo || days[slot] > hi)) {
+                        continue;
+                    }
+                    if (companyOk != null && !companyOk[companyCodes[slot]]) {
+                        continue;
+                    }
+                    out[k++] = apps[slot];
+                }
+                return k == out.length ? out : Arrays.copyOf(out, k);
+            };
+            int chunks = (n + CHUNK - 1) / CHUNK;
+            Application[][] parts = n >= PARALLEL_THRESHOLD
+                ? IntStream.range(0, chunks).parallel().mapToObj(chunk).toArray(Application[][]::new)
+                : IntStream.range(0, chunks).mapToObj(chunk).toArray(Application[][]::new);
+
+            int total = 0;
+            for (Application[] p : parts) {
+                total += p.length;
+            }
+            Application[] result = new Application[total];
+            int at = 0;
+            for (Application[] p : parts) {
+                System.arraycopy(p, 0, result, at, p.length);
+                at += p.length;
+            }
+            return Collections.unmodifiableList(Arrays.asList(result));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- building ----
+
+    private static Application[] inIdOrder(Collection<Application> rows) {
+        Application[] in = rows.toArray(new Application[0]);
+        long[] packed = new long[in.length];
+        for (int i = 0; i < in.length; i++) {
+            packed[i] = (long) in[i].getId() << 32 | i;
+        }
+        Arrays.parallelSort(packed);
+        Application[] out = new Application[in.length];
+        for (int i = 0; i < in.length; i++) {
+            out[i] = in[(int) packed[i]];
+        }
+        return out;
+    }
+
+    /**
+     * The live slots (all of them, straight after rebuild) sorted by the
+     * column. Slots are in id order then, so ties in slot order are ties by id.
+     */
+    private int[] sortedSlots(Column c) {
+        int[] order = new int[Math.max(16, apps.length)];
+        int[] keys = c == Column.ID ? ids
+            : c == Column.DATE ? days
+            : c == Column.STATUS ? statusKeys()
+            : textRanks(c);
+        long[] packed = new long[slots];
+        for (int i = 0; i < slots; i++) {
+            packed[i] = (long) keys[i] << 32 | i;
+        }
+        Arrays.parallelSort(packed);
+        for (int i = 0; i < slots; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    private int[] statusKeys() {
+        int[] keys = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            keys[i] = statuses[i];
+        }
+        return keys;
+    }
+
+    // Each slot's rank among the column's distinct values in TEXT_ORDER
+    private int[] textRanks(Column c) {
+        Map<String, Integer> rank = new HashMap<>();
+        for (int i = 0; i < slots; i++) {
+            rank.put(text(c, i), 0);
+        }
+        String[] distinct = rank.keySet().toArray(new String[0]);
+        Arrays.parallelSort(distinct, TEXT_ORDER);
+        for (int r = 0; r < distinct.length; r++) {
+            rank.put(distinct[r], r);
+        }
+        int[] keys = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            keys[i] = rank.get(text(c, i));
+        }
+        return keys;
+    }
+
+    // ---- maintenance ----
+
+    private void write(int slot, Application app) {
+        apps[slot] = app;
+        ids[slot] = app.getId();
+        days[slot] = app.getApplicationDate() == null ? NO_DATE : (int) app.getApplicationDate().toEpochDay();
+        statuses[slot] = app.getStatus() == null ? -1 : (byte) app.getStatus().ordinal();
+        String key = app.getCompany() == null ? "" : app.getCompany().toLowerCase(Locale.ROOT);
+        Integer code = companyCode.get(key);
+        if (code == null) {
+            code = companyKeys.size();
+            companyKeys.add(key);
+            companyCode.put(key, code);
+        }
+        companyCodes[slot] = code;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= apps.length) {
+            return;
+        }
+        int capacity = Math.max(needed, apps.length * 2);
+        apps = Arrays.copyOf(apps, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        days = Arrays.copyOf(days, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        companyCodes = Arrays.copyOf(companyCodes, capacity);
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = Arrays.copyOf(orders[i], capacity);
+        }
+    }
+
+    /** Index of the slot in the column's order. */
+    private int position(Column c, int slot) {
+        int[] order = orders[c.ordinal()];
+        int lo = 0, hi = live;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(c, order[mid], slot) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Where the slot belongs among the first n entries of the order, reading
+     * them as if the entry at skip (the slot's old place, or -1) were absent.
+     */
+    private int insertionPoint(Column c, int[] order, int n, int skip, int slot) {
+        int size = skip < 0 ? n : n - 1;
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int other = order[skip >= 0 && mid >= skip ? mid + 1 : mid];
+            if (compare(c, other, slot) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int compare(Column c, int a, int b) {
+        int cmp;
+        switch (c) {
+            case COMPANY:
+            case POSITION: cmp = TEXT_ORDER.compare(text(c, a), text(c, b)); break;
+            case DATE:     cmp = Integer.compare(days[a], days[b]); break;
+            case STATUS:   cmp = Integer.compare(statuses[a], statuses[b]); break;
+            default:       cmp = 0;  // ID: the tie-break below
+        }
+        return cmp != 0 ? cmp : Integer.compare(ids[a], ids[b]);
+    }
+
+    private String text(Column c, int slot) {
+        String s = c == Column.COMPANY ? apps[slot].getCompany() : apps[slot].getPosition();
+        return s == null ? "" : s;
+    }
+
+    private boolean[] companiesWithPrefix(String prefix) {
+        boolean[] ok = new boolean[companyKeys.size()];
+        for (int i = 0; i < ok.length; i++) {
+            ok[i] = companyKeys.get(i).startsWith(prefix);
+        }
+        return ok;
+    }
+
+    /**
+     * Rows to keep: statuses in a set, application dates in an inclusive
+     * range, and companies starting with a prefix (ignoring case). Null or
+     * empty conditions match everything.
+     */
+    public static final class Filter {
+        public static final Filter ALL = new Filter(null, null, null, null);
+
+        private final int statusMask;      // bit per Status.ordinal(); 0 for any
+        private final LocalDate from, to;
+        private final String companyPrefix; // lower-cased, or null
+
+        public Filter(Set<Status> statuses, LocalDate from, LocalDate to, String companyPrefix) {
+            int mask = 0;
+            if (statuses != null && !statuses.isEmpty() && !statuses.containsAll(EnumSet.allOf(Status.class))) {
+                for (Status s : statuses) {
+                    mask |= 1 << s.ordinal();
+                }
+            }
+            this.statusMask = mask;
+            this.from = from;
+            this.to = to;
+            this.companyPrefix = companyPrefix == null || companyPrefix.isEmpty()
+                ? null : companyPrefix.toLowerCase(Locale.ROOT);
+        }
+
+        /** The same test select() applies, for a single row. */
+        public boolean matches(Application app) {
+            Status status = app.getStatus();
+            if (statusMask != 0 && (status == null || (statusMask & (1 << status.ordinal())) == 0)) {
+                return false;
+            }
+            LocalDate date = app.getApplicationDate();
+            if ((from != null || to != null) && (date == null
+                    || (from != null && date.isBefore(from)) || (to != null && date.isAfter(to)))) {
+                return false;
+            }
+            String company = app.getCompany() == null ? "" : app.getCompany().toLowerCase(Locale.ROOT);
+            return companyPrefix == null || company.startsWith(companyPrefix);
+        }
+    }
+}